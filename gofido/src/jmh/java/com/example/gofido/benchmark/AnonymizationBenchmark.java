@@ -0,0 +1,73 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.service.AnonymizationReport;
+import com.example.gofido.service.AnonymizationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one run of the nightly anonymization job over a synthetic data
+ * set in which half of the offers are expired.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnonymizationBenchmark {
+
+    /**
+     * Total number of offers in the table before each run.
+     */
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext ctx;
+
+    private JdbcTemplate jdbc;
+
+    private AnonymizationService anonymization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkContext.start();
+        jdbc = ctx.getBean(JdbcTemplate.class);
+        anonymization = ctx.getBean(AnonymizationService.class);
+    }
+
+    /**
+     * Reload the table so every measured run has the same amount of work.
+     */
+    @Setup(Level.Invocation)
+    public void seed() {
+        jdbc.update("delete from offers");
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime giltigTill = i % 2 == 0 ? now.minusDays(1) : now.plusDays(30);
+            batch.add(new Object[]{UUID.randomUUID(), "19800101-1234", "SKAPAD",
+                    Timestamp.valueOf(now.minusDays(31)), Timestamp.valueOf(giltigTill), 0L});
+        }
+        jdbc.batchUpdate("insert into offers (id, personnummer, status, skapad, giltig_till, version)"
+                + " values (?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public AnonymizationReport anonymizeExpiredOffers() {
+        return anonymization.anonymizeExpiredOffers(LocalDateTime.now());
+    }
+}
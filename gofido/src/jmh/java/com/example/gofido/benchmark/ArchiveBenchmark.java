@@ -0,0 +1,81 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.LoanListConverter;
+import com.example.gofido.service.ArchiveReport;
+import com.example.gofido.service.OfferArchiveService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one run of the archiving job over a synthetic data set in which
+ * 90% of the offers are cold: 60% accepted and 30% expired (UTGÅNGEN).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveBenchmark {
+
+    /**
+     * Total number of offers in the table before each run.
+     */
+    @Param({"10000", "100000"})
+    public int rows;
+
+    /**
+     * Encoded loans column shared by every seeded offer: one 100 000 SEK loan.
+     */
+    private static final byte[] LOANS =
+            LoanListConverter.encode(List.of(new Loan("SEB", BigDecimal.valueOf(100_000))));
+
+    private ConfigurableApplicationContext ctx;
+
+    private JdbcTemplate jdbc;
+
+    private OfferArchiveService archive;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkContext.start();
+        jdbc = ctx.getBean(JdbcTemplate.class);
+        archive = ctx.getBean(OfferArchiveService.class);
+    }
+
+    /**
+     * Reload both tables so every measured run has the same amount of work.
+     */
+    @Setup(Level.Invocation)
+    public void seed() {
+        jdbc.update("delete from offers");
+        jdbc.update("delete from offers_archive");
+        // x mod 10: 0-5 accepted, 6-8 expired, 9 open
+        jdbc.update("insert into offers (id, personnummer, loans_data, premie, status, skapad, giltig_till,"
+                + " accepterad_vid, version)"
+                + " select random_uuid(7), case when mod(x, 10) between 6 and 8 then null else '19800101-1234' end,"
+                + " ?, 3800.00,"
+                + " case when mod(x, 10) < 6 then 'TECKNAD' when mod(x, 10) < 9 then 'UTGÅNGEN' else 'SKAPAD' end,"
+                + " localtimestamp - 40,"
+                + " case when mod(x, 10) between 6 and 8 then localtimestamp - 10 else localtimestamp + 30 end,"
+                + " case when mod(x, 10) < 6 then localtimestamp - 20 end,"
+                + " 0 from system_range(1, ?)", LOANS, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public ArchiveReport archiveColdOffers() {
+        return archive.archiveColdOffers(LocalDateTime.now());
+    }
+}
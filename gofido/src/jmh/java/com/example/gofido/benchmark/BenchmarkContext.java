@@ -0,0 +1,72 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.GofidoApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server against a private in-memory H2
+ * database, or the database of a profile, for benchmarks that exercise the
+ * real JPA stack.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+        // Static utility class
+    }
+
+    /**
+     * Boot a fresh application context with its own database.
+     *
+     * @return the running context; close it in the benchmark's tear-down
+     */
+    static ConfigurableApplicationContext start() {
+        return start("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    /**
+     * Boot a fresh application context against the given database.
+     *
+     * @param url  JDBC URL of the database
+     * @param args additional application arguments, e.g. {@code --offer.id.strategy=random}
+     * @return the running context; close it in the benchmark's tear-down
+     */
+    static ConfigurableApplicationContext start(String url, String... args) {
+        List<String> all = new ArrayList<>();
+        all.add("--spring.datasource.url=" + url);
+        all.addAll(List.of(args));
+        return run(all);
+    }
+
+    /**
+     * Boot a fresh application context with a Spring profile and the database it configures.
+     *
+     * @param profile profile to activate, e.g. {@code prod}
+     * @param args    additional application arguments, e.g. {@code --offer.db.path=target/db}
+     * @return the running context; close it in the benchmark's tear-down
+     */
+    static ConfigurableApplicationContext startProfile(String profile, String... args) {
+        List<String> all = new ArrayList<>();
+        all.add("--spring.profiles.active=" + profile);
+        all.addAll(List.of(args));
+        return run(all);
+    }
+
+    private static ConfigurableApplicationContext run(List<String> args) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication app = new SpringApplication(GofidoApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        List<String> all = new ArrayList<>(List.of(
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                // Seeded overdue offers must stay as seeded while they are measured
+                "--offer.expiry.enabled=false"));
+        all.addAll(args);
+        return app.run(all.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.config.PremiumProperties;
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.domain.UuidV7Strategy;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.service.PremiumCalculator;
+import jakarta.persistence.EntityManager;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic data and stubs shared by the benchmarks.
+ * <p>
+ * All data is generated from a fixed seed so runs are reproducible.
+ */
+final class BenchmarkData {
+
+    /**
+     * Bank names used for generated loans.
+     */
+    static final String[] BANKS = {"Handelsbanken", "SEB", "Swedbank", "Nordea", "SBAB"};
+
+    /**
+     * Premium calculator with the default 3.8% rate table.
+     */
+    static final PremiumCalculator PREMIUMS = new PremiumCalculator(new PremiumProperties());
+
+    private BenchmarkData() {
+        // Static utility class
+    }
+
+    /**
+     * Build a create request with the given number of loans.
+     *
+     * @param loans number of loans on the offer
+     * @param seed  random seed for loan amounts
+     * @return a valid create-offer DTO
+     */
+    static CreateOfferDto createDto(int loans, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<LoanDto> lån = new ArrayList<>(loans);
+        for (int i = 0; i < loans; i++) {
+            lån.add(new LoanDto(BANKS[i % BANKS.length], BigDecimal.valueOf(rnd.nextLong(50_000, 5_000_000))));
+        }
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(rnd.nextLong(1_000, 20_000)));
+        dto.setLån(lån);
+        return dto;
+    }
+
+    /**
+     * Build a detached, fully populated offer with the given number of loans.
+     *
+     * @param loans number of loans on the offer
+     * @param seed  random seed for loan amounts
+     * @return an offer entity that has not been persisted
+     */
+    static Offer offer(int loans, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<Loan> list = new ArrayList<>(loans);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < loans; i++) {
+            BigDecimal belopp = BigDecimal.valueOf(rnd.nextLong(50_000, 5_000_000));
+            list.add(new Loan(BANKS[i % BANKS.length], belopp));
+            total = total.add(belopp);
+        }
+        Offer o = new Offer();
+        o.setPersonnummer("19800101-1234");
+        o.setLoans(list);
+        o.setManadskostnad(BigDecimal.valueOf(9500));
+        o.setForsakratBelopp(total);
+        o.setPremie(PREMIUMS.premium(list));
+        o.setStatus(OfferStatus.SKAPAD);
+        o.setSkapad(LocalDateTime.now());
+        o.setGiltigTill(o.getSkapad().plusDays(30));
+        return o;
+    }
+
+    /**
+     * Repository stub whose {@code save} assigns an ID like the real generator
+     * and returns its argument, and whose other methods are unsupported, so
+     * service benchmarks measure no I/O.
+     *
+     * @return an in-memory OfferRepository stub
+     */
+    static OfferRepository savingRepository() {
+        UuidV7Strategy ids = new UuidV7Strategy();
+        return (OfferRepository) Proxy.newProxyInstance(
+                OfferRepository.class.getClassLoader(),
+                new Class<?>[]{OfferRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        Offer o = (Offer) args[0];
+                        if (o.getId() == null) {
+                            o.setId(ids.next());
+                        }
+                        return o;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Entity manager stub that discards persisted entities, so outbox events
+     * are built and serialized but not written.
+     *
+     * @return an EntityManager stub supporting only {@code persist}
+     */
+    static EntityManager discardingEntityManager() {
+        return (EntityManager) Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("persist")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.UuidV7Strategy;
+import com.example.gofido.service.OfferService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the durable {@code prod} profile on a file-based database
+ * pre-filled with {@code rows} offers.
+ * <p>
+ * {@link #createAndAccept} measures sustained throughput of creating and
+ * accepting offers through {@link OfferService} from eight threads, with
+ * every commit written before it is acknowledged ({@code WRITE_DELAY=0}, as
+ * configured) and, for comparison, with H2's default write delay of 500 ms.
+ * <p>
+ * {@link #recover} measures how long the database takes to open after a
+ * crash: before each measurement a separate JVM writes offers until it is
+ * killed, and the benchmark fails if the last offer that JVM saw committed
+ * is missing after recovery.
+ */
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class DurableStoreBenchmark {
+
+    /**
+     * Rows inserted per seeding statement.
+     */
+    private static final int SEED_CHUNK = 500_000;
+
+    /**
+     * How long the crashing writer runs before it is killed.
+     */
+    private static final long WRITE_MILLIS = 2_000;
+
+    /**
+     * Running application on the pre-filled database.
+     */
+    @State(Scope.Benchmark)
+    public static class Store {
+
+        /**
+         * Number of offers in the table before measurement.
+         */
+        @Param({"10000000"})
+        public int rows;
+
+        /**
+         * H2 write delay in milliseconds; 0 is the profile's setting.
+         */
+        @Param({"0", "500"})
+        public int writeDelay;
+
+        private ConfigurableApplicationContext ctx;
+
+        private OfferService service;
+
+        private Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Path.of("target", "bench-db", "durable-" + rows).toAbsolutePath();
+            FileSystemUtils.deleteRecursively(dir);
+            ctx = BenchmarkContext.startProfile("prod", "--offer.db.path=" + dir.resolve("gofido"));
+            service = ctx.getBean(OfferService.class);
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            seed(jdbc, rows);
+            jdbc.execute("set write_delay " + writeDelay);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            ctx.close();
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Pre-filled database left behind by a crashed writer before each measurement.
+     */
+    @State(Scope.Benchmark)
+    public static class CrashedStore {
+
+        /**
+         * Number of offers in the table before the first crash.
+         */
+        @Param({"10000000"})
+        public int rows;
+
+        private Path dir;
+
+        /**
+         * JDBC URL of the profile's database, options included.
+         */
+        private String url;
+
+        /**
+         * ID of the last offer the writer saw committed before it was killed.
+         */
+        private volatile String acknowledged;
+
+        private Connection connection;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Path.of("target", "bench-db", "recovery-" + rows).toAbsolutePath();
+            FileSystemUtils.deleteRecursively(dir);
+            try (ConfigurableApplicationContext ctx = BenchmarkContext.startProfile("prod",
+                    "--offer.db.path=" + dir.resolve("gofido"))) {
+                url = ctx.getEnvironment().getProperty("spring.datasource.url");
+                seed(ctx.getBean(JdbcTemplate.class), rows);
+            }
+        }
+
+        /**
+         * Run a writer in another JVM and kill it mid-write.
+         */
+        @Setup(Level.Iteration)
+        public void crash() throws Exception {
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            Process writer = new ProcessBuilder(java, "-Xmx512m", "-cp", System.getProperty("java.class.path"),
+                    CrashingWriter.class.getName(), url)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            acknowledged = null;
+            Thread reader = new Thread(() -> {
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(writer.getInputStream()))) {
+                    for (String line; (line = in.readLine()) != null; ) {
+                        acknowledged = line;
+                    }
+                } catch (IOException e) {
+                    // The writer was killed
+                }
+            });
+            reader.start();
+            Thread.sleep(WRITE_MILLIS);
+            writer.destroyForcibly().waitFor();
+            reader.join();
+            if (acknowledged == null) {
+                throw new IllegalStateException("The writer committed nothing before it was killed");
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws SQLException {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 10)
+    @Measurement(iterations = 5, time = 10)
+    @Threads(8)
+    @OperationsPerInvocation(2)
+    public Offer createAndAccept(Store store) {
+        Offer offer = store.service.createOffer(BenchmarkData.createDto(1, ThreadLocalRandom.current().nextLong()));
+        return store.service.acceptOffer(offer.getId());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public String recover(CrashedStore store) throws SQLException {
+        store.connection = DriverManager.getConnection(store.url);
+        try (PreparedStatement ps = store.connection.prepareStatement("select status from offers where id = ?")) {
+            ps.setObject(1, UUID.fromString(store.acknowledged));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("Offer " + store.acknowledged + " was committed but lost in the crash");
+                }
+                return rs.getString(1);
+            }
+        }
+    }
+
+    /**
+     * Fill the offers table in SQL with {@code rows} open offers.
+     */
+    private static void seed(JdbcTemplate jdbc, int rows) {
+        for (int done = 0; done < rows; done += SEED_CHUNK) {
+            jdbc.update("insert into offers (id, personnummer, premie, status, skapad, giltig_till, version)"
+                    + " select random_uuid(7), '19800101-1234', 3800.00, 'SKAPAD', localtimestamp, localtimestamp + 30, 0"
+                    + " from system_range(1, ?)", Math.min(SEED_CHUNK, rows - done));
+        }
+    }
+
+    /**
+     * Writer run in its own JVM by {@link CrashedStore#crash()}: creates and
+     * accepts offers one auto-committed statement at a time, printing the ID
+     * of each offer once its statement has committed, until it is killed.
+     */
+    public static final class CrashingWriter {
+
+        private CrashingWriter() {
+            // Entry point only
+        }
+
+        public static void main(String[] args) throws SQLException {
+            UuidV7Strategy ids = new UuidV7Strategy();
+            try (Connection con = DriverManager.getConnection(args[0]);
+                 PreparedStatement insert = con.prepareStatement(
+                         "insert into offers (id, personnummer, premie, status, skapad, giltig_till, version)"
+                                 + " values (?, '19800101-1234', 3800.00, 'SKAPAD', localtimestamp, localtimestamp + 30, 0)");
+                 PreparedStatement accept = con.prepareStatement(
+                         "update offers set status = 'TECKNAD', accepterad_vid = localtimestamp, version = version + 1"
+                                 + " where id = ?")) {
+                while (true) {
+                    UUID id = ids.next();
+                    insert.setObject(1, id);
+                    insert.executeUpdate();
+                    System.out.println(id);
+                    accept.setObject(1, id);
+                    accept.executeUpdate();
+                    System.out.println(id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.repository.OfferRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks insert throughput into a large offers table for each ID strategy.
+ * <p>
+ * The table is pre-filled with {@code rows} offers whose keys follow the same
+ * strategy, in a file-based H2 database so the primary key index does not fit
+ * in a cache-friendly working set. Time-ordered keys append to the right edge
+ * of the index; random keys land on arbitrary pages and split them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class OfferInsertBenchmark {
+
+    /**
+     * Offers inserted per transaction, matching the JDBC batch size scale.
+     */
+    private static final int BATCH = 100;
+
+    /**
+     * Rows inserted per seeding statement.
+     */
+    private static final int SEED_CHUNK = 500_000;
+
+    /**
+     * ID strategy under test, as configured by {@code offer.id.strategy}.
+     */
+    @Param({"uuid7", "random"})
+    public String strategy;
+
+    /**
+     * Number of offers in the table before measurement.
+     */
+    @Param({"10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext ctx;
+
+    private OfferRepository repo;
+
+    private TransactionTemplate tx;
+
+    private Path dir;
+
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Path.of("target", "bench-db", "insert-" + strategy + "-" + rows).toAbsolutePath();
+        FileSystemUtils.deleteRecursively(dir);
+        ctx = BenchmarkContext.start("jdbc:h2:file:" + dir.resolve("offers") + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--offer.id.strategy=" + strategy);
+        repo = ctx.getBean(OfferRepository.class);
+        tx = ctx.getBean(TransactionTemplate.class);
+
+        // Seed in SQL with H2's own UUID generator, version 7 or 4 to match the strategy
+        JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+        int version = strategy.equals("uuid7") ? 7 : 4;
+        for (int done = 0; done < rows; done += SEED_CHUNK) {
+            jdbc.update("insert into offers (id, personnummer, status, skapad, giltig_till, version)"
+                    + " select random_uuid(?), '19800101-1234', 'SKAPAD', localtimestamp, localtimestamp + 30, 0"
+                    + " from system_range(1, ?)", version, Math.min(SEED_CHUNK, rows - done));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ctx.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertBatch() {
+        List<Offer> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(BenchmarkData.offer(1, next++));
+        }
+        tx.executeWithoutResult(status -> repo.saveAll(batch));
+    }
+}
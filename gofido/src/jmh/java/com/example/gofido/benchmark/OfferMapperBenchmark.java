@@ -0,0 +1,41 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.dto.OfferMapper;
+import com.example.gofido.dto.OfferResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks mapping an offer entity to its REST DTO ({@link OfferMapper#toDto},
+ * formerly {@code OfferController.toDto}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OfferMapperBenchmark {
+
+    /**
+     * Number of loans per offer.
+     */
+    @Param({"1", "5", "20"})
+    public int loans;
+
+    private Offer offer;
+
+    @Setup
+    public void setUp() {
+        offer = BenchmarkData.offer(loans, 42);
+        offer.setId(new UUID(0L, 0L));
+    }
+
+    @Benchmark
+    public OfferResponseDto toDto() {
+        return OfferMapper.toDto(offer);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.dto.UpdateOfferDto;
+import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.service.OfferService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JPA round trips against in-memory H2: inserting an offer,
+ * loading it back with its loans and replacing its loans, for varying loan
+ * list sizes.
+ * <p>
+ * The {@code statements} secondary result counts JDBC statements prepared per
+ * iteration; divide by the operation count for statements per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OfferPersistenceBenchmark {
+
+    /**
+     * Number of loans per offer.
+     */
+    @Param({"1", "10", "50"})
+    public int loans;
+
+    /**
+     * Number of pre-inserted offers that lookups cycle through.
+     */
+    private static final int LOOKUP_SET = 1_000;
+
+    private ConfigurableApplicationContext ctx;
+
+    private OfferRepository repo;
+
+    private OfferService service;
+
+    private Statistics statistics;
+
+    private UpdateOfferDto update;
+
+    private UUID[] ids;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkContext.start();
+        repo = ctx.getBean(OfferRepository.class);
+        service = ctx.getBean(OfferService.class);
+        statistics = ctx.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        update = new UpdateOfferDto();
+        update.setPersonnummer("19800101-1234");
+        update.setManadskostnad(BigDecimal.valueOf(9500));
+        update.setLån(BenchmarkData.createDto(loans, 7).getLån());
+        ids = new UUID[LOOKUP_SET];
+        for (int i = 0; i < LOOKUP_SET; i++) {
+            ids[i] = repo.save(BenchmarkData.offer(loans, i)).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    /**
+     * Per-thread count of JDBC statements, reported next to the throughput.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long statements;
+    }
+
+    @Benchmark
+    public Offer save(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        Offer o = repo.save(BenchmarkData.offer(loans, next++));
+        counter.statements += statistics.getPrepareStatementCount() - before;
+        return o;
+    }
+
+    @Benchmark
+    public void findById(Blackhole bh, Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        Offer o = repo.findById(ids[next++ % LOOKUP_SET]).orElseThrow();
+        bh.consume(o.getLoans().size());
+        counter.statements += statistics.getPrepareStatementCount() - before;
+    }
+
+    @Benchmark
+    public Offer updateOffer(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        Offer o = service.updateOffer(ids[next++ % LOOKUP_SET], update);
+        counter.statements += statistics.getPrepareStatementCount() - before;
+        return o;
+    }
+}
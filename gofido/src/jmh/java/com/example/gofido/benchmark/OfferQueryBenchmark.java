@@ -0,0 +1,182 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.domain.Offer;
+import com.example.gofido.repository.OfferListRow;
+import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.service.PersonnummerHasher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the indexed lookups behind statistics reconciliation, the
+ * anonymization job, customer search and the offer listing against a large,
+ * file-based offers table.
+ * <p>
+ * The table holds {@code rows} offers of distinct customers: 5% accepted,
+ * 5% expired with a personnummer, the rest open. Each query touches only a narrow index range,
+ * so its cost should depend on the size of that range, not of the table.
+ * <p>
+ * The listing is read half-way into the table both by keyset cursor, as
+ * {@code GET /offer} does, and by OFFSET, which reads and skips every earlier row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class OfferQueryBenchmark {
+
+    /**
+     * Rows inserted per seeding statement.
+     */
+    private static final int SEED_CHUNK = 500_000;
+
+    /**
+     * Number of distinct deep pages the listing benchmarks take in turn.
+     */
+    private static final int PAGES = 16;
+
+    /**
+     * Number of offers in the table.
+     */
+    @Param({"50000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext ctx;
+
+    private OfferRepository repo;
+
+    private Path dir;
+
+    private LocalDateTime now;
+
+    /**
+     * Keyed hash of the one customer looked up by {@link #openOffersOfCustomer()}.
+     */
+    private byte[] customer;
+
+    /**
+     * Offsets of deep pages half-way into the listing order, taken in turn so
+     * that H2 cannot return the previous call's result unchanged.
+     */
+    private final int[] offsets = new int[PAGES];
+
+    /**
+     * Creation time and ID of the offer before each page, its keyset cursor.
+     */
+    private final LocalDateTime[] cursorSkapad = new LocalDateTime[PAGES];
+
+    private final UUID[] cursorId = new UUID[PAGES];
+
+    private int page;
+
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Path.of("target", "bench-db", "query-" + rows).toAbsolutePath();
+        FileSystemUtils.deleteRecursively(dir);
+        ctx = BenchmarkContext.start("jdbc:h2:file:" + dir.resolve("offers") + ";DB_CLOSE_ON_EXIT=FALSE");
+        repo = ctx.getBean(OfferRepository.class);
+        now = LocalDateTime.now();
+
+        // Every 20th offer accepted within the last year, every 20th (offset 1) expired
+        jdbc = ctx.getBean(JdbcTemplate.class);
+        for (int done = 0; done < rows; done += SEED_CHUNK) {
+            jdbc.update("insert into offers (id, personnummer, personnummer_hash, status, skapad, giltig_till,"
+                    + " accepterad_vid, version)"
+                    + " select random_uuid(7), '19800101-1234', secure_rand(32),"
+                    + " case when mod(x, 20) = 0 then 'TECKNAD' else 'SKAPAD' end,"
+                    + " localtimestamp - 40,"
+                    + " case when mod(x, 20) = 1 then localtimestamp - 1 else localtimestamp + 30 end,"
+                    + " case when mod(x, 20) = 0 then localtimestamp - mod(x, 365) end,"
+                    + " 0 from system_range(?, ?)", done + 1, Math.min(done + SEED_CHUNK, rows));
+        }
+        customer = ctx.getBean(PersonnummerHasher.class).hash("19700101-0000");
+        jdbc.update("insert into offers (id, personnummer, personnummer_hash, status, skapad, giltig_till, version)"
+                + " values (random_uuid(7), '19700101-0000', ?, 'SKAPAD', localtimestamp, localtimestamp + 30, 0)",
+                (Object) customer);
+        jdbc.execute("analyze");
+
+        for (int i = 0; i < PAGES; i++) {
+            offsets[i] = rows / 2 + i * 51;
+            Map<String, Object> last = jdbc.queryForMap("select skapad, id from offers order by skapad, id"
+                    + " offset ? rows fetch next 1 row only", offsets[i] - 1);
+            cursorSkapad[i] = ((Timestamp) last.get("SKAPAD")).toLocalDateTime();
+            cursorId[i] = (UUID) last.get("ID");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ctx.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    /**
+     * Offers accepted more than 364 days ago, a narrow range on (status, accepterad_vid).
+     */
+    @Benchmark
+    public long countAcceptedBeforeCutoff() {
+        return repo.countByStatusAndAccepteradVidBefore(OfferStatus.TECKNAD, now.minusDays(364));
+    }
+
+    /**
+     * First chunk of the anonymization job, a range scan on (status, giltig_till).
+     */
+    @Benchmark
+    public List<UUID> firstAnonymizationChunk() {
+        return repo.findAnonymizationCandidates(OfferStatus.SKAPAD, now, new UUID(0L, 0L), new UUID(-1L, -1L),
+                Limit.of(1000));
+    }
+
+    /**
+     * Open offers of one customer, a point lookup on (personnummer_hash, status, giltig_till).
+     */
+    @Benchmark
+    public List<Offer> openOffersOfCustomer() {
+        return repo.findOpenByPersonnummerHash(customer, now);
+    }
+
+    /**
+     * A listing page half-way into the table after a keyset cursor, read as
+     * {@code GET /offer} reads it: the rest of the cursor's creation time,
+     * then from the next microsecond on, each a seek on (skapad, id).
+     */
+    @Benchmark
+    public List<OfferListRow> listingPageByKeyset() {
+        int i = page++ % PAGES;
+        List<OfferListRow> result = new ArrayList<>(repo.findListPageAt(null, cursorSkapad[i], cursorId[i], Limit.of(51)));
+        if (result.size() < 51) {
+            result.addAll(repo.findListPage(null, cursorSkapad[i].plus(1, ChronoUnit.MICROS),
+                    LocalDateTime.of(9999, 12, 31, 0, 0), Limit.of(51 - result.size())));
+        }
+        return result;
+    }
+
+    /**
+     * The same page by OFFSET, for comparison; every earlier row is read and skipped.
+     */
+    @Benchmark
+    public List<Map<String, Object>> listingPageByOffset() {
+        return jdbc.queryForList("select id, personnummer, manadskostnad, forsakrat_belopp, premie, status, skapad,"
+                + " giltig_till, accepterad_vid from offers order by skapad, id offset ? rows fetch next 51 rows only",
+                offsets[page++ % PAGES]);
+    }
+}
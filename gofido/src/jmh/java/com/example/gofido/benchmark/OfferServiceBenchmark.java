@@ -0,0 +1,67 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.service.ConversionStatistics;
+import com.example.gofido.service.ConversionTimeSeries;
+import com.example.gofido.service.OfferCache;
+import com.example.gofido.service.OfferEventStream;
+import com.example.gofido.service.OfferMetrics;
+import com.example.gofido.service.OfferService;
+import com.example.gofido.service.OutboxService;
+import com.example.gofido.service.PersonnummerHasher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link OfferService#createOffer} without I/O: loan mapping,
+ * insured-amount summation, premium calculation, outbox event serialization
+ * and statistics updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OfferServiceBenchmark {
+
+    /**
+     * Number of loans per offer.
+     */
+    @Param({"1", "5", "20"})
+    public int loans;
+
+    private OfferService service;
+
+    private CreateOfferDto dto;
+
+    @Setup
+    public void setUp() {
+        OfferRepository repo = BenchmarkData.savingRepository();
+        ConversionStatistics stats = new ConversionStatistics(repo, new ConversionTimeSeries(repo, null));
+        OfferCache cache = new OfferCache(repo, null, 1_000, Duration.ofMinutes(5));
+        OfferMetrics metrics = new OfferMetrics(new SimpleMeterRegistry());
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        // Not started: events are appended to the ring buffer with no dispatcher or subscribers
+        OfferEventStream events = new OfferEventStream(mapper, metrics, 4096, 256, "drop-oldest",
+                                                       Duration.ofSeconds(15), Duration.ofMinutes(30), 1,
+                                                       Duration.ofSeconds(10));
+        service = new OfferService(repo, stats, cache, null, null, metrics,
+                                   new PersonnummerHasher("YmVuY2htYXJr"), BenchmarkData.PREMIUMS,
+                                   new OutboxService(BenchmarkData.discardingEntityManager(), mapper), events, null);
+        ReflectionTestUtils.setField(service, "validDays", 30);
+        dto = BenchmarkData.createDto(loans, 42);
+    }
+
+    @Benchmark
+    public Offer createOffer() {
+        return service.createOffer(dto);
+    }
+}
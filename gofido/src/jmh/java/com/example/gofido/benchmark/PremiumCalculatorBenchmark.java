@@ -0,0 +1,90 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.config.PremiumProperties;
+import com.example.gofido.service.PremiumCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks pricing a portfolio of loans with {@link PremiumCalculator}
+ * against the previous {@code BigDecimal} multiplication by a double rate.
+ * <p>
+ * Each invocation prices {@link #QUOTES} loans spread over five banks with
+ * four amount bands each, so the score per operation divided by
+ * {@link #QUOTES} is the cost of one quote. Run with {@code -prof gc} to
+ * confirm that {@link #premiumOre()} does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PremiumCalculatorBenchmark {
+
+    /**
+     * Loans priced per invocation.
+     */
+    static final int QUOTES = 1024;
+
+    private PremiumCalculator calculator;
+
+    private String[] banks;
+
+    private long[] amountsOre;
+
+    private BigDecimal[] amounts;
+
+    @Setup
+    public void setUp() {
+        PremiumProperties properties = new PremiumProperties();
+        for (int b = 0; b < BenchmarkData.BANKS.length; b++) {
+            List<PremiumProperties.Band> bands = new ArrayList<>();
+            bands.add(new PremiumProperties.Band(BigDecimal.ZERO, new BigDecimal("0.0400").add(BigDecimal.valueOf(b, 4))));
+            bands.add(new PremiumProperties.Band(BigDecimal.valueOf(500_000), new BigDecimal("0.0380")));
+            bands.add(new PremiumProperties.Band(BigDecimal.valueOf(2_000_000), new BigDecimal("0.0355")));
+            bands.add(new PremiumProperties.Band(BigDecimal.valueOf(4_000_000), new BigDecimal("0.0325")));
+            properties.getBanks().put(BenchmarkData.BANKS[b], bands);
+        }
+        calculator = new PremiumCalculator(properties);
+
+        SplittableRandom rnd = new SplittableRandom(42);
+        banks = new String[QUOTES];
+        amountsOre = new long[QUOTES];
+        amounts = new BigDecimal[QUOTES];
+        for (int i = 0; i < QUOTES; i++) {
+            banks[i] = BenchmarkData.BANKS[rnd.nextInt(BenchmarkData.BANKS.length)];
+            amountsOre[i] = rnd.nextLong(5_000_000L, 500_000_000L);
+            amounts[i] = BigDecimal.valueOf(amountsOre[i], 2);
+        }
+    }
+
+    /**
+     * Rate table lookup and fixed-point premium per loan.
+     */
+    @Benchmark
+    public long premiumOre() {
+        long sum = 0;
+        for (int i = 0; i < QUOTES; i++) {
+            sum += calculator.premiumOre(banks[i], amountsOre[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * The previous pricing: one flat rate created from a double per call, unbounded scale.
+     */
+    @Benchmark
+    public BigDecimal bigDecimalBaseline() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < QUOTES; i++) {
+            sum = sum.add(amounts[i].multiply(BigDecimal.valueOf(0.038)));
+        }
+        return sum;
+    }
+}
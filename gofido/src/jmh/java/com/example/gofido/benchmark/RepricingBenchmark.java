@@ -0,0 +1,86 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.domain.LoanListConverter;
+import com.example.gofido.domain.RepricingCheckpoint;
+import com.example.gofido.service.RepricingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one run of the bulk re-pricing job over open offers whose
+ * premiums are all stale, so every offer is priced and written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepricingBenchmark {
+
+    /**
+     * Number of open offers in the table.
+     */
+    @Param({"100000"})
+    public int rows;
+
+    /**
+     * Pricing threads of the fork/join pool.
+     */
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ConfigurableApplicationContext ctx;
+
+    private JdbcTemplate jdbc;
+
+    private RepricingService repricing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkContext.start("jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--offer.repricing.parallelism=" + parallelism);
+        jdbc = ctx.getBean(JdbcTemplate.class);
+        repricing = ctx.getBean(RepricingService.class);
+
+        // Offers with one to five loans, from a small set of loan lists
+        byte[][] loans = new byte[16][];
+        for (int i = 0; i < loans.length; i++) {
+            loans[i] = LoanListConverter.encode(BenchmarkData.offer(1 + i % 5, i).getLoans());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{UUID.randomUUID(), "SKAPAD", Timestamp.valueOf(now),
+                    Timestamp.valueOf(now.plusDays(30)), loans[i % loans.length], 0L});
+        }
+        jdbc.batchUpdate("insert into offers (id, status, skapad, giltig_till, loans_data, version)"
+                + " values (?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    /**
+     * Make every premium stale again so each measured run rewrites all offers.
+     */
+    @Setup(Level.Invocation)
+    public void invalidatePremiums() {
+        jdbc.update("update offers set premie = 0");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public RepricingCheckpoint reprice() {
+        return repricing.reprice(false);
+    }
+}
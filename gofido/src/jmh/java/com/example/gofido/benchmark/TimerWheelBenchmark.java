@@ -0,0 +1,93 @@
+package com.example.gofido.benchmark;
+
+import com.example.gofido.service.TimerWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one day of offer expiry deadlines in the {@link TimerWheel}
+ * against a {@link PriorityQueue} ordered by deadline.
+ * <p>
+ * Each invocation schedules {@link #deadlines} deadlines spread uniformly
+ * over 24 hours, as loaded by one refill of the expiry timer, then advances
+ * second by second through the day collecting every deadline as it passes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimerWheelBenchmark {
+
+    /**
+     * Milliseconds in the simulated day.
+     */
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    /**
+     * Number of offers expiring during the day.
+     */
+    @Param({"100000", "1000000"})
+    public int deadlines;
+
+    private UUID[] ids;
+
+    private long[] deadlineMillis;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        ids = new UUID[deadlines];
+        deadlineMillis = new long[deadlines];
+        for (int i = 0; i < deadlines; i++) {
+            ids[i] = new UUID(rnd.nextLong(), rnd.nextLong());
+            deadlineMillis[i] = rnd.nextLong(1, DAY);
+        }
+    }
+
+    @Benchmark
+    public long timerWheel() {
+        TimerWheel wheel = new TimerWheel(Duration.ofSeconds(1), 0);
+        for (int i = 0; i < deadlines; i++) {
+            wheel.add(ids[i], deadlineMillis[i]);
+        }
+        long fired = 0;
+        for (long now = 1000; now <= DAY; now += 1000) {
+            fired += wheel.advance(now).size();
+        }
+        return fired;
+    }
+
+    @Benchmark
+    public long priorityQueue() {
+        PriorityQueue<Deadline> queue = new PriorityQueue<>(deadlines);
+        for (int i = 0; i < deadlines; i++) {
+            queue.add(new Deadline(ids[i], deadlineMillis[i]));
+        }
+        long fired = 0;
+        for (long now = 1000; now <= DAY; now += 1000) {
+            while (!queue.isEmpty() && queue.peek().millis() <= now) {
+                queue.poll();
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Queue entry ordered by deadline.
+     */
+    private record Deadline(UUID id, long millis) implements Comparable<Deadline> {
+
+        @Override
+        public int compareTo(Deadline o) {
+            return Long.compare(millis, o.millis);
+        }
+    }
+}
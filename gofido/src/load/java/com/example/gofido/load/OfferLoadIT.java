@@ -0,0 +1,469 @@
+/**
+ * End-to-end HTTP load test for the offer API.
+ * <p>
+ * Boots the full application on a random port and drives an open-loop mix of
+ * create, update, accept and statistics requests at a fixed target rate.
+ * Latency is measured from each request's intended start time rather than
+ * its actual send time, so stalls in the system under test are not hidden by
+ * the generator waiting for them (coordinated omission).
+ * <p>
+ * With {@code load.clients} set, the test instead runs a closed loop of that
+ * many concurrent clients, each sending its next request as soon as the
+ * previous one completes. This measures the throughput and tail latency the
+ * server sustains at a given concurrency, e.g. to compare platform threads
+ * with the {@code virtual} profile.
+ * <p>
+ * The load profile runs the JVM with {@code -Djdk.tracePinnedThreads=short},
+ * which on Java 21 and later prints a stack trace to standard output whenever
+ * a virtual thread blocks while pinned to its carrier. Standard output is
+ * watched for those traces, and a run on virtual threads fails if any appear.
+ */
+package com.example.gofido.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "logging.level.root=WARN")
+class OfferLoadIT {
+
+    /**
+     * Target request rate in requests per second.
+     */
+    private static final int RATE = Integer.getInteger("load.rate", 200);
+
+    /**
+     * Measured duration in seconds.
+     */
+    private static final int DURATION = Integer.getInteger("load.duration", 30);
+
+    /**
+     * Warm-up duration in seconds; requests are sent but not recorded.
+     */
+    private static final int WARMUP = Integer.getInteger("load.warmup", 5);
+
+    /**
+     * Upper bound on requests in flight; when reached the generator waits,
+     * and the wait is charged to the requests that are late as a result.
+     */
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.max-in-flight", 1_000);
+
+    /**
+     * Number of closed-loop clients; zero runs the open-loop schedule instead.
+     */
+    private static final int CLIENTS = Integer.getInteger("load.clients", 0);
+
+    /**
+     * Extracts the offer ID from a response body without a JSON dependency.
+     */
+    private static final Pattern OFFER_ID = Pattern.compile("\"offerId\"\\s*:\\s*\"([^\"]+)\"");
+
+    /**
+     * Pinned-thread traces seen on standard output. Installed when the class
+     * loads, before the application context starts its threads.
+     */
+    private static final PinnedThreadWatch PINNED = PinnedThreadWatch.install();
+
+    /**
+     * Request types in the mix, with their share of the load in percent.
+     */
+    private enum Op {
+        CREATE(40), UPDATE(20), ACCEPT(20), STATS(20);
+
+        final int share;
+
+        Op(int share) {
+            this.share = share;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment env;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * IDs of created offers that have not yet been handed to an accept.
+     */
+    private final ConcurrentLinkedQueue<String> openIds = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Ring of recently created offer IDs that updates pick from at random,
+     * so updates are spread over many rows instead of contending on one.
+     */
+    private final AtomicReferenceArray<String> recentIds = new AtomicReferenceArray<>(1_024);
+
+    /**
+     * Number of IDs ever written to {@link #recentIds}.
+     */
+    private final AtomicLong recentCount = new AtomicLong();
+
+    private final Map<Op, Recorder> corrected = new EnumMap<>(Op.class);
+
+    private final Map<Op, Recorder> uncorrected = new EnumMap<>(Op.class);
+
+    private final Map<Op, LongAdder> serverErrors = new EnumMap<>(Op.class);
+
+    private final Map<Op, LongAdder> clientErrors = new EnumMap<>(Op.class);
+
+    /**
+     * Requests completed in the current phase, for closed-loop throughput.
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * Drive the configured load and report latency percentiles per request type.
+     */
+    @Test
+    void sustainsTargetRate() throws Exception {
+        for (Op op : Op.values()) {
+            corrected.put(op, new Recorder(3));
+            uncorrected.put(op, new Recorder(3));
+            serverErrors.put(op, new LongAdder());
+            clientErrors.put(op, new LongAdder());
+        }
+
+        // Seed a pool of offers so updates and accepts have targets from the start
+        for (int i = 0; i < 100; i++) {
+            String body = http.send(request(Op.CREATE, null), HttpResponse.BodyHandlers.ofString()).body();
+            created(extractId(body));
+        }
+
+        long sent;
+        if (CLIENTS > 0) {
+            runClosed(WARMUP, false);
+            resetRecorders();
+            sent = runClosed(DURATION, true);
+        } else {
+            run(WARMUP, false);
+            resetRecorders();
+            sent = run(DURATION, true);
+        }
+
+        String report = report(sent);
+        System.out.println(report);
+        String reportFile = System.getProperty("load.report");
+        if (reportFile != null) {
+            Files.writeString(Path.of(reportFile), report);
+        }
+
+        long errors = serverErrors.values().stream().mapToLong(LongAdder::sum).sum();
+        assertEquals(0, errors, "No request should fail with a server error");
+        if (Threading.VIRTUAL.isActive(env)) {
+            assertEquals(0, PINNED.count(), "No virtual thread should block while pinned to its carrier");
+        }
+    }
+
+    /**
+     * Issue requests on a fixed schedule for the given number of seconds.
+     *
+     * @param seconds how long to generate load
+     * @param record  whether to record latencies
+     * @return the number of requests sent
+     */
+    private long run(int seconds, boolean record) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * seconds;
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            // The schedule is fixed up front; a late send does not move later sends
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            Op op = pick();
+            String id = op == Op.ACCEPT ? openIds.poll() : op == Op.UPDATE ? randomRecentId() : null;
+            if ((op == Op.ACCEPT || op == Op.UPDATE) && id == null) {
+                op = Op.CREATE;
+            }
+            send(op, id, intended, record).whenComplete((r, e) -> inFlight.release());
+        }
+
+        // Wait for stragglers before the next phase
+        inFlight.acquire(MAX_IN_FLIGHT);
+        inFlight.release(MAX_IN_FLIGHT);
+        return total;
+    }
+
+    /**
+     * Run a closed loop of {@link #CLIENTS} concurrent clients for the given number of seconds.
+     * <p>
+     * Each client is a chain of asynchronous requests rather than a thread, so
+     * thousands of clients do not need thousands of generator threads.
+     *
+     * @param seconds how long to generate load
+     * @param record  whether to record latencies
+     * @return the number of requests completed
+     */
+    private long runClosed(int seconds, boolean record) throws InterruptedException {
+        completed.reset();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            nextRequest(deadline, record, done);
+        }
+        done.await();
+        return completed.sum();
+    }
+
+    /**
+     * Send one closed-loop request and chain the client's next one on completion.
+     */
+    private void nextRequest(long deadline, boolean record, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        Op op = pick();
+        String id = op == Op.ACCEPT ? openIds.poll() : op == Op.UPDATE ? randomRecentId() : null;
+        if ((op == Op.ACCEPT || op == Op.UPDATE) && id == null) {
+            op = Op.CREATE;
+        }
+        // In a closed loop the intended start is the actual send time
+        send(op, id, System.nanoTime(), record)
+            .whenComplete((r, e) -> nextRequest(deadline, record, done));
+    }
+
+    /**
+     * Send one request asynchronously and record its latency on completion.
+     *
+     * @return a stage that completes once the response has been recorded
+     */
+    private CompletableFuture<Void> send(Op op, String id, long intended, boolean record) {
+        long actual = System.nanoTime();
+        return http.sendAsync(request(op, id), HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                long end = System.nanoTime();
+                completed.increment();
+                if (error != null || response.statusCode() >= 500) {
+                    serverErrors.get(op).increment();
+                    return null;
+                }
+                if (response.statusCode() >= 400) {
+                    // Expected under contention, e.g. 409 for an already accepted offer
+                    clientErrors.get(op).increment();
+                } else if (op == Op.CREATE) {
+                    created(extractId(response.body()));
+                }
+                if (record) {
+                    corrected.get(op).recordValue(TimeUnit.NANOSECONDS.toMicros(end - intended));
+                    uncorrected.get(op).recordValue(TimeUnit.NANOSECONDS.toMicros(end - actual));
+                }
+                return null;
+            });
+    }
+
+    /**
+     * Discard latencies recorded during warm-up.
+     */
+    private void resetRecorders() {
+        corrected.values().forEach(Recorder::reset);
+        uncorrected.values().forEach(Recorder::reset);
+    }
+
+    /**
+     * Build the HTTP request for an operation.
+     */
+    private HttpRequest request(Op op, String id) {
+        String base = "http://localhost:" + port;
+        HttpRequest.Builder b = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        return switch (op) {
+            case CREATE -> b.uri(URI.create(base + "/offer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(offerJson())).build();
+            case UPDATE -> b.uri(URI.create(base + "/offer/" + id))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(offerJson())).build();
+            case ACCEPT -> b.uri(URI.create(base + "/offer/" + id + "/accept"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case STATS -> b.uri(URI.create(base + "/stats/conversion")).GET().build();
+        };
+    }
+
+    /**
+     * Random create/update payload with one to three loans.
+     */
+    private String offerJson() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        StringBuilder loans = new StringBuilder();
+        int count = rnd.nextInt(1, 4);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                loans.append(',');
+            }
+            loans.append("{\"bank\":\"SEB\",\"belopp\":").append(rnd.nextInt(50_000, 3_000_000)).append('}');
+        }
+        return "{\"personnummer\":\"19800101-1234\",\"lån\":[" + loans
+            + "],\"manadskostnad\":" + rnd.nextInt(1_000, 20_000) + "}";
+    }
+
+    /**
+     * Make a newly created offer available to later updates and accepts.
+     */
+    private void created(String id) {
+        openIds.add(id);
+        recentIds.set((int) (recentCount.getAndIncrement() % recentIds.length()), id);
+    }
+
+    /**
+     * A random recently created offer ID, or null if none exists yet.
+     */
+    private String randomRecentId() {
+        int filled = (int) Math.min(recentCount.get(), recentIds.length());
+        return filled == 0 ? null : recentIds.get(ThreadLocalRandom.current().nextInt(filled));
+    }
+
+    /**
+     * Pick an operation according to the configured mix.
+     */
+    private Op pick() {
+        int r = ThreadLocalRandom.current().nextInt(100);
+        for (Op op : Op.values()) {
+            r -= op.share;
+            if (r < 0) {
+                return op;
+            }
+        }
+        return Op.STATS;
+    }
+
+    private String extractId(String body) {
+        Matcher m = OFFER_ID.matcher(body);
+        if (!m.find()) {
+            throw new IllegalStateException("No offerId in response: " + body);
+        }
+        return m.group(1);
+    }
+
+    /**
+     * Format per-operation latency percentiles in milliseconds.
+     */
+    private String report(long sent) {
+        StringBuilder sb = new StringBuilder();
+        if (CLIENTS > 0) {
+            sb.append(String.format("Load: %d closed-loop clients for %d s (%d requests, %.0f req/s), %s threads%n",
+                CLIENTS, DURATION, sent, (double) sent / DURATION,
+                Threading.VIRTUAL.isActive(env) ? "virtual" : "platform"));
+        } else {
+            sb.append(String.format("Load: %d req/s for %d s (%d requests)%n", RATE, DURATION, sent));
+        }
+        sb.append(String.format("%-8s %8s %8s %9s %9s %9s %9s %8s %8s%n",
+            "op", "count", "p50", "p99", "p99.9", "max", "p99*", "4xx", "5xx"));
+        for (Op op : Op.values()) {
+            Histogram h = corrected.get(op).getIntervalHistogram();
+            Histogram raw = uncorrected.get(op).getIntervalHistogram();
+            sb.append(String.format("%-8s %8d %8.2f %9.2f %9.2f %9.2f %9.2f %8d %8d%n",
+                op, h.getTotalCount(),
+                h.getValueAtPercentile(50) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMaxValue() / 1000.0,
+                raw.getValueAtPercentile(99) / 1000.0,
+                clientErrors.get(op).sum(),
+                serverErrors.get(op).sum()));
+        }
+        sb.append("Latencies in ms from intended start; p99* is measured from actual send (uncorrected).");
+        if (Threading.VIRTUAL.isActive(env)) {
+            sb.append(String.format("%nPinned virtual threads: %d", PINNED.count()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copy of standard output that counts the traces printed by
+     * {@code -Djdk.tracePinnedThreads}. Each trace starts with a line naming
+     * the pinned virtual thread, e.g.
+     * {@code VirtualThread[#42]/runnable@ForkJoinPool-1-worker-3}.
+     */
+    private static final class PinnedThreadWatch extends OutputStream {
+
+        private final PrintStream out;
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        private final LongAdder pinned = new LongAdder();
+
+        private PinnedThreadWatch(PrintStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Route standard output through a new watch.
+         */
+        static PinnedThreadWatch install() {
+            PinnedThreadWatch watch = new PinnedThreadWatch(System.out);
+            System.setOut(new PrintStream(watch, true, Charset.defaultCharset()));
+            return watch;
+        }
+
+        /**
+         * Number of pinned-thread traces seen so far.
+         */
+        long count() {
+            return pinned.sum();
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            out.write(b);
+            if (b == '\n') {
+                if (line.toString(Charset.defaultCharset()).startsWith("VirtualThread[#")) {
+                    pinned.increment();
+                }
+                line.reset();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.gofido.config;
+
+import com.example.gofido.domain.OfferIdStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the offer ID strategy used by the JPA ID generator.
+ */
+@Configuration
+public class OfferIdConfig {
+
+    /**
+     * Strategy selected by {@code offer.id.strategy}: {@code uuid7} (default),
+     * {@code random}, or the class name of a custom {@link OfferIdStrategy}.
+     *
+     * @param name the configured strategy name
+     * @return the strategy used for all new offers
+     */
+    @Bean
+    public OfferIdStrategy offerIdStrategy(@Value("${offer.id.strategy:uuid7}") String name) {
+        return OfferIdStrategy.of(name);
+    }
+}
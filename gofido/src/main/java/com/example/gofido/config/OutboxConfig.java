@@ -0,0 +1,42 @@
+package com.example.gofido.config;
+
+import com.example.gofido.service.FileOutboxSink;
+import com.example.gofido.service.InMemoryOutboxSink;
+import com.example.gofido.service.LogOutboxSink;
+import com.example.gofido.service.OutboxSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the sink the outbox relay publishes offer events to.
+ */
+@Configuration
+public class OutboxConfig {
+
+    /**
+     * Sink selected by {@code offer.outbox.sink}: {@code log} (default),
+     * {@code file} or {@code memory}.
+     *
+     * @param sink         the configured sink name
+     * @param file         NDJSON file for the {@code file} sink
+     * @param capacity     queue capacity of the {@code memory} sink
+     * @param offerTimeout how long the {@code memory} sink waits for space before failing a batch
+     * @return the sink used by the relay
+     */
+    @Bean
+    public OutboxSink outboxSink(@Value("${offer.outbox.sink:log}") String sink,
+                                 @Value("${offer.outbox.file:outbox/offer-events.ndjson}") Path file,
+                                 @Value("${offer.outbox.memory.capacity:10000}") int capacity,
+                                 @Value("${offer.outbox.memory.offer-timeout:PT5S}") Duration offerTimeout) {
+        return switch (sink) {
+            case "log" -> new LogOutboxSink();
+            case "file" -> new FileOutboxSink(file);
+            case "memory" -> new InMemoryOutboxSink(capacity, offerTimeout);
+            default -> throw new IllegalArgumentException("Unknown offer.outbox.sink: " + sink);
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.gofido.config;
+
+import com.example.gofido.service.PremiumCalculator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the premium calculator from the {@code offer.premium.*} rate tables.
+ */
+@Configuration
+@EnableConfigurationProperties(PremiumProperties.class)
+public class PremiumConfig {
+
+    /**
+     * Calculator built once at startup; invalid rate tables fail the startup.
+     *
+     * @param properties the bound rate tables
+     * @return the calculator used for all quotes
+     */
+    @Bean
+    public PremiumCalculator premiumCalculator(PremiumProperties properties) {
+        return new PremiumCalculator(properties);
+    }
+}
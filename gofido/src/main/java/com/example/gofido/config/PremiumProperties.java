@@ -0,0 +1,53 @@
+package com.example.gofido.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Premium rate tables, bound from {@code offer.premium.*}.
+ * <p>
+ * Each table is a list of amount bands; a loan is priced at the rate of the
+ * band with the highest {@code from} not above its amount. Banks without a
+ * table of their own use {@link #bands}.
+ */
+@Data
+@ConfigurationProperties(prefix = "offer.premium")
+public class PremiumProperties {
+
+    /**
+     * Default rate table, used for banks without their own table.
+     */
+    private List<Band> bands = new ArrayList<>(List.of(new Band(BigDecimal.ZERO, new BigDecimal("0.038"))));
+
+    /**
+     * Rate tables per bank name (case-insensitive).
+     */
+    private Map<String, List<Band>> banks = new LinkedHashMap<>();
+
+    /**
+     * One amount band of a rate table.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Band {
+
+        /**
+         * Inclusive lower bound of the loan amount in SEK.
+         */
+        private BigDecimal from = BigDecimal.ZERO;
+
+        /**
+         * Premium as a fraction of the loan amount, e.g. 0.038 for 3.8%; at most six decimals.
+         */
+        private BigDecimal rate;
+    }
+}
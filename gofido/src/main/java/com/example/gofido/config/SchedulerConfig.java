@@ -1,51 +1,120 @@
 package com.example.gofido.config;
 
-import com.example.gofido.repository.OfferRepository;
-import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.service.AnonymizationCoordinator;
+import com.example.gofido.service.AnonymizationReport;
+import com.example.gofido.service.ArchiveReport;
+import com.example.gofido.service.LeaseService;
+import com.example.gofido.service.OfferArchiveService;
+import com.example.gofido.service.OfferMetrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * Configuration class that schedules periodic tasks for the GOFIDO application.
  * <p>
- * Currently, it includes a job that anonymizes expired offers daily at midnight
- * to comply with GDPR requirements.
+ * Includes a job that expires and anonymizes overdue offers daily at midnight,
+ * a safety net for the expiry timer ({@link com.example.gofido.service.OfferExpiryService})
+ * that normally does so within seconds to comply with GDPR requirements, and a
+ * job that then moves accepted and expired offers out of the hot table into the archive.
+ * <p>
+ * Every instance sharing the database runs both schedules. The anonymization
+ * run is split into shards that the instances process together; the archiving
+ * run is leased, so only one instance performs it.
  */
+@Slf4j
 @Component
 @EnableScheduling  // Enables Spring's scheduled task execution capability
 @RequiredArgsConstructor  // Injects final dependencies via constructor
 public class SchedulerConfig {
 
     /**
-     * JPA repository for accessing and updating offers.
+     * Name of the archiving job's lease.
+     */
+    static final String ARCHIVE_LEASE = "archive";
+
+    /**
+     * Coordinator that shares each anonymization run between instances.
+     */
+    private final AnonymizationCoordinator anonymization;
+
+    /**
+     * Service that moves offers that can no longer change to the archive.
+     */
+    private final OfferArchiveService archive;
+
+    /**
+     * Metrics the duration and row count of each run are published to.
      */
-    private final OfferRepository repo;
+    private final OfferMetrics metrics;
+
+    /**
+     * Leases that keep other instances from running the same job.
+     */
+    private final LeaseService leases;
+
+    /**
+     * How long the archiving lease keeps other instances from starting the same run.
+     */
+    @Value("${offer.cluster.lease-ttl:PT30S}")
+    private Duration leaseTtl;
 
     /**
      * Scheduled task that runs every day at midnight (00:00 server time).
      * <p>
-     * It finds offers in "SKAPAD" status whose expiry date (giltigTill) is before now,
-     * clears their personnummer to anonymize personal data, and saves the changes.
+     * Marks offers still in "SKAPAD" status whose expiry date (giltigTill) is
+     * before now as "UTGÅNGEN" and clears their personnummer, then logs and
+     * publishes throughput for the run. Only offers the expiry timer missed,
+     * e.g. while the application was down, are left for it. The report covers
+     * this instance's share of the run.
      */
     @Scheduled(cron = "0 0 0 * * *")
     public void anonymizeExpiredOffers() {
-        // Capture current timestamp
-        LocalDateTime now = LocalDateTime.now();
-
-        // Fetch all offers and filter those that are created but expired
-        List<com.example.gofido.domain.Offer> expired = repo.findAll().stream()
-            .filter(o -> o.getStatus() == OfferStatus.SKAPAD && o.getGiltigTill().isBefore(now))
-            .toList();  // Collect into a mutable list if using Java 8+ streams
-
-        // Iterate and clear personal identity numbers, then persist
-        expired.forEach(o -> {
-            o.setPersonnummer(null);  // Remove sensitive data for GDPR
-            repo.save(o);             // Persist the anonymized offer
+        // Anonymize this instance's shards in chunks; each chunk commits in its own transaction
+        AnonymizationReport report = anonymization.anonymizeExpiredOffers(leases.databaseTime());
+        metrics.recordAnonymization(report);
+
+        log.info("Expired and anonymized {} overdue offers in {} chunks ({} ms, {} rows/s)",
+                report.getRows(), report.getChunks(), report.getDurationMillis(),
+                String.format("%.1f", report.getRowsPerSecond()));
+    }
+
+    /**
+     * Scheduled task that moves cold offers to the archive, by default daily at 00:30,
+     * after the anonymization job has expired any overdue offers.
+     * <p>
+     * The schedule is configurable via {@code offer.archive.cron}. The instance
+     * that wins the lease runs the job, renewing the lease in each chunk's
+     * transaction and stopping if another instance has taken it over; the
+     * lease is then left to lapse, so an instance whose schedule fires a
+     * little later does not run it again.
+     */
+    @Scheduled(cron = "${offer.archive.cron:0 30 0 * * *}")
+    public void archiveColdOffers() {
+        if (!leases.tryAcquire(ARCHIVE_LEASE, leaseTtl)) {
+            log.debug("Archiving run is owned by another node");
+            return;
+        }
+        boolean[] lost = new boolean[1];
+        ArchiveReport report = archive.archiveColdOffers(LocalDateTime.now(), () -> {
+            // Chunks only commit while this instance holds the lease
+            lost[0] = !leases.renewWithin(ARCHIVE_LEASE, leaseTtl);
+            return !lost[0];
         });
+        metrics.recordArchive(report);
+        if (lost[0]) {
+            log.warn("Lost the archiving lease to another node after {} chunks; leaving the run to it",
+                    report.getChunks());
+        }
+
+        log.info("Archived {} accepted and {} expired offers in {} chunks ({} ms, {} rows/s)",
+                report.getAccepted(), report.getExpired(), report.getChunks(), report.getDurationMillis(),
+                String.format("%.1f", report.getRowsPerSecond()));
     }
 }
@@ -0,0 +1,54 @@
+package com.example.gofido.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports which thread model serves requests and runs scheduled jobs.
+ * <p>
+ * Virtual threads are switched on with {@code spring.threads.virtual.enabled=true}
+ * (or the {@code virtual} profile). Spring Boot then runs Tomcat request handling,
+ * the {@code @Scheduled} jobs and async work on virtual threads, but only on
+ * Java 21 or later; on older runtimes the setting is silently ignored, so this
+ * component makes the fallback visible in the log.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor  // Injects final dependencies via constructor
+public class ThreadingConfig {
+
+    /**
+     * Property that requests virtual threads.
+     */
+    static final String VIRTUAL_PROPERTY = "spring.threads.virtual.enabled";
+
+    /**
+     * Environment used to read the requested and effective thread model.
+     */
+    private final Environment env;
+
+    /**
+     * Log the effective thread model once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadingMode() {
+        boolean requested = env.getProperty(VIRTUAL_PROPERTY, Boolean.class, false);
+
+        if (Threading.VIRTUAL.isActive(env)) {
+            log.info("Requests and scheduled jobs run on virtual threads (Java {})",
+                    JavaVersion.getJavaVersion());
+        } else if (requested) {
+            // Spring Boot only honours the property on Java 21+
+            log.warn("{}=true is ignored on Java {}; virtual threads require Java 21 or later, "
+                    + "falling back to platform threads", VIRTUAL_PROPERTY, JavaVersion.getJavaVersion());
+        } else {
+            log.info("Requests and scheduled jobs run on platform threads");
+        }
+    }
+}
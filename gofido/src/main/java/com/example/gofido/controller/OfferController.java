@@ -1,20 +1,45 @@
 package com.example.gofido.controller;
 
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.BatchItemResultDto;
 import com.example.gofido.dto.CreateOfferDto;
-import com.example.gofido.dto.LoanDto;
+import com.example.gofido.dto.CustomerSearchDto;
+import com.example.gofido.dto.OfferMapper;
+import com.example.gofido.dto.OfferPageDto;
 import com.example.gofido.dto.OfferResponseDto;
 import com.example.gofido.dto.UpdateOfferDto;
+import com.example.gofido.exception.OfferNotFoundException;
+import com.example.gofido.service.IdempotencyService;
+import com.example.gofido.service.OfferCache;
+import com.example.gofido.service.OfferEventStream;
+import com.example.gofido.service.OfferExportService;
+import com.example.gofido.service.OfferListingService;
 import com.example.gofido.service.OfferService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.stream.Collectors;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * REST controller that handles HTTP requests for insurance offers.
  * <p>
- * Provides endpoints to create, update, and accept offers, and transforms
+ * Provides endpoints to create, read, list, search, update, accept and export offers and
+ * to stream live offer events, and transforms
  * domain entities into DTOs for external clients.
  */
 @RestController
@@ -22,23 +47,167 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor  // Injects OfferService via constructor
 public class OfferController {
 
+    /**
+     * Request header carrying the client's idempotency key.
+     */
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /**
+     * Response header set when the response was replayed for a repeated idempotency key.
+     */
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     /**
      * Service layer dependency that contains the business logic for offers.
      */
     private final OfferService svc;
 
+    /**
+     * Service that streams offers as NDJSON.
+     */
+    private final OfferExportService exportSvc;
+
+    /**
+     * Service that lists offers page by page.
+     */
+    private final OfferListingService listingSvc;
+
+    /**
+     * Dedupe store for requests sent with an idempotency key.
+     */
+    private final IdempotencyService idempotency;
+
+    /**
+     * Read-through cache for single-offer lookups.
+     */
+    private final OfferCache offerCache;
+
+    /**
+     * Live stream of committed offer changes.
+     */
+    private final OfferEventStream events;
+
+    /**
+     * JSON mapper used to read NDJSON batch uploads line by line.
+     */
+    private final ObjectMapper mapper;
+
     /**
      * Create a new insurance offer.
+     * <p>
+     * With an {@code Idempotency-Key} header, a retry of the same request
+     * returns the offer created the first time instead of creating another.
      *
+     * @param key optional idempotency key chosen by the client
      * @param dto the incoming data transfer object containing personnummer,
      *            loan details, and monthly cost
      * @return HTTP 200 with the created offer represented as OfferResponseDto
      */
     @PostMapping
-    public ResponseEntity<OfferResponseDto> create(@RequestBody CreateOfferDto dto) {
+    public ResponseEntity<OfferResponseDto> create(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key,
+                                                   @RequestBody CreateOfferDto dto) {
+        if (key != null) {
+            return respond(idempotency.execute(key, "create", dto, () -> OfferMapper.toDto(svc.createOffer(dto))));
+        }
         // Delegate to service and convert the resulting entity to DTO
         var o = svc.createOffer(dto);
-        return ResponseEntity.ok(toDto(o));
+        return ResponseEntity.ok(OfferMapper.toDto(o));
+    }
+
+    /**
+     * Create many offers in one request from a JSON array.
+     *
+     * @param dtos the offers to create
+     * @return HTTP 200 with one result per submitted offer, in request order
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResultDto>> createBatch(@RequestBody List<CreateOfferDto> dtos) {
+        return ResponseEntity.ok(svc.createOffers(dtos.iterator()));
+    }
+
+    /**
+     * Create many offers in one request from an NDJSON stream (one offer per line).
+     * <p>
+     * Lines are parsed lazily while the service persists earlier chunks, so the
+     * whole upload is never held in memory. A line that is not valid JSON is
+     * reported as a failed item.
+     *
+     * @param body the raw request body
+     * @return HTTP 200 with one result per non-blank line, in request order
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResultDto>> createBatchNdjson(InputStream body) {
+        ObjectReader reader = mapper.readerFor(CreateOfferDto.class);
+        Iterator<String> lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)).lines()
+            .filter(line -> !line.isBlank())
+            .iterator();
+        // Parse in next() so a malformed line fails only its own item
+        Iterator<CreateOfferDto> items = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public CreateOfferDto next() {
+                return parseLine(reader, lines.next());
+            }
+        };
+        return ResponseEntity.ok(svc.createOffers(items));
+    }
+
+    /**
+     * Retrieve a single offer by its ID.
+     * <p>
+     * Served from the offer cache; the database is only hit on a cache miss.
+     *
+     * @param id the unique identifier of the offer
+     * @return HTTP 200 with the offer as OfferResponseDto
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<OfferResponseDto> get(@PathVariable String id) {
+        return ResponseEntity.ok(offerCache.get(parseId(id)));
+    }
+
+    /**
+     * List offers in creation order, one page at a time.
+     * <p>
+     * Pages are cut with a keyset cursor on (skapad, id): pass the
+     * {@code nextCursor} of a page as {@code after} to get the next one. Loans
+     * are only returned with {@code include=loans}.
+     *
+     * @param status  optional status filter
+     * @param from    optional inclusive lower bound on skapad
+     * @param to      optional exclusive upper bound on skapad
+     * @param after   optional cursor from the previous page
+     * @param limit   optional page size
+     * @param include optional extra fields; {@code loans} adds each offer's loans
+     * @return HTTP 200 with the page and the cursor of the next one
+     */
+    @GetMapping
+    public ResponseEntity<OfferPageDto> list(
+            @RequestParam(required = false) OfferStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) List<String> include) {
+        boolean loans = include != null && include.contains("loans");
+        return ResponseEntity.ok(listingSvc.list(status, from, to, after, limit, loans));
+    }
+
+    /**
+     * List a customer's open offers.
+     * <p>
+     * A POST so the personnummer travels in the body rather than the URL.
+     *
+     * @param dto the search request containing the customer's personnummer
+     * @return HTTP 200 with the customer's open offers, newest first
+     */
+    @PostMapping("/search")
+    public ResponseEntity<List<OfferResponseDto>> search(@RequestBody CustomerSearchDto dto) {
+        var offers = svc.findOpenOffers(dto.getPersonnummer());
+        return ResponseEntity.ok(offers.stream().map(OfferMapper::toDto).toList());
     }
 
     /**
@@ -53,43 +222,121 @@ public class OfferController {
             @PathVariable String id,
             @RequestBody UpdateOfferDto dto) {
         // Call service to apply updates, then map entity to DTO
-        var o = svc.updateOffer(id, dto);
-        return ResponseEntity.ok(toDto(o));
+        var o = svc.updateOffer(parseId(id), dto);
+        return ResponseEntity.ok(OfferMapper.toDto(o));
     }
 
     /**
      * Accept an offer, marking it as TECKNAD if within validity period.
+     * <p>
+     * With an {@code Idempotency-Key} header, a retry returns the accepted
+     * offer again instead of 409 Conflict.
      *
-     * @param id the unique identifier of the offer to accept
+     * @param key optional idempotency key chosen by the client
+     * @param id  the unique identifier of the offer to accept
      * @return HTTP 200 with the accepted offer as OfferResponseDto
      */
     @PostMapping("/{id}/accept")
-    public ResponseEntity<OfferResponseDto> accept(@PathVariable String id) {
+    public ResponseEntity<OfferResponseDto> accept(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key,
+                                                   @PathVariable String id) {
+        UUID offerId = parseId(id);
+        if (key != null) {
+            return respond(idempotency.execute(key, "accept", offerId,
+                    () -> OfferMapper.toDto(svc.acceptOffer(offerId))));
+        }
         // Delegate acceptance logic to service
-        var o = svc.acceptOffer(id);
-        return ResponseEntity.ok(toDto(o));
+        var o = svc.acceptOffer(offerId);
+        return ResponseEntity.ok(OfferMapper.toDto(o));
+    }
+
+    /**
+     * Stream offers as NDJSON, one offer per line, for downstream warehousing.
+     * <p>
+     * The response is written asynchronously from a database cursor, so memory
+     * use does not depend on the number of offers exported.
+     *
+     * @param status optional status filter
+     * @param from   optional inclusive lower bound on skapad
+     * @param to     optional exclusive upper bound on skapad
+     * @return HTTP 200 with an application/x-ndjson body
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) OfferStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> exportSvc.export(status, from, to, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
 
     /**
-     * Map domain Offer entity to external-facing DTO.
+     * Stream committed offer changes as Server-Sent Events.
+     * <p>
+     * Each event is named after its type (CREATED, UPDATED, ACCEPTED,
+     * EXPIRED) and carries an increasing ID. A client that reconnects with
+     * the {@code Last-Event-ID} header, as browsers' EventSource does, first
+     * receives the events it missed that are still buffered.
      *
-     * @param o the Offer entity from the database
-     * @return a fully populated OfferResponseDto
-     */
-    private OfferResponseDto toDto(com.example.gofido.domain.Offer o) {
-        return new OfferResponseDto(
-            o.getId(),
-            o.getPersonnummer(),
-            // Convert each Loan object to LoanDto
-            o.getLoans().stream()
-                .map(l -> new LoanDto(l.getBank(), l.getBelopp()))
-                .collect(Collectors.toList()),
-            o.getManadskostnad(),
-            o.getForsakratBelopp(),
-            o.getPremie(),
-            o.getStatus(),
-            o.getSkapad(),
-            o.getGiltigTill()
-        );
+     * @param lastEventId optional ID of the last event received
+     * @return an open text/event-stream response
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return events.subscribe(parseEventId(lastEventId));
+    }
+
+    /**
+     * Build the response to an idempotent request, marking replays with the
+     * {@code Idempotent-Replayed} header.
+     */
+    private static ResponseEntity<OfferResponseDto> respond(IdempotencyService.Outcome outcome) {
+        return ResponseEntity.ok()
+            .header(IDEMPOTENT_REPLAYED, Boolean.toString(outcome.replayed()))
+            .body(outcome.response());
+    }
+
+    /**
+     * Parse an offer ID from the path.
+     * <p>
+     * IDs are opaque strings to clients; one that is not a valid UUID cannot
+     * name an existing offer, so it is reported as not found rather than as a
+     * malformed request.
+     *
+     * @throws OfferNotFoundException if the ID is not a valid UUID
+     */
+    private UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new OfferNotFoundException(id);
+        }
+    }
+
+    /**
+     * Parse a Last-Event-ID header; a missing or foreign ID means live events only.
+     */
+    private Long parseEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse a single NDJSON line, turning JSON errors into an unchecked exception
+     * so the service can report the line as a failed item.
+     */
+    private CreateOfferDto parseLine(ObjectReader reader, String line) {
+        try {
+            return reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage(), e);
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.example.gofido.controller;
+
+import com.example.gofido.dto.RepricingStatusDto;
+import com.example.gofido.service.RepricingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin endpoints for re-pricing all open offers after a rate change.
+ */
+@RestController
+@RequestMapping("/admin/repricing")
+@RequiredArgsConstructor  // Injects RepricingService via constructor
+public class RepricingController {
+
+    /**
+     * Service that runs the chunked re-pricing job.
+     */
+    private final RepricingService repricing;
+
+    /**
+     * Start re-pricing in the background.
+     *
+     * @param resume continue a failed or interrupted run (default) instead of starting over
+     * @return HTTP 202 if the run was started, 409 if one is already in progress
+     */
+    @PostMapping
+    public ResponseEntity<String> start(@RequestParam(defaultValue = "true") boolean resume) {
+        if (!repricing.start(resume)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Re-pricing is already running");
+        }
+        return ResponseEntity.accepted().body("Re-pricing started");
+    }
+
+    /**
+     * Progress of the current or last run.
+     *
+     * @return HTTP 200 with the run's status, or 404 if re-pricing has never run
+     */
+    @GetMapping
+    public ResponseEntity<RepricingStatusDto> status() {
+        return repricing.status()
+                .map(cp -> ResponseEntity.ok(RepricingStatusDto.of(cp, repricing.isRunning())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.gofido.controller;
 
-import com.example.gofido.domain.OfferStatus;
-import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.dto.ConversionBucketDto;
+import com.example.gofido.service.ConversionStatistics;
+import com.example.gofido.service.ConversionTimeSeries;
+import com.example.gofido.service.Granularity;
+import com.example.gofido.service.OfferCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,9 +28,19 @@ import java.util.Map;
 public class StatsController {
 
     /**
-     * Repository for fetching offer data.
+     * In-memory conversion counters, kept current by the offer service.
      */
-    private final OfferRepository repo;
+    private final ConversionStatistics stats;
+
+    /**
+     * Hour-resolution conversion series used for range queries.
+     */
+    private final ConversionTimeSeries series;
+
+    /**
+     * Offer cache whose statistics are exposed.
+     */
+    private final OfferCache offerCache;
 
     /**
      * Configurable validity period (in days) for offers, injected from application.properties.
@@ -32,16 +49,22 @@ public class StatsController {
     private int validDays;
 
     /**
-     * Constructor-based injection of the repository dependency.
+     * Constructor-based injection of the statistics dependencies.
      *
-     * @param repo the OfferRepository for data access
+     * @param stats      the ConversionStatistics holding the running counters
+     * @param series     the ConversionTimeSeries holding hourly buckets
+     * @param offerCache the OfferCache whose statistics are reported
      */
-    public StatsController(OfferRepository repo) {
-        this.repo = repo;
+    public StatsController(ConversionStatistics stats, ConversionTimeSeries series, OfferCache offerCache) {
+        this.stats = stats;
+        this.series = series;
+        this.offerCache = offerCache;
     }
 
     /**
      * GET endpoint to retrieve conversion statistics.
+     * <p>
+     * Answers from in-memory counters without querying the database.
      *
      * @return a map containing:
      *   - "totalaOfferter": total number of offers created
@@ -52,14 +75,10 @@ public class StatsController {
     @GetMapping("/conversion")
     public Map<String, Object> conversion() {
         // Total offers count
-        long total = repo.count();
+        long total = stats.getTotal();
 
-        // Number of offers with status TECKNAD accepted before now (validity enforced)
-        long acceptedWithinValidity =
-            repo.countByStatusAndAccepteradVidBefore(
-                OfferStatus.TECKNAD,
-                LocalDateTime.now()
-            );
+        // Number of offers with status TECKNAD (acceptance is only possible within validity)
+        long acceptedWithinValidity = stats.getAccepted();
 
         // Calculate conversion rate as a percentage
         double rate = total == 0 ? 0 : (acceptedWithinValidity * 100.0) / total;
@@ -72,4 +91,44 @@ public class StatsController {
             "tidsintervall", validDays + " dagar"
         );
     }
+
+    /**
+     * GET endpoint to retrieve conversion broken down into time buckets.
+     * <p>
+     * Created and converted offers are bucketed by skapad, accepted offers by
+     * accepteradVid. Answered from pre-aggregated hourly buckets without
+     * scanning offer rows.
+     *
+     * @param granularity bucket size: HOUR, DAY or WEEK (default DAY)
+     * @param from        inclusive start of the range (default 90 days before {@code to})
+     * @param to          exclusive end of the range (default now)
+     * @return the non-empty buckets within the range, oldest first
+     */
+    @GetMapping("/conversion/series")
+    public List<ConversionBucketDto> conversionSeries(
+            @RequestParam(defaultValue = "DAY") Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        // Default to the last 90 days up to now
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(90);
+        return series.query(granularity, start, end);
+    }
+
+    /**
+     * GET endpoint to retrieve offer cache statistics.
+     *
+     * @return a map containing size, hit/miss/eviction counts and hit rate
+     */
+    @GetMapping("/cache")
+    public Map<String, Object> cache() {
+        CacheStats cs = offerCache.stats();
+        return Map.of(
+            "storlek", offerCache.size(),
+            "traffar", cs.hitCount(),
+            "missar", cs.missCount(),
+            "utkastade", cs.evictionCount(),
+            "traffgrad", cs.hitRate()
+        );
+    }
 }
@@ -0,0 +1,91 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An offer that will never change again, moved out of the {@code offers} table.
+ * <p>
+ * Accepted (TECKNAD) and expired (UTGÅNGEN) offers are copied here row for row by
+ * the archiving job and deleted from {@code offers}, so the hot table and its
+ * indexes only hold offers that can still be updated or accepted. Rows are
+ * only ever inserted; the version and the personnummer hash are not carried over.
+ */
+@Entity
+@Immutable
+@Table(name = "offers_archive", indexes = {
+    // Supports counting accepted offers across both tiers
+    @Index(name = "idx_offers_archive_status_accepterad_vid", columnList = "status, accepterad_vid"),
+    // Supports keyset-paginated listing in creation order
+    @Index(name = "idx_offers_archive_skapad_id", columnList = "skapad, id")
+})
+@Data            // Lombok annotation to generate getters, setters, equals, hashCode, toString
+@NoArgsConstructor
+public class ArchivedOffer {
+
+    /**
+     * Unique identifier, the same as the offer had in the hot table.
+     */
+    @Id
+    private UUID id;
+
+    /**
+     * Personal identification number of the customer; null if anonymized.
+     */
+    private String personnummer;
+
+    /**
+     * Loans of the offer, in the same binary encoding as {@link Offer#getLoans()}.
+     */
+    @Convert(converter = LoanListConverter.class)
+    @Column(name = "loans_data", length = 65_535)
+    private List<Loan> loans;
+
+    /**
+     * Monthly cost input by the customer.
+     */
+    private BigDecimal manadskostnad;
+
+    /**
+     * Total amount insured.
+     */
+    private BigDecimal forsakratBelopp;
+
+    /**
+     * Premium in SEK at scale 2.
+     */
+    private BigDecimal premie;
+
+    /**
+     * TECKNAD, or SKAPAD for an offer that expired without being accepted.
+     */
+    @Enumerated(EnumType.STRING)
+    private OfferStatus status;
+
+    /**
+     * Timestamp when the offer was created.
+     */
+    private LocalDateTime skapad;
+
+    /**
+     * Expiration timestamp of the offer.
+     */
+    private LocalDateTime giltigTill;
+
+    /**
+     * Timestamp when the offer was accepted; null if it expired.
+     */
+    private LocalDateTime accepteradVid;
+
+    /**
+     * Timestamp when the offer was moved to the archive.
+     */
+    private LocalDateTime arkiverad;
+}
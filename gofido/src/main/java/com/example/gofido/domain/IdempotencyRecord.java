@@ -0,0 +1,61 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of a request sent with an {@code Idempotency-Key} header.
+ * <p>
+ * Written in the same transaction as the offer the request created or
+ * accepted, so a key is recorded if and only if its request took effect.
+ * Retries with the same key get {@link #response} back instead of running
+ * the request again, until {@link #expiresAt}.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    // Supports purging expired keys
+    @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class IdempotencyRecord {
+
+    /**
+     * Key chosen by the client.
+     */
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    /**
+     * SHA-256 of the operation and request body, to tell a retry from a
+     * different request reusing the key.
+     */
+    @Column(name = "request_hash", length = 32, nullable = false)
+    private byte[] requestHash;
+
+    /**
+     * The response as JSON.
+     */
+    @Column(length = 65_535)
+    private String response;
+
+    /**
+     * When the request was first processed.
+     */
+    @Column(nullable = false)
+    private LocalDateTime created;
+
+    /**
+     * When the key may be used for a new request.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,81 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One slice of the offer ID space in a run of a sharded job.
+ * <p>
+ * The instance that plans a run splits the IDs it has to process into shards
+ * of about equal size; instances then claim shards through a
+ * {@link SchedulerLease} named after {@link #id} and process them in
+ * parallel. {@link #cursorId} is the keyset cursor, so a shard taken over
+ * from a crashed instance resumes after the last committed chunk.
+ */
+@Entity
+@Table(name = "job_shards", indexes = {
+    // Supports loading the shards of one run
+    @Index(name = "idx_job_shards_run", columnList = "run")
+})
+@Data
+@NoArgsConstructor
+public class JobShard {
+
+    /**
+     * Run and shard number, e.g. {@code anonymization@2025-01-01T00:00#3}; also the name of the shard's lease.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Job name and the time the run is for, shared by every instance taking part.
+     */
+    private String run;
+
+    /**
+     * Position of the shard within the run.
+     */
+    private int shard;
+
+    /**
+     * Exclusive lower bound of the shard's IDs.
+     */
+    private UUID fromId;
+
+    /**
+     * Inclusive upper bound of the shard's IDs.
+     */
+    private UUID toId;
+
+    /**
+     * ID of the last offer in the last committed chunk, or null before the first.
+     */
+    private UUID cursorId;
+
+    /**
+     * Offers processed so far.
+     */
+    private long processed;
+
+    /**
+     * Whether every ID in the shard has been processed.
+     */
+    private boolean done;
+
+    /**
+     * Node ID of the instance that last worked on the shard.
+     */
+    private String owner;
+
+    /**
+     * When the shard was completed.
+     */
+    private LocalDateTime finishedAt;
+}
@@ -1,6 +1,5 @@
 package com.example.gofido.domain;
 
-import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,10 +9,9 @@ import java.math.BigDecimal;
 /**
  * Represents a single loan entry associated with an insurance offer.
  * <p>
- * This class is embedded into an Offer entity as part of a collection of loans,
- * storing the bank name and the amount of the loan.
+ * Held in an Offer's list of loans, storing the bank name and the amount of
+ * the loan. Persisted through {@link LoanListConverter}.
  */
-@Embeddable  // Indicates that this type can be embedded in another entity
 @Data        // Lombok annotation to generate getters, setters, equals, hashCode, toString
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,156 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the loans of an offer as one compact binary column.
+ * <p>
+ * Layout, all integers as unsigned LEB128 varints:
+ * <pre>
+ * version byte (1)
+ * bank count, then per bank: UTF-8 length, UTF-8 bytes
+ * loan count, then per loan:
+ *   bank reference (0 = null, otherwise 1-based index into the bank list)
+ *   unscaled length (0 = null belopp), unscaled two's-complement bytes, zigzag scale
+ * </pre>
+ * Bank names are dictionary-encoded, so an offer with ten loans at the same
+ * bank stores the name once. A typical single-loan offer takes about 15 bytes.
+ */
+@Converter
+public class LoanListConverter implements AttributeConverter<List<Loan>, byte[]> {
+
+    /**
+     * Current format version, written as the first byte.
+     */
+    static final byte FORMAT_VERSION = 1;
+
+    @Override
+    public byte[] convertToDatabaseColumn(List<Loan> loans) {
+        return loans == null ? null : encode(loans);
+    }
+
+    @Override
+    public List<Loan> convertToEntityAttribute(byte[] data) {
+        return data == null ? new ArrayList<>() : decode(data);
+    }
+
+    /**
+     * Encode a list of loans into the compact column format.
+     *
+     * @param loans the loans to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encode(List<Loan> loans) {
+        // Build the bank dictionary in order of first appearance
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> banks = new ArrayList<>();
+        for (Loan l : loans) {
+            if (l.getBank() != null && dictionary.putIfAbsent(l.getBank(), banks.size() + 1) == null) {
+                banks.add(l.getBank());
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + loans.size() * 8);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, banks.size());
+        for (String bank : banks) {
+            byte[] name = bank.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, name.length);
+            out.writeBytes(name);
+        }
+
+        writeVarint(out, loans.size());
+        for (Loan l : loans) {
+            writeVarint(out, l.getBank() == null ? 0 : dictionary.get(l.getBank()));
+            if (l.getBelopp() == null) {
+                writeVarint(out, 0);
+            } else {
+                byte[] unscaled = l.getBelopp().unscaledValue().toByteArray();
+                writeVarint(out, unscaled.length);
+                out.writeBytes(unscaled);
+                writeVarint(out, zigzag(l.getBelopp().scale()));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode the compact column format into a mutable list of loans.
+     *
+     * @param data the encoded bytes
+     * @return the decoded loans
+     * @throws IllegalStateException if the data has an unknown format version
+     */
+    public static List<Loan> decode(byte[] data) {
+        int[] pos = {0};
+        byte version = data[pos[0]++];
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unknown loans format version: " + version);
+        }
+
+        String[] banks = new String[readVarint(data, pos)];
+        for (int i = 0; i < banks.length; i++) {
+            int length = readVarint(data, pos);
+            banks[i] = new String(data, pos[0], length, StandardCharsets.UTF_8);
+            pos[0] += length;
+        }
+
+        int count = readVarint(data, pos);
+        List<Loan> loans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int bankRef = readVarint(data, pos);
+            String bank = bankRef == 0 ? null : banks[bankRef - 1];
+            BigDecimal belopp = null;
+            int length = readVarint(data, pos);
+            if (length > 0) {
+                byte[] unscaled = new byte[length];
+                System.arraycopy(data, pos[0], unscaled, 0, length);
+                pos[0] += length;
+                belopp = new BigDecimal(new BigInteger(unscaled), unzigzag(readVarint(data, pos)));
+            }
+            loans.add(new Loan(bank, belopp));
+        }
+        return loans;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Map a signed scale onto an unsigned varint (0, -1, 1, -2 ... to 0, 1, 2, 3 ...).
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
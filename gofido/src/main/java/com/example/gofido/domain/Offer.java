@@ -3,11 +3,11 @@ package com.example.gofido.domain;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * JPA entity representing an insurance offer in the GOFIDO system.
@@ -16,18 +16,27 @@ import java.util.List;
  * associated loans, calculated amounts, status, and timestamps.
  */
 @Entity
-@Table(name = "offers")
+@Table(name = "offers", indexes = {
+    // Supports the anonymization job's lookup of expired SKAPAD offers
+    @Index(name = "idx_offers_status_giltig_till", columnList = "status, giltig_till"),
+    // Supports counting accepted offers, optionally bounded by acceptance time
+    @Index(name = "idx_offers_status_accepterad_vid", columnList = "status, accepterad_vid"),
+    // Supports looking up a customer's open offers without indexing the plaintext personnummer
+    @Index(name = "idx_offers_personnummer_hash", columnList = "personnummer_hash, status, giltig_till"),
+    // Supports keyset-paginated listing in creation order
+    @Index(name = "idx_offers_skapad_id", columnList = "skapad, id")
+})
 @Data            // Lombok annotation to generate getters, setters, equals, hashCode, toString
 @NoArgsConstructor
 public class Offer {
 
     /**
-     * Unique identifier for the offer, generated as a UUID string.
+     * Unique identifier for the offer, generated by the configured
+     * {@link OfferIdStrategy} and stored as a native UUID.
      */
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
-    private String id;
+    @OfferId
+    private UUID id;
 
     /**
      * Personal identification number of the customer; cleared when anonymized.
@@ -35,9 +44,20 @@ public class Offer {
     private String personnummer;
 
     /**
-     * List of loans embedded in the offer, each with bank name and amount.
+     * Keyed HMAC of the personnummer, indexed for customer lookups; cleared
+     * together with the personnummer when anonymized.
      */
-    @ElementCollection
+    @Column(name = "personnummer_hash", length = 32)
+    private byte[] personnummerHash;
+
+    /**
+     * Loans of the offer, each with bank name and amount.
+     * <p>
+     * Stored in the offer row as a compact binary column rather than a
+     * collection table, so an offer is read and written as a single row.
+     */
+    @Convert(converter = LoanListConverter.class)
+    @Column(name = "loans_data", length = 65_535)
     private List<Loan> loans;
 
     /**
@@ -51,7 +71,7 @@ public class Offer {
     private BigDecimal forsakratBelopp;
 
     /**
-     * Calculated premium, typically 3.8% of the insured amount.
+     * Calculated premium in SEK at scale 2, from the rate tables per bank and amount band.
      */
     private BigDecimal premie;
 
@@ -75,4 +95,10 @@ public class Offer {
      * Timestamp when the offer was accepted; null if not yet accepted.
      */
     private LocalDateTime accepteradVid;
+
+    /**
+     * Optimistic locking version, incremented on every write.
+     */
+    @Version
+    private Long version;
 }
@@ -0,0 +1,17 @@
+package com.example.gofido.domain;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an identifier attribute as generated by the configured {@link OfferIdStrategy}.
+ */
+@IdGeneratorType(OfferIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface OfferId {
+}
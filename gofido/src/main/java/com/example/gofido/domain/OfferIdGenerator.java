@@ -0,0 +1,50 @@
+package com.example.gofido.domain;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+/**
+ * Hibernate generator behind {@link OfferId}.
+ * <p>
+ * Spring Boot registers the application context as Hibernate's bean container,
+ * so the generator is created by Spring and receives the configured
+ * {@link OfferIdStrategy} bean. The ID is generated in memory before the
+ * INSERT, so no sequence or round trip is needed and JDBC batching is
+ * unaffected. An ID that is already set is kept.
+ */
+public class OfferIdGenerator implements BeforeExecutionGenerator {
+
+    /**
+     * Strategy producing the IDs.
+     */
+    private final transient OfferIdStrategy strategy;
+
+    /**
+     * Called through Hibernate's bean container with the configured strategy.
+     *
+     * @param strategy the strategy bean
+     */
+    public OfferIdGenerator(OfferIdStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner,
+                           Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : strategy.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+}
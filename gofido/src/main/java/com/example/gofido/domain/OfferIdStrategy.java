@@ -0,0 +1,41 @@
+package com.example.gofido.domain;
+
+import java.util.UUID;
+
+/**
+ * Source of primary keys for new offers.
+ * <p>
+ * Selected with the {@code offer.id.strategy} property: {@code uuid7} (default)
+ * for time-ordered keys, {@code random} for random version 4 keys, or the fully
+ * qualified name of a custom implementation with a no-argument constructor.
+ * Keys are stored in the database's native 16-byte UUID type and exposed as
+ * strings at the REST layer.
+ */
+public interface OfferIdStrategy {
+
+    /**
+     * @return a new, unique offer ID
+     */
+    UUID next();
+
+    /**
+     * Resolve a strategy from its configured name.
+     *
+     * @param name {@code uuid7}, {@code random} or a class name
+     * @return the strategy instance
+     * @throws IllegalArgumentException if the name cannot be resolved
+     */
+    static OfferIdStrategy of(String name) {
+        if (name == null || name.isBlank() || name.equals("uuid7")) {
+            return new UuidV7Strategy();
+        }
+        if (name.equals("random")) {
+            return UUID::randomUUID;
+        }
+        try {
+            return (OfferIdStrategy) Class.forName(name).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Unknown offer ID strategy: " + name, e);
+        }
+    }
+}
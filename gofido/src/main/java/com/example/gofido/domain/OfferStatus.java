@@ -4,7 +4,8 @@ package com.example.gofido.domain;
  * Enumeration of possible states for an insurance offer in the GOFIDO system.
  * <p>
  * Defines whether an offer has been created and is still valid (SKAPAD),
- * or has been accepted by the customer (TECKNAD).
+ * has been accepted by the customer (TECKNAD), or passed its validity
+ * without being accepted and was anonymized (UTGÅNGEN).
  */
 public enum OfferStatus {
 
@@ -12,5 +13,8 @@ public enum OfferStatus {
     SKAPAD,
 
     /** Offer has been accepted by the customer. */
-    TECKNAD
+    TECKNAD,
+
+    /** Offer's validity passed before it was accepted; its personnummer has been cleared. */
+    UTGÅNGEN
 }
@@ -0,0 +1,54 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Offer state change waiting to be published to downstream systems.
+ * <p>
+ * Written in the same transaction as the change itself, so an event exists
+ * if and only if the change committed. The relay deletes events once the
+ * sink has accepted them.
+ */
+@Entity
+@Table(name = "offer_outbox")
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    /**
+     * Time-ordered event ID, assigned when the event is recorded; the relay
+     * publishes in ID order.
+     */
+    @Id
+    private UUID id;
+
+    /**
+     * ID of the offer that changed.
+     */
+    @Column(nullable = false)
+    private UUID offerId;
+
+    /**
+     * Kind of change.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType type;
+
+    /**
+     * When the change was made.
+     */
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    /**
+     * Event body as JSON.
+     */
+    @Column(length = 65_535)
+    private String payload;
+}
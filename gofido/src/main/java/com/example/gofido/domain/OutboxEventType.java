@@ -0,0 +1,22 @@
+package com.example.gofido.domain;
+
+/**
+ * Kinds of offer state change published through the outbox.
+ */
+public enum OutboxEventType {
+
+    /** Offer created; payload is the offer. */
+    CREATED,
+
+    /** Offer's loans, monthly cost or personnummer updated; payload is the offer. */
+    UPDATED,
+
+    /** Offer accepted (TECKNAD); payload is the offer. */
+    ACCEPTED,
+
+    /** Offer expired (UTGÅNGEN) and its personnummer cleared; payload is the offer ID only. */
+    EXPIRED,
+
+    /** Offer re-priced after a rate change; payload is the new insured amount and premium. */
+    REPRICED
+}
@@ -0,0 +1,93 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of the bulk re-pricing job, committed together with each chunk.
+ * <p>
+ * {@link #lastId} is the keyset cursor: every open offer with a lower ID has
+ * been re-priced, so a failed or interrupted run resumes after it.
+ */
+@Entity
+@Table(name = "repricing_checkpoint")
+@Data
+@NoArgsConstructor
+public class RepricingCheckpoint {
+
+    /**
+     * Name of the job; there is one checkpoint per job.
+     */
+    @Id
+    private String job;
+
+    /**
+     * Status of the current or last run.
+     */
+    @Enumerated(EnumType.STRING)
+    private RepricingStatus status;
+
+    /**
+     * ID of the last offer in the last committed chunk.
+     */
+    private UUID lastId;
+
+    /**
+     * Open offers read so far.
+     */
+    private long scanned;
+
+    /**
+     * Offers whose insured amount or premium changed and was written.
+     */
+    private long repriced;
+
+    /**
+     * Changed offers not written because they were updated or accepted meanwhile.
+     */
+    private long conflicts;
+
+    /**
+     * Number of committed chunks.
+     */
+    private int chunks;
+
+    /**
+     * When the run started; kept when it is resumed.
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * When the last chunk was committed.
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * When the run completed or failed.
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * Milliseconds spent running, summed over resumed attempts.
+     */
+    private long durationMillis;
+
+    /**
+     * Message of the error that failed the run.
+     */
+    @Column(length = 1000)
+    private String error;
+
+    /**
+     * Throughput of the run.
+     *
+     * @return scanned offers per second, or 0 if nothing was processed
+     */
+    public double getRowsPerSecond() {
+        return durationMillis == 0 ? scanned : scanned * 1000.0 / durationMillis;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.gofido.domain;
+
+/**
+ * State of a bulk re-pricing run, as recorded in its checkpoint.
+ */
+public enum RepricingStatus {
+
+    /** Run in progress, or interrupted by a crash before it could record otherwise. */
+    RUNNING,
+
+    /** Every open offer was processed. */
+    COMPLETED,
+
+    /** Run stopped on an error; can be resumed from its last committed chunk. */
+    FAILED
+}
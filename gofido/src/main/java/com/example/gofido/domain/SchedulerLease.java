@@ -0,0 +1,40 @@
+package com.example.gofido.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time-limited claim by one application instance on a named piece of work,
+ * e.g. a scheduled job or one shard of a job run.
+ * <p>
+ * The claim is valid until {@link #expiresAt}, measured on the database clock
+ * so instances with skewed clocks agree on it. The owner extends it while it
+ * works; once it lapses, e.g. because the owner crashed, any instance may take it over.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+public class SchedulerLease {
+
+    /**
+     * Name of the claimed work.
+     */
+    @Id
+    private String name;
+
+    /**
+     * Node ID of the instance holding the lease.
+     */
+    private String owner;
+
+    /**
+     * Database time the lease lapses at unless renewed.
+     */
+    private LocalDateTime expiresAt;
+}
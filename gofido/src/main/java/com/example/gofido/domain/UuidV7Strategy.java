@@ -0,0 +1,42 @@
+package com.example.gofido.domain;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered offer IDs as RFC 9562 version 7 UUIDs.
+ * <p>
+ * The top 48 bits are the Unix time in milliseconds, so new keys are appended
+ * at the right-hand edge of the primary key index instead of landing on random
+ * pages. The 12-bit {@code rand_a} field is used as a counter within the same
+ * millisecond (RFC 9562 section 6.2, method 1), so IDs from one instance are
+ * strictly increasing even under concurrency or a clock step backwards.
+ */
+public class UuidV7Strategy implements OfferIdStrategy {
+
+    /**
+     * Last issued (milliseconds << 12 | counter), advanced lock-free.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    @Override
+    public UUID next() {
+        long now = System.currentTimeMillis();
+        long state;
+        long next;
+        do {
+            state = last.get();
+            // Start each millisecond at a random counter in the lower half to leave room for increments
+            long candidate = now << 12 | ThreadLocalRandom.current().nextInt(1 << 11);
+            // Same or earlier millisecond: bump the counter, carrying into the timestamp on overflow
+            next = candidate > state ? candidate : state + 1;
+        } while (!last.compareAndSet(state, next));
+
+        long millis = next >>> 12;
+        long counter = next & 0xFFF;
+        long msb = millis << 16 | 0x7000L | counter;
+        long lsb = ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+}
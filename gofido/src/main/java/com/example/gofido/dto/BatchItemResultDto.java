@@ -0,0 +1,57 @@
+package com.example.gofido.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object for the outcome of one item in a batch offer creation.
+ * <p>
+ * Returned as a list by POST /offer/batch, one entry per submitted offer,
+ * in the same order as the request.
+ */
+@Data
+@AllArgsConstructor
+public class BatchItemResultDto {
+
+    /**
+     * Zero-based position of the item in the request.
+     */
+    private int index;
+
+    /**
+     * Unique identifier of the created offer; null if the item failed.
+     */
+    private String offerId;
+
+    /**
+     * Whether the offer was created.
+     */
+    private boolean ok;
+
+    /**
+     * Error description if the item failed; null on success.
+     */
+    private String fel;
+
+    /**
+     * Result for an item that was persisted.
+     *
+     * @param index   position of the item in the request
+     * @param offerId the generated offer ID
+     * @return a successful result
+     */
+    public static BatchItemResultDto ok(int index, String offerId) {
+        return new BatchItemResultDto(index, offerId, true, null);
+    }
+
+    /**
+     * Result for an item that could not be created.
+     *
+     * @param index position of the item in the request
+     * @param fel   description of the failure
+     * @return a failed result
+     */
+    public static BatchItemResultDto failed(int index, String fel) {
+        return new BatchItemResultDto(index, null, false, fel);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.gofido.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for one bucket of time-series conversion statistics.
+ * <p>
+ * Returned by GET /stats/conversion/series. Created and converted offers are
+ * bucketed by their creation time (skapad), accepted offers by their
+ * acceptance time (accepteradVid).
+ */
+@Data
+@AllArgsConstructor
+public class ConversionBucketDto {
+
+    /**
+     * Start of the bucket (inclusive).
+     */
+    private LocalDateTime start;
+
+    /**
+     * Number of offers created in the bucket.
+     */
+    private long skapade;
+
+    /**
+     * Number of offers accepted in the bucket.
+     */
+    private long accepterade;
+
+    /**
+     * Number of offers created in the bucket that have since been accepted.
+     */
+    private long konverterade;
+
+    /**
+     * Percentage of the offers created in the bucket that have been accepted.
+     */
+    private double konverteringsgrad;
+}
@@ -0,0 +1,18 @@
+package com.example.gofido.dto;
+
+import lombok.Data;
+
+/**
+ * Data Transfer Object for looking up a customer's open offers.
+ * <p>
+ * Sent as the body of POST /offer/search so the personnummer never appears
+ * in URLs or access logs.
+ */
+@Data
+public class CustomerSearchDto {
+
+    /**
+     * Customer’s personal identification number (personnummer), with or without separator.
+     */
+    private String personnummer;
+}
@@ -0,0 +1,45 @@
+package com.example.gofido.dto;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.domain.OutboxEventType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Offer event pushed to live subscribers of GET /offer/events.
+ * <p>
+ * Carries only what a dashboard needs; the personnummer and the loans are
+ * deliberately left out, since the stream is not scoped to one customer.
+ */
+@Data
+@AllArgsConstructor
+public class OfferEventDto {
+
+    /**
+     * Unique identifier of the offer.
+     */
+    private String offerId;
+
+    /**
+     * Kind of change.
+     */
+    private OutboxEventType type;
+
+    /**
+     * Status after the change, or null if unknown (anonymization).
+     */
+    private OfferStatus status;
+
+    /**
+     * Premium after the change, or null if unknown.
+     */
+    private BigDecimal premie;
+
+    /**
+     * Timestamp of the change.
+     */
+    private LocalDateTime occurredAt;
+}
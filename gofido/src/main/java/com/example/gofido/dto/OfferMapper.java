@@ -0,0 +1,128 @@
+package com.example.gofido.dto;
+
+import com.example.gofido.domain.ArchivedOffer;
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.Offer;
+import com.example.gofido.repository.OfferExportRow;
+import com.example.gofido.repository.OfferListRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Maps domain Offer and ArchivedOffer entities, and the projection rows read
+ * for exports and listings, to external-facing DTOs.
+ * <p>
+ * Shared by the REST controller, the offer cache, which stores the mapped
+ * DTO rather than the mutable entity, and the export and listing services.
+ */
+public final class OfferMapper {
+
+    private OfferMapper() {
+        // Static utility class
+    }
+
+    /**
+     * Map domain Offer entity to external-facing DTO.
+     *
+     * @param o the Offer entity from the database
+     * @return a fully populated OfferResponseDto
+     */
+    public static OfferResponseDto toDto(Offer o) {
+        return new OfferResponseDto(
+            o.getId().toString(),
+            o.getPersonnummer(),
+            // Convert each Loan object to LoanDto
+            o.getLoans().stream()
+                .map(l -> new LoanDto(l.getBank(), l.getBelopp()))
+                .collect(Collectors.toList()),
+            o.getManadskostnad(),
+            o.getForsakratBelopp(),
+            o.getPremie(),
+            o.getStatus(),
+            o.getSkapad(),
+            o.getGiltigTill(),
+            o.getAccepteradVid()
+        );
+    }
+
+    /**
+     * Map an archived offer to the same DTO as a live one.
+     *
+     * @param o the ArchivedOffer entity from the database
+     * @return a fully populated OfferResponseDto
+     */
+    public static OfferResponseDto toDto(ArchivedOffer o) {
+        return new OfferResponseDto(
+            o.getId().toString(),
+            o.getPersonnummer(),
+            o.getLoans().stream()
+                .map(l -> new LoanDto(l.getBank(), l.getBelopp()))
+                .collect(Collectors.toList()),
+            o.getManadskostnad(),
+            o.getForsakratBelopp(),
+            o.getPremie(),
+            o.getStatus(),
+            o.getSkapad(),
+            o.getGiltigTill(),
+            o.getAccepteradVid()
+        );
+    }
+
+    /**
+     * Map a projection row with loans, as read for exports.
+     *
+     * @param row the projection row
+     * @return a fully populated OfferResponseDto
+     */
+    public static OfferResponseDto toDto(OfferExportRow row) {
+        List<LoanDto> lån = new ArrayList<>();
+        if (row.loans() != null) {
+            for (Loan l : row.loans()) {
+                lån.add(new LoanDto(l.getBank(), l.getBelopp()));
+            }
+        }
+        return new OfferResponseDto(
+            row.id().toString(),
+            row.personnummer(),
+            lån,
+            row.manadskostnad(),
+            row.forsakratBelopp(),
+            row.premie(),
+            row.status(),
+            row.skapad(),
+            row.giltigTill(),
+            row.accepteradVid()
+        );
+    }
+
+    /**
+     * Map a projection row without loans, as read for listings.
+     *
+     * @param row the projection row
+     * @param loans the offer's loans, or null if they were not read
+     * @return an OfferResponseDto whose loan list is null when no loans were given
+     */
+    public static OfferResponseDto toDto(OfferListRow row, List<Loan> loans) {
+        List<LoanDto> lån = null;
+        if (loans != null) {
+            lån = new ArrayList<>(loans.size());
+            for (Loan l : loans) {
+                lån.add(new LoanDto(l.getBank(), l.getBelopp()));
+            }
+        }
+        return new OfferResponseDto(
+            row.id().toString(),
+            row.personnummer(),
+            lån,
+            row.manadskostnad(),
+            row.forsakratBelopp(),
+            row.premie(),
+            row.status(),
+            row.skapad(),
+            row.giltigTill(),
+            row.accepteradVid()
+        );
+    }
+}
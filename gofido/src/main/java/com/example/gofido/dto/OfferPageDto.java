@@ -0,0 +1,24 @@
+package com.example.gofido.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of the offer listing (GET /offer).
+ */
+@Data
+@AllArgsConstructor
+public class OfferPageDto {
+
+    /**
+     * Offers of the page, in creation order.
+     */
+    private List<OfferResponseDto> offerter;
+
+    /**
+     * Opaque cursor to pass as {@code after} for the next page; null on the last page.
+     */
+    private String nextCursor;
+}
@@ -3,6 +3,7 @@ package com.example.gofido.dto;
 import com.example.gofido.domain.OfferStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -12,10 +13,11 @@ import java.util.List;
  * Data Transfer Object for returning insurance offer details in API responses.
  * <p>
  * Contains all relevant fields from the Offer entity, including calculated amounts,
- * status, and timestamps.
+ * status, and timestamps. Read back from JSON when an idempotent request is replayed.
  */
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class OfferResponseDto {
 
     /**
@@ -62,4 +64,9 @@ public class OfferResponseDto {
      * Expiration timestamp for the offer’s validity period.
      */
     private LocalDateTime giltigTill;
+
+    /**
+     * Timestamp when the offer was accepted; null if not yet accepted.
+     */
+    private LocalDateTime accepteradVid;
 }
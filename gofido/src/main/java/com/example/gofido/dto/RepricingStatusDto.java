@@ -0,0 +1,84 @@
+package com.example.gofido.dto;
+
+import com.example.gofido.domain.RepricingCheckpoint;
+import com.example.gofido.domain.RepricingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and throughput of the bulk re-pricing job, returned by /admin/repricing.
+ */
+@Data
+@AllArgsConstructor
+public class RepricingStatusDto {
+
+    /**
+     * Whether a run is in progress in the answering instance.
+     */
+    private boolean running;
+
+    /**
+     * Status recorded in the checkpoint.
+     */
+    private RepricingStatus status;
+
+    /**
+     * Open offers read so far.
+     */
+    private long scanned;
+
+    /**
+     * Offers whose premium or insured amount was rewritten.
+     */
+    private long repriced;
+
+    /**
+     * Changed offers skipped because they were updated or accepted meanwhile.
+     */
+    private long conflicts;
+
+    /**
+     * Number of committed chunks.
+     */
+    private int chunks;
+
+    /**
+     * Scanned offers per second of run time.
+     */
+    private double rowsPerSecond;
+
+    /**
+     * When the run started.
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * When the last chunk was committed.
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * When the run completed or failed.
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * Error that failed the run, if any.
+     */
+    private String error;
+
+    /**
+     * Map a checkpoint to its status DTO.
+     *
+     * @param cp      the checkpoint
+     * @param running whether a run is in progress
+     * @return the status DTO
+     */
+    public static RepricingStatusDto of(RepricingCheckpoint cp, boolean running) {
+        return new RepricingStatusDto(running, cp.getStatus(), cp.getScanned(), cp.getRepriced(),
+                cp.getConflicts(), cp.getChunks(), cp.getRowsPerSecond(), cp.getStartedAt(),
+                cp.getUpdatedAt(), cp.getFinishedAt(), cp.getError());
+    }
+}
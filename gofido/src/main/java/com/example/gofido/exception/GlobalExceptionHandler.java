@@ -1,5 +1,6 @@
 package com.example.gofido.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.http.ResponseEntity;
@@ -42,11 +43,101 @@ public class GlobalExceptionHandler {
             .body(ex.getMessage());
     }
 
-    // TODO: If you add an OfferAlreadyAcceptedException, handle it here:
-    // @ExceptionHandler(OfferAlreadyAcceptedException.class)
-    // public ResponseEntity<String> handleAlreadyAccepted(OfferAlreadyAcceptedException ex) {
-    //     return ResponseEntity
-    //         .status(HttpStatus.BAD_REQUEST)
-    //         .body(ex.getMessage());
-    // }
+    /**
+     * Handle offer requests that lack required data, e.g. loans or a personnummer to search by.
+     *
+     * @param ex the exception describing what is missing
+     * @return 400 Bad Request with the reason, e.g. "Offer must contain at least one loan"
+     */
+    @ExceptionHandler(InvalidOfferRequestException.class)
+    public ResponseEntity<String> handleInvalidOfferRequest(InvalidOfferRequestException ex) {
+        // Respond with HTTP 400 because the request itself is incomplete
+        return ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .body(ex.getMessage());
+    }
+
+    /**
+     * Handle listing requests whose cursor cannot be decoded.
+     *
+     * @param ex the exception containing the rejected cursor
+     * @return 400 Bad Request with a message "Invalid cursor: {cursor}"
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursor(InvalidCursorException ex) {
+        // Respond with HTTP 400 because the client sent a cursor this API did not issue
+        return ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .body(ex.getMessage());
+    }
+
+    /**
+     * Handle idempotency keys that are blank or too long.
+     *
+     * @param ex the exception containing the rejected key
+     * @return 400 Bad Request with a message "Invalid idempotency key: {key}"
+     */
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<String> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException ex) {
+        // Respond with HTTP 400 because the header cannot be used as a key
+        return ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .body(ex.getMessage());
+    }
+
+    /**
+     * Handle an idempotency key sent again with a different request.
+     *
+     * @param ex the exception containing the reused key
+     * @return 422 Unprocessable Entity, since replaying the stored response would answer another request
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        // Respond with HTTP 422 because the key is bound to the request it was first sent with
+        return ResponseEntity
+            .status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body(ex.getMessage());
+    }
+
+    /**
+     * Handle a retry that arrives while the request with the same idempotency key is still running.
+     *
+     * @param ex the exception containing the key
+     * @return 409 Conflict; retrying later returns the stored response
+     */
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<String> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex) {
+        // Respond with HTTP 409 because the first request has not finished yet
+        return ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body(ex.getMessage());
+    }
+
+    /**
+     * Handle cases where an Offer has already been accepted, e.g. by a concurrent request.
+     *
+     * @param ex the exception containing the accepted-offer ID
+     * @return 409 Conflict with a message "Offer already accepted: {id}"
+     */
+    @ExceptionHandler(OfferAlreadyAcceptedException.class)
+    public ResponseEntity<String> handleAlreadyAccepted(OfferAlreadyAcceptedException ex) {
+        // Respond with HTTP 409 because the offer's state conflicts with the request
+        return ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body(ex.getMessage());
+    }
+
+    /**
+     * Handle cases where an Offer was changed by another request between read and write.
+     *
+     * @param ex the optimistic locking failure raised on commit
+     * @return 409 Conflict asking the client to reload and retry
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentModification(OptimisticLockingFailureException ex) {
+        // Respond with HTTP 409 because the client acted on a stale version
+        return ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body("Offer was modified concurrently, reload and retry");
+    }
 }
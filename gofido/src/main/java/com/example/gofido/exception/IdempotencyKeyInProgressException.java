@@ -0,0 +1,17 @@
+package com.example.gofido.exception;
+
+/**
+ * Thrown when a request with the same idempotency key is still being
+ * processed and did not finish within the database lock timeout.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    /**
+     * Constructs a new IdempotencyKeyInProgressException for the specified key.
+     *
+     * @param key the idempotency key as received from the client
+     */
+    public IdempotencyKeyInProgressException(String key) {
+        super("A request with this idempotency key is in progress: " + key);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.gofido.exception;
+
+/**
+ * Thrown when an idempotency key that is already recorded is sent with a
+ * different request, e.g. another body or another endpoint.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    /**
+     * Constructs a new IdempotencyKeyReusedException for the specified key.
+     *
+     * @param key the idempotency key as received from the client
+     */
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency key already used for a different request: " + key);
+    }
+}
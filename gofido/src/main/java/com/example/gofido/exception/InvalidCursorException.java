@@ -0,0 +1,16 @@
+package com.example.gofido.exception;
+
+/**
+ * Thrown when a listing cursor was not issued by this API or has been altered.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidCursorException for the specified cursor.
+     *
+     * @param cursor the cursor as received from the client
+     */
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+}
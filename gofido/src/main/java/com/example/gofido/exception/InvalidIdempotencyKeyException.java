@@ -0,0 +1,16 @@
+package com.example.gofido.exception;
+
+/**
+ * Thrown when an idempotency key is blank or longer than can be stored.
+ */
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidIdempotencyKeyException for the specified key.
+     *
+     * @param key the idempotency key as received from the client
+     */
+    public InvalidIdempotencyKeyException(String key) {
+        super("Invalid idempotency key: " + key);
+    }
+}
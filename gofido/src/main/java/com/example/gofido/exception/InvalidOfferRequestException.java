@@ -0,0 +1,16 @@
+package com.example.gofido.exception;
+
+/**
+ * Thrown when an offer request is missing required data, e.g. loans or a personnummer.
+ */
+public class InvalidOfferRequestException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidOfferRequestException with the specified reason.
+     *
+     * @param message what is missing or wrong in the request
+     */
+    public InvalidOfferRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.ArchivedOffer;
+import com.example.gofido.domain.OfferStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Repository for archived offers.
+ * <p>
+ * Besides lookups, provides the set-based copy from the hot table and the
+ * archive's share of the conversion time series and the export.
+ */
+public interface ArchivedOfferRepository extends JpaRepository<ArchivedOffer, UUID> {
+
+    /**
+     * Copy offers from the hot table into the archive with a single INSERT ... SELECT.
+     * <p>
+     * The caller deletes the same rows from {@code offers} in the same transaction.
+     *
+     * @param ids the offers to copy
+     * @param now archiving timestamp stored with each row
+     * @return the number of rows copied
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(nativeQuery = true, value = "insert into offers_archive"
+            + " (id, personnummer, loans_data, manadskostnad, forsakrat_belopp, premie, status,"
+            + " skapad, giltig_till, accepterad_vid, arkiverad)"
+            + " select id, personnummer, loans_data, manadskostnad, forsakrat_belopp, premie, status,"
+            + " skapad, giltig_till, accepterad_vid, :now"
+            + " from offers where id in (:ids)")
+    int copyFromOffers(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Count archived offers per creation hour.
+     *
+     * @return one row per (day, hour) that has archived offers
+     */
+    @Query("select cast(o.skapad as LocalDate) as dag, hour(o.skapad) as timme, count(o) as antal"
+            + " from ArchivedOffer o group by cast(o.skapad as LocalDate), hour(o.skapad)")
+    List<HourlyCount> countCreatedPerHour();
+
+    /**
+     * Count archived accepted offers per acceptance hour.
+     *
+     * @return one row per (day, hour) that has accepted offers
+     */
+    @Query("select cast(o.accepteradVid as LocalDate) as dag, hour(o.accepteradVid) as timme, count(o) as antal"
+            + " from ArchivedOffer o where o.accepteradVid is not null"
+            + " group by cast(o.accepteradVid as LocalDate), hour(o.accepteradVid)")
+    List<HourlyCount> countAcceptedPerHour();
+
+    /**
+     * Count archived accepted offers per creation hour.
+     *
+     * @return one row per (day, hour) whose offers include accepted ones
+     */
+    @Query("select cast(o.skapad as LocalDate) as dag, hour(o.skapad) as timme, count(o) as antal"
+            + " from ArchivedOffer o where o.accepteradVid is not null"
+            + " group by cast(o.skapad as LocalDate), hour(o.skapad)")
+    List<HourlyCount> countConvertedPerCreationHour();
+
+    /**
+     * Stream archived offers for export, optionally filtered.
+     * <p>
+     * Same projection and cursor settings as {@link OfferRepository#streamForExport}.
+     *
+     * @param status only offers with this status, or null for all
+     * @param from   only offers created at or after this time, or null
+     * @param to     only offers created before this time, or null
+     * @return a stream of rows, one per archived offer
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.gofido.repository.OfferExportRow("
+            + " o.id, o.personnummer, o.manadskostnad, o.forsakratBelopp, o.premie,"
+            + " o.status, o.skapad, o.giltigTill, o.accepteradVid, o.loans)"
+            + " from ArchivedOffer o"
+            + " where (:status is null or o.status = :status)"
+            + " and (:from is null or o.skapad >= :from)"
+            + " and (:to is null or o.skapad < :to)"
+            + " order by o.id")
+    Stream<OfferExportRow> streamForExport(@Param("status") OfferStatus status,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+    /**
+     * The archived offers created at one instant, after a given ID, in ID order.
+     * <p>
+     * Continues a listing page from a keyset cursor within the cursor's own
+     * creation time. Equality on {@code skapad} and a range on {@code id} are
+     * both seeks on the {@code (skapad, id)} index, whereas a single
+     * {@code skapad > ? or id > ?} predicate would scan every offer sharing
+     * the cursor's creation time. Ordering by both columns, though
+     * {@code skapad} is fixed, lets H2 read the page in index order. The loans
+     * are not read.
+     *
+     * @param status  only offers with this status, or null for all
+     * @param skapad  creation time of the last offer of the previous page
+     * @param afterId ID of the last offer of the previous page
+     * @param limit   maximum number of rows
+     * @return rows ordered by ID
+     */
+    @Query("select new com.example.gofido.repository.OfferListRow("
+            + " o.id, o.personnummer, o.manadskostnad, o.forsakratBelopp, o.premie,"
+            + " o.status, o.skapad, o.giltigTill, o.accepteradVid)"
+            + " from ArchivedOffer o"
+            + " where o.skapad = :skapad and o.id > :afterId"
+            + " and (:status is null or o.status = :status)"
+            + " order by o.skapad, o.id")
+    List<OfferListRow> findListPageAt(@Param("status") OfferStatus status,
+                                      @Param("skapad") LocalDateTime skapad,
+                                      @Param("afterId") UUID afterId,
+                                      Limit limit);
+
+    /**
+     * One page of archived offers in creation order, from a creation time on.
+     * <p>
+     * Reads the {@code (skapad, id)} index in order from {@code from} and
+     * stops at the limit, so a deep page costs the same as the first. The
+     * loans are not read.
+     *
+     * @param status only offers with this status, or null for all
+     * @param from   only offers created at or after this time
+     * @param to     only offers created before this time
+     * @param limit  maximum number of rows
+     * @return rows ordered by {@code skapad}, then ID
+     */
+    @Query("select new com.example.gofido.repository.OfferListRow("
+            + " o.id, o.personnummer, o.manadskostnad, o.forsakratBelopp, o.premie,"
+            + " o.status, o.skapad, o.giltigTill, o.accepteradVid)"
+            + " from ArchivedOffer o"
+            + " where o.skapad >= :from and o.skapad < :to"
+            + " and (:status is null or o.status = :status)"
+            + " order by o.skapad, o.id")
+    List<OfferListRow> findListPage(@Param("status") OfferStatus status,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    Limit limit);
+
+    /**
+     * Loans of the given archived offers, read in one query for a whole listing page.
+     *
+     * @param ids IDs of the offers
+     * @return one row per offer found
+     */
+    @Query("select new com.example.gofido.repository.OfferLoansRow(o.id, o.loans)"
+            + " from ArchivedOffer o where o.id in :ids")
+    List<OfferLoansRow> findLoansByIdIn(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,27 @@
+package com.example.gofido.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of an aggregated count of offers for one clock hour.
+ * <p>
+ * Returned by the grouped queries in {@link OfferRepository} that are used to
+ * rebuild the in-memory conversion time series at startup.
+ */
+public interface HourlyCount {
+
+    /**
+     * @return the calendar day of the bucket
+     */
+    LocalDate getDag();
+
+    /**
+     * @return the hour of day (0-23) of the bucket
+     */
+    Integer getTimme();
+
+    /**
+     * @return the number of offers in the bucket
+     */
+    Long getAntal();
+}
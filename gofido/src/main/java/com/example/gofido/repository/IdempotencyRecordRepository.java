@@ -0,0 +1,73 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for the stored outcomes of requests sent with an idempotency key.
+ * <p>
+ * Keys are claimed with a plain INSERT before the request runs, so the
+ * primary key serializes concurrent requests with the same key: the second
+ * INSERT waits for the first transaction and fails once it commits.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claim a key for a request about to run; the response is filled in by
+     * {@link #complete} in the same transaction.
+     *
+     * @param key         the idempotency key
+     * @param requestHash hash of the operation and request body
+     * @param created     current time
+     * @param expiresAt   when the key may be used again
+     * @return 1
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is
+     *                                                                  already recorded
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "insert into idempotency_keys (idempotency_key, request_hash, created, expires_at)"
+            + " values (:key, :requestHash, :created, :expiresAt)", nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") byte[] requestHash,
+              @Param("created") LocalDateTime created,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Store the response of a claimed key.
+     *
+     * @param key      the idempotency key
+     * @param response the response as JSON
+     * @return the number of rows updated
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update IdempotencyRecord r set r.response = :response where r.key = :key")
+    int complete(@Param("key") String key, @Param("response") String response);
+
+    /**
+     * Delete one key if it has expired, so it can be claimed again.
+     *
+     * @param key the idempotency key
+     * @param now current time
+     * @return the number of rows deleted
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    /**
+     * Delete up to {@code limit} expired keys, read from the {@code expires_at} index.
+     *
+     * @param now   current time
+     * @param limit maximum number of rows deleted
+     * @return the number of rows deleted
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "delete from idempotency_keys where expires_at <= :now fetch first :limit rows only",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
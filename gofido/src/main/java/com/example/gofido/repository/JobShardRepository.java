@@ -0,0 +1,74 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.JobShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for the shards of sharded job runs.
+ */
+public interface JobShardRepository extends JpaRepository<JobShard, String> {
+
+    /**
+     * Fetch the shards of a run in shard order.
+     *
+     * @param run the run, e.g. {@code anonymization@2025-01-01T00:00}
+     * @return the run's shards, empty if it has not been planned yet
+     */
+    List<JobShard> findByRunOrderByShard(String run);
+
+    /**
+     * Fetch the shards of a run that still have work left, in shard order.
+     *
+     * @param run the run
+     * @return the run's unfinished shards
+     */
+    List<JobShard> findByRunAndDoneFalseOrderByShard(String run);
+
+    /**
+     * Record a committed chunk of a shard.
+     *
+     * @param id        the shard
+     * @param cursorId  ID of the last offer in the chunk
+     * @param processed offers processed in the chunk
+     * @param owner     node ID of the instance that processed it
+     * @return the number of rows updated
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update JobShard s set s.cursorId = :cursor, s.processed = s.processed + :processed, s.owner = :owner"
+            + " where s.id = :id")
+    int checkpoint(@Param("id") String id, @Param("cursor") UUID cursorId,
+                   @Param("processed") long processed, @Param("owner") String owner);
+
+    /**
+     * Mark a shard as completed.
+     *
+     * @param id         the shard
+     * @param owner      node ID of the instance that completed it
+     * @param finishedAt completion time
+     * @return the number of rows updated
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update JobShard s set s.done = true, s.owner = :owner, s.finishedAt = :finishedAt where s.id = :id")
+    int complete(@Param("id") String id, @Param("owner") String owner, @Param("finishedAt") LocalDateTime finishedAt);
+
+    /**
+     * Delete the shards of every other run of the same job.
+     * <p>
+     * A new run covers every ID the earlier ones had left, so their shards are
+     * no longer needed, finished or not.
+     *
+     * @param job the job name
+     * @param run the run to keep
+     * @return the number of rows deleted
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from JobShard s where s.run like concat(:job, '@%') and s.run <> :run")
+    int deleteOtherRuns(@Param("job") String job, @Param("run") String run);
+}
@@ -0,0 +1,20 @@
+package com.example.gofido.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * ID and expiry of an open offer, as loaded into the expiry timer.
+ */
+public interface OfferDeadline {
+
+    /**
+     * @return the offer's ID
+     */
+    UUID getId();
+
+    /**
+     * @return the time the offer's validity ends
+     */
+    LocalDateTime getGiltigTill();
+}
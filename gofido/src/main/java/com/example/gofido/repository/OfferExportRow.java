@@ -0,0 +1,28 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.OfferStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Projection of one offer with its loans.
+ * <p>
+ * Streamed by {@link OfferRepository#streamForExport} in offer ID order without
+ * loading managed entities; loans are decoded from the offer row's own column.
+ */
+public record OfferExportRow(
+        UUID id,
+        String personnummer,
+        BigDecimal manadskostnad,
+        BigDecimal forsakratBelopp,
+        BigDecimal premie,
+        OfferStatus status,
+        LocalDateTime skapad,
+        LocalDateTime giltigTill,
+        LocalDateTime accepteradVid,
+        List<Loan> loans) {
+}
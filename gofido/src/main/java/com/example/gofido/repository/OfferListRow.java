@@ -0,0 +1,27 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.OfferStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection of one offer without its loans.
+ * <p>
+ * Returned by the listing queries of {@link OfferRepository} and
+ * {@link ArchivedOfferRepository}; the loans column, the largest in the row,
+ * is neither read nor decoded. Loans are read separately with
+ * {@link OfferLoansRow} when asked for.
+ */
+public record OfferListRow(
+        UUID id,
+        String personnummer,
+        BigDecimal manadskostnad,
+        BigDecimal forsakratBelopp,
+        BigDecimal premie,
+        OfferStatus status,
+        LocalDateTime skapad,
+        LocalDateTime giltigTill,
+        LocalDateTime accepteradVid) {
+}
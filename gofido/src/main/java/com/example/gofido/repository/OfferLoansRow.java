@@ -0,0 +1,18 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.Loan;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Projection of one offer's loans.
+ * <p>
+ * Returned by {@link OfferRepository#findLoansByIdIn} and
+ * {@link ArchivedOfferRepository#findLoansByIdIn} when a listing page asks
+ * for its offers' loans.
+ */
+public record OfferLoansRow(
+        UUID id,
+        List<Loan> loans) {
+}
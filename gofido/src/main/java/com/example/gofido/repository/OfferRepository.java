@@ -2,9 +2,22 @@ package com.example.gofido.repository;
 
 import com.example.gofido.domain.Offer;
 import com.example.gofido.domain.OfferStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Offer entities.
@@ -12,7 +25,21 @@ import java.time.LocalDateTime;
  * Extends Spring Data JPA's JpaRepository to provide CRUD operations,
  * as well as custom query methods for statistical reporting and business logic.
  */
-public interface OfferRepository extends JpaRepository<Offer, String> {
+public interface OfferRepository extends JpaRepository<Offer, UUID> {
+
+    /**
+     * Count all and accepted offers over the hot table and the archive.
+     * <p>
+     * A single statement, so an archiving chunk that commits meanwhile is seen
+     * either before or after the move, never half-way and counted twice.
+     *
+     * @return total and accepted counts over both tiers
+     */
+    @Query(nativeQuery = true, value = "select"
+            + " (select count(*) from offers) + (select count(*) from offers_archive) as total,"
+            + " (select count(*) from offers where status = 'TECKNAD')"
+            + " + (select count(*) from offers_archive where status = 'TECKNAD') as accepted")
+    TierCounts countAllTiers();
 
     /**
      * Count how many offers exist with the given status.
@@ -33,4 +60,312 @@ public interface OfferRepository extends JpaRepository<Offer, String> {
      * @return the count of accepted offers before the specified time
      */
     long countByStatusAndAccepteradVidBefore(OfferStatus status, LocalDateTime before);
+
+    /**
+     * Fetch the next chunk of offer IDs that are due for expiry and anonymization.
+     * <p>
+     * Uses keyset pagination on the ID so each chunk is a bounded index range scan
+     * on (status, giltigTill) instead of loading whole entities into memory.
+     * The returned rows are locked until the transaction ends, so an offer
+     * accepted concurrently is either skipped here or waits and then finds it
+     * expired; the chunk's UPDATE then matches exactly the returned IDs.
+     *
+     * @param status the status to filter by (should be SKAPAD)
+     * @param now    cutoff; only offers whose giltigTill is before this are returned
+     * @param after  last ID of the previous chunk, or the lower bound of the range for the first chunk
+     * @param upTo   inclusive upper bound of the range
+     * @param limit  maximum number of IDs to return
+     * @return the IDs of offers still open past their validity, ordered by ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.id from Offer o"
+            + " where o.status = :status and o.giltigTill < :now"
+            + " and o.id > :after and o.id <= :upTo"
+            + " order by o.id")
+    List<UUID> findAnonymizationCandidates(@Param("status") OfferStatus status,
+                                             @Param("now") LocalDateTime now,
+                                             @Param("after") UUID after,
+                                             @Param("upTo") UUID upTo,
+                                             Limit limit);
+
+    /**
+     * Count the offers still open past their validity, to size the shards of an anonymization run.
+     *
+     * @param now cutoff; only offers whose giltigTill is before this are counted
+     * @return the number of SKAPAD offers whose giltigTill is before {@code now}
+     */
+    @Query("select count(o) from Offer o"
+            + " where o.status = com.example.gofido.domain.OfferStatus.SKAPAD and o.giltigTill < :now")
+    long countAnonymizationCandidates(@Param("now") LocalDateTime now);
+
+    /**
+     * Split the IDs of offers still open past their validity into {@code shards}
+     * consecutive groups of about equal size, in ID order, and return the last
+     * ID of each group; these are the upper bounds of an anonymization run's shards.
+     * <p>
+     * One statement: the candidates are read and sorted once, whatever the
+     * number of shards.
+     *
+     * @param now    cutoff; only offers whose giltigTill is before this are considered
+     * @param shards number of groups
+     * @return the last ID of each group in ID order; fewer than {@code shards}
+     *         if there are fewer candidates
+     */
+    @Query("select max(t.id) from ("
+            + " select o.id as id, ntile(:shards) over (order by o.id) as tile from Offer o"
+            + " where o.status = com.example.gofido.domain.OfferStatus.SKAPAD and o.giltigTill < :now"
+            + ") t group by t.tile order by t.tile")
+    List<UUID> findAnonymizationShardBounds(@Param("now") LocalDateTime now, @Param("shards") int shards);
+
+    /**
+     * Accept an offer in a single conditional UPDATE.
+     * <p>
+     * Only matches an offer that is still SKAPAD and whose validity has not
+     * passed, and bumps the version so concurrent load-modify-save writers fail
+     * their optimistic lock check.
+     *
+     * @param id  the unique identifier of the offer to accept
+     * @param now acceptance timestamp; must be before giltigTill
+     * @return 1 if the offer was accepted, 0 if it was missing, not open or expired
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Offer o set o.status = com.example.gofido.domain.OfferStatus.TECKNAD,"
+            + " o.accepteradVid = :now, o.version = o.version + 1"
+            + " where o.id = :id and o.status = com.example.gofido.domain.OfferStatus.SKAPAD"
+            + " and o.giltigTill > :now")
+    int acceptIfOpen(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    /**
+     * Find a customer's open offers, newest first.
+     * <p>
+     * Matches on the keyed personnummer hash, so the lookup is a range scan on
+     * (personnummer_hash, status, giltig_till) and the plaintext personnummer is never indexed.
+     *
+     * @param hash keyed hash of the customer's personnummer
+     * @param now  only offers whose giltigTill is after this are returned
+     * @return the customer's SKAPAD offers that are still valid
+     */
+    @Query("select o from Offer o where o.personnummerHash = :hash"
+            + " and o.status = com.example.gofido.domain.OfferStatus.SKAPAD and o.giltigTill > :now"
+            + " order by o.skapad desc")
+    List<Offer> findOpenByPersonnummerHash(@Param("hash") byte[] hash, @Param("now") LocalDateTime now);
+
+    /**
+     * Fetch the open offers, out of the given ones, whose validity has passed.
+     * <p>
+     * Used by the expiry timer to re-check its deadlines against the database,
+     * since an offer may have been accepted or archived after it was scheduled.
+     * The returned rows are locked until the transaction ends, so none of them
+     * can be accepted before the caller expires them.
+     *
+     * @param ids the offers whose deadline has passed according to the timer
+     * @param now only offers whose giltigTill is at or before this are returned
+     * @return the IDs of the offers that are still SKAPAD and expired
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.id from Offer o where o.id in :ids"
+            + " and o.status = com.example.gofido.domain.OfferStatus.SKAPAD and o.giltigTill <= :now")
+    List<UUID> findExpiredAmong(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Mark the given offers UTGÅNGEN and clear their personnummer and its hash
+     * in a single bulk UPDATE.
+     * <p>
+     * Only matches offers that are still SKAPAD, and bumps the version so a
+     * concurrent load-modify-save writer fails its optimistic lock check.
+     *
+     * @param ids the IDs of the offers to expire
+     * @return the number of rows updated
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Offer o set o.status = com.example.gofido.domain.OfferStatus.UTGÅNGEN,"
+            + " o.personnummer = null, o.personnummerHash = null, o.version = o.version + 1"
+            + " where o.id in :ids and o.status = com.example.gofido.domain.OfferStatus.SKAPAD")
+    int expireIfOpen(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Fetch the deadlines of open offers expiring within a window, for the expiry timer.
+     * <p>
+     * A range scan on (status, giltig_till) reading only the two projected columns.
+     *
+     * @param after only offers whose giltigTill is after this are returned
+     * @param until only offers whose giltigTill is at or before this are returned
+     * @return ID and giltigTill of every SKAPAD offer in the window
+     */
+    @Query("select o.id as id, o.giltigTill as giltigTill from Offer o"
+            + " where o.status = com.example.gofido.domain.OfferStatus.SKAPAD"
+            + " and o.giltigTill > :after and o.giltigTill <= :until")
+    List<OfferDeadline> findOpenDeadlines(@Param("after") LocalDateTime after, @Param("until") LocalDateTime until);
+
+    /**
+     * Fetch the deadlines of all open offers expiring up to a point in time,
+     * including those already overdue. Used once when the expiry timer starts.
+     *
+     * @param until only offers whose giltigTill is at or before this are returned
+     * @return ID and giltigTill of every SKAPAD offer up to {@code until}
+     */
+    @Query("select o.id as id, o.giltigTill as giltigTill from Offer o"
+            + " where o.status = com.example.gofido.domain.OfferStatus.SKAPAD and o.giltigTill <= :until")
+    List<OfferDeadline> findOpenDeadlinesUntil(@Param("until") LocalDateTime until);
+
+    /**
+     * Fetch offers accepted before a cutoff, which will never be written again.
+     * <p>
+     * A range scan on (status, accepterad_vid); no keyset is needed since the
+     * archiving job deletes each chunk before fetching the next.
+     *
+     * @param before only offers accepted before this time are returned
+     * @param limit  maximum number of IDs to return
+     * @return the IDs of accepted offers due for archiving
+     */
+    @Query("select o.id from Offer o"
+            + " where o.status = com.example.gofido.domain.OfferStatus.TECKNAD and o.accepteradVid < :before")
+    List<UUID> findAcceptedBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    /**
+     * Fetch expired (UTGÅNGEN) offers, which are anonymized and will never be written again.
+     * <p>
+     * A range scan on (status, giltig_till). Open offers past their validity
+     * are left until the expiry timer or the nightly job has expired them.
+     *
+     * @param before only offers whose validity ended before this time are returned
+     * @param limit  maximum number of IDs to return
+     * @return the IDs of expired offers due for archiving
+     */
+    @Query("select o.id from Offer o"
+            + " where o.status = com.example.gofido.domain.OfferStatus.UTGÅNGEN and o.giltigTill < :before")
+    List<UUID> findExpiredBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    /**
+     * Delete the given offers with a single bulk DELETE.
+     *
+     * @param ids the IDs of the offers to delete
+     * @return the number of rows deleted
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from Offer o where o.id in :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Count offers per creation hour.
+     * <p>
+     * Used once at startup to rebuild the conversion time series.
+     *
+     * @return one row per (day, hour) that has offers
+     */
+    @Query("select cast(o.skapad as LocalDate) as dag, hour(o.skapad) as timme, count(o) as antal"
+            + " from Offer o group by cast(o.skapad as LocalDate), hour(o.skapad)")
+    List<HourlyCount> countCreatedPerHour();
+
+    /**
+     * Count accepted offers per acceptance hour.
+     *
+     * @return one row per (day, hour) that has accepted offers
+     */
+    @Query("select cast(o.accepteradVid as LocalDate) as dag, hour(o.accepteradVid) as timme, count(o) as antal"
+            + " from Offer o where o.accepteradVid is not null"
+            + " group by cast(o.accepteradVid as LocalDate), hour(o.accepteradVid)")
+    List<HourlyCount> countAcceptedPerHour();
+
+    /**
+     * Count accepted offers per creation hour, i.e. conversion per creation cohort.
+     *
+     * @return one row per (day, hour) whose offers include accepted ones
+     */
+    @Query("select cast(o.skapad as LocalDate) as dag, hour(o.skapad) as timme, count(o) as antal"
+            + " from Offer o where o.accepteradVid is not null"
+            + " group by cast(o.skapad as LocalDate), hour(o.skapad)")
+    List<HourlyCount> countConvertedPerCreationHour();
+
+    /**
+     * Stream offers with their loans for export, optionally filtered.
+     * <p>
+     * Returns projection rows ordered by offer ID through a forward-only
+     * cursor with a fixed fetch size, so memory stays flat regardless of table
+     * size. Must be consumed inside a transaction and closed afterwards.
+     *
+     * @param status only offers with this status, or null for all
+     * @param from   only offers created at or after this time, or null
+     * @param to     only offers created before this time, or null
+     * @return a stream of rows, one per offer
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.gofido.repository.OfferExportRow("
+            + " o.id, o.personnummer, o.manadskostnad, o.forsakratBelopp, o.premie,"
+            + " o.status, o.skapad, o.giltigTill, o.accepteradVid, o.loans)"
+            + " from Offer o"
+            + " where (:status is null or o.status = :status)"
+            + " and (:from is null or o.skapad >= :from)"
+            + " and (:to is null or o.skapad < :to)"
+            + " order by o.id")
+    Stream<OfferExportRow> streamForExport(@Param("status") OfferStatus status,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+    /**
+     * The offers created at one instant, after a given ID, in ID order.
+     * <p>
+     * Continues a listing page from a keyset cursor within the cursor's own
+     * creation time. Equality on {@code skapad} and a range on {@code id} are
+     * both seeks on the {@code (skapad, id)} index, whereas a single
+     * {@code skapad > ? or id > ?} predicate would scan every offer sharing
+     * the cursor's creation time. Ordering by both columns, though
+     * {@code skapad} is fixed, lets H2 read the page in index order. The loans
+     * are not read.
+     *
+     * @param status  only offers with this status, or null for all
+     * @param skapad  creation time of the last offer of the previous page
+     * @param afterId ID of the last offer of the previous page
+     * @param limit   maximum number of rows
+     * @return rows ordered by ID
+     */
+    @Query("select new com.example.gofido.repository.OfferListRow("
+            + " o.id, o.personnummer, o.manadskostnad, o.forsakratBelopp, o.premie,"
+            + " o.status, o.skapad, o.giltigTill, o.accepteradVid)"
+            + " from Offer o"
+            + " where o.skapad = :skapad and o.id > :afterId"
+            + " and (:status is null or o.status = :status)"
+            + " order by o.skapad, o.id")
+    List<OfferListRow> findListPageAt(@Param("status") OfferStatus status,
+                                      @Param("skapad") LocalDateTime skapad,
+                                      @Param("afterId") UUID afterId,
+                                      Limit limit);
+
+    /**
+     * One page of offers in creation order, from a creation time on.
+     * <p>
+     * Reads the {@code (skapad, id)} index in order from {@code from} and
+     * stops at the limit, so a deep page costs the same as the first. The
+     * loans are not read.
+     *
+     * @param status only offers with this status, or null for all
+     * @param from   only offers created at or after this time
+     * @param to     only offers created before this time
+     * @param limit  maximum number of rows
+     * @return rows ordered by {@code skapad}, then ID
+     */
+    @Query("select new com.example.gofido.repository.OfferListRow("
+            + " o.id, o.personnummer, o.manadskostnad, o.forsakratBelopp, o.premie,"
+            + " o.status, o.skapad, o.giltigTill, o.accepteradVid)"
+            + " from Offer o"
+            + " where o.skapad >= :from and o.skapad < :to"
+            + " and (:status is null or o.status = :status)"
+            + " order by o.skapad, o.id")
+    List<OfferListRow> findListPage(@Param("status") OfferStatus status,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    Limit limit);
+
+    /**
+     * Loans of the given offers, read in one query for a whole listing page.
+     *
+     * @param ids IDs of the offers
+     * @return one row per offer found
+     */
+    @Query("select new com.example.gofido.repository.OfferLoansRow(o.id, o.loans)"
+            + " from Offer o where o.id in :ids")
+    List<OfferLoansRow> findLoansByIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -0,0 +1,22 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for pending outbox events.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    /**
+     * Oldest pending events, in publishing order.
+     *
+     * @param limit maximum number of events to return
+     * @return up to {@code limit} events ordered by ID
+     */
+    List<OutboxEvent> findByOrderByIdAsc(Limit limit);
+}
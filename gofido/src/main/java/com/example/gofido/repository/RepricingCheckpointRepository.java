@@ -0,0 +1,10 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.RepricingCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository for the checkpoints of the bulk re-pricing job.
+ */
+public interface RepricingCheckpointRepository extends JpaRepository<RepricingCheckpoint, String> {
+}
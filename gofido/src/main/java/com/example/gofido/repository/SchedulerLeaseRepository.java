@@ -0,0 +1,99 @@
+package com.example.gofido.repository;
+
+import com.example.gofido.domain.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for the leases that coordinate scheduled work across instances.
+ * <p>
+ * Expiry is computed and compared on the database clock, so the statements
+ * are native SQL.
+ */
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Take over or renew a lease in a single conditional UPDATE.
+     * <p>
+     * Only matches a lease held by the same owner or one that has lapsed, so of
+     * several instances racing for a lapsed lease exactly one wins.
+     *
+     * @param name      name of the lease
+     * @param owner     node ID of the claiming instance
+     * @param ttlMillis how long the lease is valid from now, in milliseconds
+     * @return 1 if the lease is now held by {@code owner}, 0 otherwise
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "update scheduler_leases set owner = :owner,"
+            + " expires_at = dateadd(millisecond, :ttl, localtimestamp)"
+            + " where name = :name and (owner = :owner or expires_at < localtimestamp)", nativeQuery = true)
+    int takeOver(@Param("name") String name, @Param("owner") String owner, @Param("ttl") long ttlMillis);
+
+    /**
+     * Renew a lease only if the given owner still holds it, lapsed or not.
+     * <p>
+     * Unlike {@link #takeOver}, never claims a lease another instance has
+     * taken, and locks the lease row until the transaction ends, so writes
+     * made in the same transaction are fenced by ownership.
+     *
+     * @param name      name of the lease
+     * @param owner     node ID of the renewing instance
+     * @param ttlMillis how long the lease is valid from now, in milliseconds
+     * @return 1 if the lease was renewed, 0 if another instance holds it
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "update scheduler_leases set expires_at = dateadd(millisecond, :ttl, localtimestamp)"
+            + " where name = :name and owner = :owner", nativeQuery = true)
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("ttl") long ttlMillis);
+
+    /**
+     * Create a lease that has never been held, unless it already exists.
+     *
+     * @param name      name of the lease
+     * @param owner     node ID of the claiming instance
+     * @param ttlMillis how long the lease is valid from now, in milliseconds
+     * @return 1 if the lease was created, 0 if it already existed
+     * @throws org.springframework.dao.DataIntegrityViolationException if another instance
+     *                                                                  created it concurrently
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "insert into scheduler_leases (name, owner, expires_at)"
+            + " select :name, :owner, dateadd(millisecond, :ttl, localtimestamp)"
+            + " where not exists (select 1 from scheduler_leases where name = :name)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("owner") String owner, @Param("ttl") long ttlMillis);
+
+    /**
+     * Let a lease lapse at once, if still held by the given owner. The row is
+     * kept, so the next claim is an UPDATE rather than a racing INSERT.
+     *
+     * @param name  name of the lease
+     * @param owner node ID of the releasing instance
+     * @return the number of rows updated
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "update scheduler_leases set expires_at = dateadd(millisecond, -1, localtimestamp)"
+            + " where name = :name and owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    /**
+     * Delete every lease whose name starts with a prefix.
+     *
+     * @param prefix name prefix, e.g. {@code anonymization@}
+     * @return the number of rows deleted
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from SchedulerLease l where l.name like concat(:prefix, '%')")
+    int deleteByNamePrefix(@Param("prefix") String prefix);
+
+    /**
+     * Current time on the database clock, which every instance agrees on.
+     *
+     * @return the database's local timestamp
+     */
+    @Query(value = "select localtimestamp", nativeQuery = true)
+    LocalDateTime databaseTime();
+}
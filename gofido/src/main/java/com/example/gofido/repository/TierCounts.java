@@ -0,0 +1,17 @@
+package com.example.gofido.repository;
+
+/**
+ * Offer counts summed over the hot {@code offers} table and the archive.
+ */
+public interface TierCounts {
+
+    /**
+     * @return the number of offers ever created and not deleted
+     */
+    long getTotal();
+
+    /**
+     * @return the number of accepted (TECKNAD) offers
+     */
+    long getAccepted();
+}
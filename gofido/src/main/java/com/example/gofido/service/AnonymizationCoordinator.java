@@ -0,0 +1,264 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.JobShard;
+import com.example.gofido.repository.JobShardRepository;
+import com.example.gofido.repository.OfferRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the nightly anonymization job across every instance sharing the database.
+ * <p>
+ * Every instance starts the job at the same cron time. They agree on a run key
+ * from the database clock rounded to the minute. The first instance to lease
+ * the job splits the offer IDs due for anonymization into up to
+ * {@code offer.cluster.shards} ID ranges of about equal size and stores them
+ * as {@link JobShard} rows. Every instance then claims shards through
+ * per-shard leases and processes them in parallel, renewing the lease and
+ * checkpointing the cursor in one transaction after each chunk. A shard whose owner crashes is
+ * taken over, from its last checkpoint, once its lease lapses, so instances
+ * stay until every shard of the run is done.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor // Constructor injection of repositories, leases, anonymization and transaction template
+public class AnonymizationCoordinator {
+
+    /**
+     * Job name, the prefix of every run key and shard lease.
+     */
+    static final String JOB = "anonymization";
+
+    /**
+     * Repository used to size and split the run.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Repository holding the shards of each run.
+     */
+    private final JobShardRepository shards;
+
+    /**
+     * Leases on the run plan and on each shard.
+     */
+    private final LeaseService leases;
+
+    /**
+     * Service that expires and anonymizes the offers of one shard.
+     */
+    private final AnonymizationService anonymization;
+
+    /**
+     * Template used to store the plan and each checkpoint.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Maximum number of shards per run.
+     */
+    @Value("${offer.cluster.shards:8}")
+    private int maxShards;
+
+    /**
+     * Offers per anonymization chunk; a shard is never planned smaller than one chunk.
+     */
+    @Value("${offer.anonymization.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * How long a lease is valid without renewal; must exceed the duration of one chunk.
+     */
+    @Value("${offer.cluster.lease-ttl:PT30S}")
+    private Duration leaseTtl;
+
+    /**
+     * Wait between checks while the plan or the remaining shards are held by other instances.
+     */
+    @Value("${offer.cluster.poll-interval:PT1S}")
+    private Duration pollInterval;
+
+    /**
+     * Take part in the run due at {@code now} until every shard is done.
+     *
+     * @param now time the run is for; rounded to the minute, it is the cutoff
+     *            and identifies the run, so it should come from the database clock
+     * @return a report of the offers expired, chunks processed and time spent by this instance
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    public AnonymizationReport anonymizeExpiredOffers(LocalDateTime now) {
+        long start = System.nanoTime();
+        // Instances whose cron fired a little early or late still agree on the run
+        LocalDateTime cutoff = now.plusSeconds(30).truncatedTo(ChronoUnit.MINUTES);
+        String run = JOB + "@" + cutoff;
+        awaitPlan(run, cutoff);
+
+        long rows = 0;
+        int chunks = 0;
+        int processedShards = 0;
+        while (true) {
+            JobShard shard = claim(run);
+            if (shard != null) {
+                AnonymizationReport r = process(shard, cutoff);
+                rows += r.getRows();
+                chunks += r.getChunks();
+                processedShards++;
+            } else if (shards.findByRunAndDoneFalseOrderByShard(run).isEmpty()) {
+                break;
+            } else {
+                // The rest is held by other instances; wait in case one of them crashes
+                pause();
+            }
+        }
+
+        log.debug("Node {} processed {} shard(s) of {}", leases.getNodeId(), processedShards, run);
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        return new AnonymizationReport(rows, chunks, durationMillis);
+    }
+
+    /**
+     * Wait until the run has been planned, planning it if this instance wins the job's lease.
+     */
+    private void awaitPlan(String run, LocalDateTime cutoff) {
+        while (shards.findByRunOrderByShard(run).isEmpty()) {
+            if (leases.tryAcquire(JOB, leaseTtl)) {
+                try {
+                    // Another node may have planned the run just before releasing the lease
+                    if (shards.findByRunOrderByShard(run).isEmpty()) {
+                        plan(run, cutoff);
+                    }
+                } finally {
+                    leases.release(JOB);
+                }
+                return;
+            }
+            pause();
+        }
+    }
+
+    /**
+     * Split the IDs due for anonymization into shards of about equal size.
+     * <p>
+     * Boundaries are taken from the candidates at planning time, in a single
+     * pass over them. The first and last shard are open-ended, so offers that
+     * become due while the run is planned are still covered.
+     */
+    private void plan(String run, LocalDateTime cutoff) {
+        long candidates = repo.countAnonymizationCandidates(cutoff);
+        int n = (int) Math.max(1, Math.min(maxShards, (candidates + chunkSize - 1) / chunkSize));
+
+        List<UUID> bounds = new ArrayList<>(n + 1);
+        bounds.add(AnonymizationService.FIRST);
+        if (n > 1) {
+            // The last ID of every group but the final one ends a shard
+            List<UUID> ends = repo.findAnonymizationShardBounds(cutoff, n);
+            for (int k = 0; k < n - 1; k++) {
+                bounds.add(k < ends.size() - 1 ? ends.get(k) : bounds.get(bounds.size() - 1));
+            }
+        }
+        bounds.add(AnonymizationService.LAST);
+
+        // Create the shard leases up front, so nodes racing for a shard only ever update its lease
+        List<String> ids = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            ids.add(run + "#" + k);
+        }
+        leases.replace(JOB + "@", ids);
+
+        tx.executeWithoutResult(status -> {
+            shards.deleteOtherRuns(JOB, run);
+            for (int k = 0; k < n; k++) {
+                JobShard s = new JobShard();
+                s.setId(ids.get(k));
+                s.setRun(run);
+                s.setShard(k);
+                s.setFromId(bounds.get(k));
+                s.setToId(bounds.get(k + 1));
+                shards.save(s);
+            }
+        });
+        log.info("Planned {} with {} shard(s) over {} offers", run, n, candidates);
+    }
+
+    /**
+     * Lease the first unfinished shard no other instance holds.
+     *
+     * @return the claimed shard as last committed, or null if none is free
+     */
+    private JobShard claim(String run) {
+        for (JobShard s : shards.findByRunAndDoneFalseOrderByShard(run)) {
+            if (leases.tryAcquire(s.getId(), leaseTtl)) {
+                // Re-read; the previous holder may have finished it meanwhile
+                JobShard current = shards.findById(s.getId()).orElse(null);
+                if (current != null && !current.isDone()) {
+                    return current;
+                }
+                leases.release(s.getId());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Process a claimed shard from its cursor, checkpointing every chunk, and
+     * complete it.
+     * <p>
+     * Each checkpoint and the completion renew the shard's lease in their own
+     * transaction and are written only if this instance still holds it, so a
+     * node that stalled past its lease cannot move the cursor of, or finish,
+     * a shard another node has taken over.
+     */
+    private AnonymizationReport process(JobShard shard, LocalDateTime cutoff) {
+        String id = shard.getId();
+        String node = leases.getNodeId();
+        boolean[] lost = new boolean[1];
+        UUID after = shard.getCursorId() != null ? shard.getCursorId() : shard.getFromId();
+
+        AnonymizationReport report = anonymization.anonymizeRange(cutoff, after, shard.getToId(), (lastId, rows) -> {
+            // Stop if another instance has taken the shard over meanwhile
+            lost[0] = !whileHeld(id, () -> shards.checkpoint(id, lastId, rows, node));
+            return !lost[0];
+        });
+
+        if (!lost[0]) {
+            lost[0] = !whileHeld(id, () -> shards.complete(id, node, LocalDateTime.now()));
+        }
+        if (lost[0]) {
+            log.warn("Lost the lease on {} to another node; leaving the shard to it", id);
+        } else {
+            leases.release(id);
+        }
+        return report;
+    }
+
+    /**
+     * Renew a shard's lease and, if this instance still holds it, run an
+     * update of the shard in the same transaction.
+     *
+     * @return true if the lease was renewed and the update matched the shard
+     */
+    private boolean whileHeld(String id, IntSupplier update) {
+        return Boolean.TRUE.equals(tx.execute(status ->
+                leases.renewWithin(id, leaseTtl) && update.getAsInt() == 1));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for other nodes", e);
+        }
+    }
+}
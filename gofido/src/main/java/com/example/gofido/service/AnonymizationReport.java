@@ -0,0 +1,39 @@
+package com.example.gofido.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Summary of a single anonymization run.
+ * <p>
+ * Returned by {@link AnonymizationService} so the scheduler can log how much
+ * work was done and how fast it went.
+ */
+@Data
+@AllArgsConstructor
+public class AnonymizationReport {
+
+    /**
+     * Number of offers whose personnummer was cleared.
+     */
+    private long rows;
+
+    /**
+     * Number of chunks (transactions) that were executed.
+     */
+    private int chunks;
+
+    /**
+     * Wall-clock duration of the run in milliseconds.
+     */
+    private long durationMillis;
+
+    /**
+     * Throughput of the run; a run shorter than a millisecond counts as one.
+     *
+     * @return anonymized rows per second, or 0 if nothing was processed
+     */
+    public double getRowsPerSecond() {
+        return rows == 0 ? 0 : rows * 1000.0 / Math.max(durationMillis, 1);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.repository.OfferRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service that expires offers past their validity and anonymizes them for GDPR compliance.
+ * <p>
+ * An expired offer is marked UTGÅNGEN and its personnummer cleared in the same
+ * bulk UPDATE. The {@link OfferExpiryService} timer calls {@link #expire} as
+ * deadlines pass; the nightly {@link #anonymizeExpiredOffers} run is a safety
+ * net that catches whatever the timer missed, e.g. while the application was
+ * down. Candidates are located with an indexed query on status and giltigTill
+ * and processed in fixed-size chunks, each in its own transaction, so a run
+ * never holds locks across the whole table and never loads full entities into memory.
+ */
+@Service
+@RequiredArgsConstructor // Constructor injection of repository, transaction template, cache, outbox and event stream
+public class AnonymizationService {
+
+    /**
+     * JPA repository used for the candidate lookups and the bulk update.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Template used to commit each chunk in its own transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Offer cache, so expired offers and their cleared personnummer are never served stale.
+     */
+    private final OfferCache offerCache;
+
+    /**
+     * Transactional outbox the expiries are recorded in.
+     */
+    private final OutboxService outbox;
+
+    /**
+     * Live event stream the expiries are published to after commit.
+     */
+    private final OfferEventStream events;
+
+    /**
+     * Keyset start below every real ID; databases order UUIDs as unsigned bytes.
+     */
+    static final UUID FIRST = new UUID(0L, 0L);
+
+    /**
+     * Inclusive upper bound at or above every real ID.
+     */
+    static final UUID LAST = new UUID(-1L, -1L);
+
+    /**
+     * Maximum number of offers expired per chunk of the nightly run, injected from configuration.
+     */
+    @Value("${offer.anonymization.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Expire every SKAPAD offer whose validity ended before {@code now}.
+     *
+     * @param now cutoff timestamp; offers with giltigTill before this are expired and anonymized
+     * @return a report with row count, chunk count and duration of the run
+     */
+    public AnonymizationReport anonymizeExpiredOffers(LocalDateTime now) {
+        return anonymizeRange(now, FIRST, LAST, (lastId, rows) -> true);
+    }
+
+    /**
+     * Expire every SKAPAD offer in an ID range whose validity ended before {@code now}.
+     * <p>
+     * Walks the candidates in ID order, one chunk per transaction, until a chunk
+     * comes back smaller than the chunk size or the callback asks to stop.
+     *
+     * @param now     cutoff timestamp; offers with giltigTill before this are expired and anonymized
+     * @param after   exclusive lower bound of the range
+     * @param upTo    inclusive upper bound of the range
+     * @param onChunk called after each chunk commits
+     * @return a report with row count, chunk count and duration of the run
+     */
+    public AnonymizationReport anonymizeRange(LocalDateTime now, UUID after, UUID upTo, ChunkCallback onChunk) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+
+        while (true) {
+            // Find and expire the next chunk in a single short transaction
+            UUID cursor = after;
+            Chunk chunk = tx.execute(status -> {
+                List<UUID> ids = repo.findAnonymizationCandidates(
+                        OfferStatus.SKAPAD, now, cursor, upTo, Limit.of(chunkSize));
+                return new Chunk(ids, ids.isEmpty() ? 0 : expireChunk(ids));
+            });
+
+            if (chunk == null || chunk.ids().isEmpty()) {
+                break;
+            }
+            rows += chunk.updated();
+            chunks++;
+            // Continue after the last ID of this chunk
+            after = chunk.ids().get(chunk.ids().size() - 1);
+            if (!onChunk.committed(after, chunk.updated()) || chunk.ids().size() < chunkSize) {
+                break;
+            }
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        return new AnonymizationReport(rows, chunks, durationMillis);
+    }
+
+    /**
+     * Expire those of the given offers that are still open and past their validity.
+     * <p>
+     * Runs in one transaction. Offers accepted, archived or already expired
+     * since their deadline was scheduled are skipped; the remaining ones are
+     * locked by the re-check, so the returned IDs are exactly the offers expired.
+     *
+     * @param ids offers whose deadline has passed according to the caller
+     * @param now offers with giltigTill at or before this are expired
+     * @return the IDs of the offers that were expired
+     */
+    public List<UUID> expire(Collection<UUID> ids, LocalDateTime now) {
+        List<UUID> expired = tx.execute(status -> {
+            // Re-check the deadlines; the timer does not track accepts
+            List<UUID> due = repo.findExpiredAmong(ids, now);
+            if (!due.isEmpty()) {
+                expireChunk(due);
+            }
+            return due;
+        });
+        return expired == null ? List.of() : expired;
+    }
+
+    /**
+     * Expire one chunk inside the caller's transaction and publish the change.
+     * <p>
+     * The IDs must have been selected with a lock in the same transaction, so
+     * every one of them is still SKAPAD and the events name exactly the
+     * offers the UPDATE expired.
+     *
+     * @param ids the offers to expire, locked by the caller
+     * @return the number of rows updated, always {@code ids.size()}
+     * @throws IllegalStateException if not every offer was expired; the transaction then rolls back
+     */
+    private int expireChunk(List<UUID> ids) {
+        int updated = repo.expireIfOpen(ids);
+        if (updated != ids.size()) {
+            // Publishing would name offers that were not expired
+            throw new IllegalStateException("Expired " + updated + " of " + ids.size() + " locked offers");
+        }
+        outbox.offersExpired(ids);
+        events.offersExpired(ids);
+        // Evict cached copies once this chunk has committed
+        offerCache.invalidateAll(ids);
+        return updated;
+    }
+
+    /**
+     * Progress callback of {@link #anonymizeRange}.
+     */
+    @FunctionalInterface
+    public interface ChunkCallback {
+
+        /**
+         * Called after a chunk has committed.
+         *
+         * @param lastId ID of the last offer in the chunk
+         * @param rows   offers expired by the chunk
+         * @return true to continue with the next chunk, false to stop
+         */
+        boolean committed(UUID lastId, int rows);
+    }
+
+    /**
+     * IDs selected for one chunk together with the number of rows actually updated.
+     */
+    private record Chunk(List<UUID> ids, int updated) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.gofido.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Summary of a single archiving run.
+ * <p>
+ * Returned by {@link OfferArchiveService} so the scheduler can log how many
+ * offers left the hot table and how fast it went.
+ */
+@Data
+@AllArgsConstructor
+public class ArchiveReport {
+
+    /**
+     * Number of accepted offers moved to the archive.
+     */
+    private long accepted;
+
+    /**
+     * Number of expired (UTGÅNGEN) offers moved to the archive.
+     */
+    private long expired;
+
+    /**
+     * Number of chunks (transactions) that were executed.
+     */
+    private int chunks;
+
+    /**
+     * Wall-clock duration of the run in milliseconds.
+     */
+    private long durationMillis;
+
+    /**
+     * @return the total number of offers moved
+     */
+    public long getRows() {
+        return accepted + expired;
+    }
+
+    /**
+     * Throughput of the run.
+     *
+     * @return moved rows per second, or 0 if nothing was processed
+     */
+    public double getRowsPerSecond() {
+        return durationMillis == 0 ? getRows() : getRows() * 1000.0 / durationMillis;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.repository.TierCounts;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory running counters for offer conversion statistics.
+ * <p>
+ * The counters are rebuilt from the database once at startup and then kept
+ * current by {@link OfferService} on every create and accept, so reading them
+ * never touches the database. Inside a transaction an event is counted only
+ * once the transaction commits, so the counters never include rows the
+ * database does not have. A periodic reconciliation compares them with the
+ * database and corrects any drift (e.g. rows written outside this service);
+ * it skips a round in which a commit was in flight, since the database and
+ * the counters may then disagree only for a moment.
+ * Counts cover both the hot {@code offers} table and the archive.
+ * Every recorded event is also forwarded to the hourly {@link ConversionTimeSeries}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor // Constructor injection of repository and time series
+public class ConversionStatistics {
+
+    /**
+     * JPA repository used for the startup rebuild and reconciliation only.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Hour-resolution conversion series kept in step with the counters.
+     */
+    private final ConversionTimeSeries series;
+
+    /**
+     * Total number of offers created.
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Number of offers accepted (status TECKNAD).
+     */
+    private final LongAdder accepted = new LongAdder();
+
+    /**
+     * Transactions with recorded events that have started to commit and not yet completed.
+     */
+    private final AtomicInteger committing = new AtomicInteger();
+
+    /**
+     * Number of such commits started so far; tells reconciliation whether one started while it read.
+     */
+    private final AtomicLong commitsStarted = new AtomicLong();
+
+    /**
+     * Load the initial counter values from the database before the application
+     * starts serving requests.
+     */
+    @PostConstruct
+    public void rebuild() {
+        TierCounts counts = repo.countAllTiers();
+        total.reset();
+        total.add(counts.getTotal());
+        accepted.reset();
+        accepted.add(counts.getAccepted());
+        log.info("Conversion statistics loaded: {} offers, {} accepted", total.sum(), accepted.sum());
+    }
+
+    /**
+     * Record that a new offer has been persisted, after commit if a transaction is active.
+     *
+     * @param o the created offer
+     */
+    public void recordCreated(Offer o) {
+        afterCommit(() -> {
+            total.increment();
+            series.recordCreated(o.getSkapad());
+        });
+    }
+
+    /**
+     * Record that an open offer has been accepted, after commit if a transaction is active.
+     *
+     * @param o the accepted offer
+     */
+    public void recordAccepted(Offer o) {
+        afterCommit(() -> {
+            accepted.increment();
+            series.recordAccepted(o.getSkapad(), o.getAccepteradVid());
+        });
+    }
+
+    /**
+     * Run an update once the current transaction has committed, or now if none is active.
+     * <p>
+     * The commit is tracked from just before it starts until it has completed,
+     * so {@link #reconcile()} can tell when the database may already hold rows
+     * whose update has not run yet.
+     */
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean started;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                started = true;
+                commitsStarted.incrementAndGet();
+                committing.incrementAndGet();
+            }
+
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (started) {
+                    committing.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the total number of offers created
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return the number of offers accepted
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Compare the counters with the database and correct any drift.
+     * <p>
+     * Runs periodically; the interval is configurable via
+     * {@code offer.stats.reconcile-interval} (ISO-8601 duration). A round in
+     * which a commit with recorded events was in flight is skipped, since its
+     * row may be counted by the database but not yet by the counters.
+     *
+     * @return true if the counters were compared, false if the round was skipped
+     */
+    @Scheduled(fixedDelayString = "${offer.stats.reconcile-interval:PT5M}",
+               initialDelayString = "${offer.stats.reconcile-interval:PT5M}")
+    public boolean reconcile() {
+        long started = commitsStarted.get();
+        if (committing.get() > 0) {
+            log.debug("Skipped conversion statistics reconciliation: commit in flight");
+            return false;
+        }
+        long counted = total.sum();
+        long countedAccepted = accepted.sum();
+        TierCounts counts = repo.countAllTiers();
+        if (committing.get() > 0 || commitsStarted.get() != started) {
+            log.debug("Skipped conversion statistics reconciliation: commit in flight");
+            return false;
+        }
+        long totalDrift = counts.getTotal() - counted;
+        long acceptedDrift = counts.getAccepted() - countedAccepted;
+
+        // Adjust by the difference instead of resetting, so concurrent increments are kept
+        if (totalDrift != 0 || acceptedDrift != 0) {
+            total.add(totalDrift);
+            accepted.add(acceptedDrift);
+            log.warn("Corrected conversion statistics drift: total {}, accepted {}",
+                    totalDrift, acceptedDrift);
+        }
+        return true;
+    }
+}
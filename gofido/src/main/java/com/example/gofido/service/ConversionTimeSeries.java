@@ -0,0 +1,144 @@
+package com.example.gofido.service;
+
+import com.example.gofido.dto.ConversionBucketDto;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.HourlyCount;
+import com.example.gofido.repository.OfferRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-memory, hour-resolution time series of offer conversion.
+ * <p>
+ * Each clock hour has a bucket with counters for created, accepted and
+ * converted offers. The series is rebuilt from grouped database queries over
+ * the hot table and the archive at startup and then kept current on every create and accept, so range queries
+ * by hour, day or week are answered by rolling up hourly buckets without
+ * scanning raw offer rows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor // Constructor injection of repositories
+public class ConversionTimeSeries {
+
+    /**
+     * JPA repository used for the startup rebuild only.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Archive repository; archived offers count towards their original hours.
+     */
+    private final ArchivedOfferRepository archive;
+
+    /**
+     * Hourly buckets keyed by the start of the hour.
+     */
+    private final ConcurrentSkipListMap<LocalDateTime, Bucket> hours = new ConcurrentSkipListMap<>();
+
+    /**
+     * Rebuild all hourly buckets from the database before requests are served.
+     */
+    @PostConstruct
+    public void rebuild() {
+        hours.clear();
+        load(repo.countCreatedPerHour(), b -> b.skapade);
+        load(repo.countAcceptedPerHour(), b -> b.accepterade);
+        load(repo.countConvertedPerCreationHour(), b -> b.konverterade);
+        load(archive.countCreatedPerHour(), b -> b.skapade);
+        load(archive.countAcceptedPerHour(), b -> b.accepterade);
+        load(archive.countConvertedPerCreationHour(), b -> b.konverterade);
+        log.info("Conversion time series loaded: {} hourly buckets", hours.size());
+    }
+
+    /**
+     * Record a newly created offer.
+     *
+     * @param skapad creation timestamp of the offer
+     */
+    public void recordCreated(LocalDateTime skapad) {
+        bucket(skapad).skapade.increment();
+    }
+
+    /**
+     * Record that an offer has been accepted.
+     *
+     * @param skapad        creation timestamp of the offer (its cohort)
+     * @param accepteradVid acceptance timestamp of the offer
+     */
+    public void recordAccepted(LocalDateTime skapad, LocalDateTime accepteradVid) {
+        bucket(accepteradVid).accepterade.increment();
+        bucket(skapad).konverterade.increment();
+    }
+
+    /**
+     * Roll up hourly buckets into buckets of the requested granularity.
+     * <p>
+     * Only buckets that contain data are returned, in chronological order.
+     *
+     * @param granularity size of the returned buckets
+     * @param from        inclusive lower bound of the range
+     * @param to          exclusive upper bound of the range
+     * @return the non-empty buckets within the range
+     */
+    public List<ConversionBucketDto> query(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+
+        // Sum hourly counters into the enclosing bucket of the requested size
+        NavigableMap<LocalDateTime, long[]> rollup = new TreeMap<>();
+        for (Map.Entry<LocalDateTime, Bucket> e
+                : hours.subMap(from.truncatedTo(ChronoUnit.HOURS), true, to, false).entrySet()) {
+            long[] sums = rollup.computeIfAbsent(granularity.truncate(e.getKey()), k -> new long[3]);
+            sums[0] += e.getValue().skapade.sum();
+            sums[1] += e.getValue().accepterade.sum();
+            sums[2] += e.getValue().konverterade.sum();
+        }
+
+        List<ConversionBucketDto> result = new ArrayList<>(rollup.size());
+        rollup.forEach((start, sums) -> result.add(new ConversionBucketDto(
+                start, sums[0], sums[1], sums[2],
+                sums[0] == 0 ? 0 : (sums[2] * 100.0) / sums[0])));
+        return result;
+    }
+
+    /**
+     * Add grouped database counts to one of the counters of each bucket.
+     */
+    private void load(List<HourlyCount> counts, Function<Bucket, LongAdder> counter) {
+        for (HourlyCount c : counts) {
+            LocalDateTime start = c.getDag().atTime(c.getTimme(), 0);
+            counter.apply(bucket(start)).add(c.getAntal());
+        }
+    }
+
+    /**
+     * Get or create the hourly bucket a timestamp falls into.
+     */
+    private Bucket bucket(LocalDateTime t) {
+        return hours.computeIfAbsent(t.truncatedTo(ChronoUnit.HOURS), k -> new Bucket());
+    }
+
+    /**
+     * Counters for a single clock hour.
+     */
+    private static final class Bucket {
+        final LongAdder skapade = new LongAdder();
+        final LongAdder accepterade = new LongAdder();
+        final LongAdder konverterade = new LongAdder();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OutboxEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Outbox sink that appends events to an NDJSON file, one event per line.
+ * <p>
+ * Each batch is written with one append and forced to disk before
+ * {@link #publish(List)} returns, so a published batch survives a crash.
+ */
+public class FileOutboxSink implements OutboxSink {
+
+    /**
+     * File the events are appended to.
+     */
+    private final Path path;
+
+    /**
+     * @param path file to append to; created with its parent directories if missing
+     */
+    public FileOutboxSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        StringBuilder lines = new StringBuilder(events.size() * 512);
+        for (OutboxEvent e : events) {
+            lines.append(OutboxSink.toJson(e)).append('\n');
+        }
+        ByteBuffer buf = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+                ch.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append outbox events to " + path, e);
+        }
+    }
+}
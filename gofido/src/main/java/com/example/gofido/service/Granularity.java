@@ -0,0 +1,36 @@
+package com.example.gofido.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket size for time-series conversion statistics.
+ */
+public enum Granularity {
+
+    /** One bucket per clock hour. */
+    HOUR,
+
+    /** One bucket per calendar day. */
+    DAY,
+
+    /** One bucket per ISO week, starting on Monday. */
+    WEEK;
+
+    /**
+     * Truncate a timestamp to the start of the bucket it belongs to.
+     *
+     * @param t the timestamp to truncate
+     * @return the start of the enclosing hour, day or week
+     */
+    public LocalDateTime truncate(LocalDateTime t) {
+        return switch (this) {
+            case HOUR -> t.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> t.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> t.truncatedTo(ChronoUnit.DAYS)
+                    .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        };
+    }
+}
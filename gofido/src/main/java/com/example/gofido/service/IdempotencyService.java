@@ -0,0 +1,295 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.IdempotencyRecord;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.exception.IdempotencyKeyInProgressException;
+import com.example.gofido.exception.IdempotencyKeyReusedException;
+import com.example.gofido.exception.InvalidIdempotencyKeyException;
+import com.example.gofido.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Dedupe store that makes offer requests safe to retry.
+ * <p>
+ * A client that sends an {@code Idempotency-Key} header with a request and
+ * retries it with the same key, e.g. after a timeout, gets the first
+ * response back instead of a second offer or acceptance. Completed requests
+ * are kept for {@code offer.idempotency.ttl}:
+ * <ul>
+ *   <li>in a bounded Caffeine cache, so a retry storm is answered from
+ *       memory without touching the database or {@link OfferService};</li>
+ *   <li>in the {@code idempotency_keys} table, written in the same
+ *       transaction as the request's own changes, so replays survive
+ *       restarts and work across instances sharing the database.</li>
+ * </ul>
+ * The key is claimed with an INSERT before the request runs. A concurrent
+ * request with the same key blocks on that row until the first commits and
+ * then replays its response; if the first fails, nothing is recorded and
+ * the second runs. A key sent with a different request gets 422.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    /**
+     * Longest key that fits the {@code idempotency_key} column.
+     */
+    static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Name of the purge job's lease.
+     */
+    static final String LEASE = "idempotency-purge";
+
+    /**
+     * Repository holding the recorded keys.
+     */
+    private final IdempotencyRecordRepository records;
+
+    /**
+     * Template that runs the claim, the request and the stored response in one transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * JSON mapper for the stored responses and request hashes.
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Replay counts.
+     */
+    private final OfferMetrics metrics;
+
+    /**
+     * Lease that keeps the purge on one instance at a time.
+     */
+    private final LeaseService leases;
+
+    /**
+     * How long a key is replayed after its request completed.
+     */
+    private final Duration ttl;
+
+    /**
+     * Completed requests by key, evicted by size and after {@link #ttl}.
+     */
+    private final Cache<String, Completed> cache;
+
+    /**
+     * Maximum number of expired keys deleted per transaction by the purge.
+     */
+    @Value("${offer.idempotency.purge-chunk-size:1000}")
+    private int purgeChunkSize;
+
+    /**
+     * How long the purge lease is valid without renewal.
+     */
+    @Value("${offer.cluster.lease-ttl:PT30S}")
+    private Duration leaseTtl;
+
+    /**
+     * Create the store with the configured bounds.
+     *
+     * @param records repository holding the recorded keys
+     * @param tx      transaction template for requests and purges
+     * @param mapper  JSON mapper for responses and request hashes
+     * @param metrics metrics replays are counted in
+     * @param leases  leases that keep the purge on one instance
+     * @param ttl     how long a key is replayed
+     * @param maxSize maximum number of completed requests kept in memory
+     */
+    public IdempotencyService(IdempotencyRecordRepository records,
+                              TransactionTemplate tx,
+                              ObjectMapper mapper,
+                              OfferMetrics metrics,
+                              LeaseService leases,
+                              @Value("${offer.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${offer.idempotency.max-size:100000}") long maxSize) {
+        this.records = records;
+        this.tx = tx;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.leases = leases;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Run a request once per idempotency key.
+     *
+     * @param key       the client's idempotency key
+     * @param operation name of the operation, e.g. {@code create}; part of the request hash
+     * @param request   the request body or path parameters; part of the request hash
+     * @param action    runs the request; must join the caller's transaction
+     * @return the response, and whether it was replayed
+     * @throws InvalidIdempotencyKeyException     if the key is blank or too long
+     * @throws IdempotencyKeyReusedException      if the key was used for a different request
+     * @throws IdempotencyKeyInProgressException  if a request with the key is still running
+     */
+    public Outcome execute(String key, String operation, Object request, Supplier<OfferResponseDto> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(key);
+        }
+        byte[] hash = hash(operation, request);
+
+        // Retries of a recent request are answered from memory
+        Completed cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return replay(key, operation, hash, cached);
+        }
+
+        Completed done;
+        try {
+            done = tx.execute(status -> run(key, hash, action));
+        } catch (DataIntegrityViolationException e) {
+            // A request with the same key committed while this one waited for its row
+            done = tx.execute(status -> stored(key, LocalDateTime.now()));
+            if (done == null) {
+                throw new IdempotencyKeyInProgressException(key);
+            }
+        } catch (PessimisticLockingFailureException e) {
+            throw new IdempotencyKeyInProgressException(key);
+        }
+
+        cache.put(key, done);
+        return done.replayed() ? replay(key, operation, hash, done) : new Outcome(done.response(), false);
+    }
+
+    /**
+     * Scheduled purge of expired keys; skipped while another instance holds the lease.
+     */
+    @Scheduled(fixedDelayString = "${offer.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        if (!leases.tryAcquire(LEASE, leaseTtl)) {
+            return;
+        }
+        long deleted = purge(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    /**
+     * Delete every key expired at {@code now}, one chunk per transaction.
+     *
+     * @param now reference time
+     * @return the number of keys deleted
+     */
+    public long purge(LocalDateTime now) {
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = tx.execute(status -> records.deleteExpired(now, purgeChunkSize));
+            deleted += chunk;
+        } while (chunk == purgeChunkSize);
+        return deleted;
+    }
+
+    /**
+     * Replay a stored key, or claim it, run the request and store its response.
+     */
+    private Completed run(String key, byte[] hash, Supplier<OfferResponseDto> action) {
+        LocalDateTime now = LocalDateTime.now();
+        Completed stored = stored(key, now);
+        if (stored != null) {
+            return stored;
+        }
+        records.deleteIfExpired(key, now);
+
+        // Blocks while another transaction holds the same key
+        records.claim(key, hash, now, now.plus(ttl));
+        OfferResponseDto response = action.get();
+        records.complete(key, write(response));
+        return new Completed(hash, response, false);
+    }
+
+    /**
+     * Read an unexpired key from the database.
+     *
+     * @return the stored response, or null if the key is not recorded or has expired
+     */
+    private Completed stored(String key, LocalDateTime now) {
+        return records.findById(key)
+                .filter(r -> r.getExpiresAt().isAfter(now))
+                .map(r -> new Completed(r.getRequestHash(), read(r), true))
+                .orElse(null);
+    }
+
+    /**
+     * Return a recorded response if it answers the same request.
+     */
+    private Outcome replay(String key, String operation, byte[] hash, Completed completed) {
+        if (!MessageDigest.isEqual(hash, completed.requestHash())) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        metrics.recordIdempotentReplay(operation);
+        return new Outcome(completed.response(), true);
+    }
+
+    /**
+     * SHA-256 of the operation name and the request as JSON.
+     */
+    private byte[] hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return digest.digest(mapper.writeValueAsBytes(request));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash request", e);
+        }
+    }
+
+    private String write(OfferResponseDto response) {
+        try {
+            return mapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response", e);
+        }
+    }
+
+    private OfferResponseDto read(IdempotencyRecord record) {
+        try {
+            return mapper.readValue(record.getResponse(), OfferResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored response for key " + record.getKey(), e);
+        }
+    }
+
+    /**
+     * Response to a request, and whether it was replayed from an earlier one.
+     *
+     * @param response the response body
+     * @param replayed true if the request did not run again
+     */
+    public record Outcome(OfferResponseDto response, boolean replayed) {
+    }
+
+    /**
+     * A completed request: the hash it was recorded with and its response.
+     * {@code replayed} marks one read back from the database rather than run now.
+     */
+    private record Completed(byte[] requestHash, OfferResponseDto response, boolean replayed) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OutboxEvent;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox sink backed by a bounded in-process queue, acting as a local broker
+ * for tests and single-node setups.
+ * <p>
+ * When consumers fall behind and the queue is full, {@link #publish(List)}
+ * blocks for up to the configured timeout and then fails, so the relay backs
+ * off and events wait in the database instead of in memory.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    /**
+     * Published events not yet taken by a consumer.
+     */
+    private final BlockingQueue<OutboxEvent> queue;
+
+    /**
+     * How long to wait for free space before failing a batch.
+     */
+    private final Duration offerTimeout;
+
+    /**
+     * @param capacity     maximum number of events held in memory
+     * @param offerTimeout how long to wait for free space before failing a batch
+     */
+    public InMemoryOutboxSink(int capacity, Duration offerTimeout) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.offerTimeout = offerTimeout;
+    }
+
+    /**
+     * Enqueue the batch, waiting for space if needed.
+     * <p>
+     * Events enqueued before a timeout stay enqueued and are published again
+     * on retry, as allowed by at-least-once delivery.
+     *
+     * @throws IllegalStateException if the queue stays full for longer than the timeout
+     */
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        try {
+            for (OutboxEvent e : events) {
+                if (!queue.offer(e, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Outbox queue full (" + queue.size() + " events)");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox events", e);
+        }
+    }
+
+    /**
+     * Take the next event, waiting up to the given time.
+     *
+     * @param timeout how long to wait
+     * @return the event, or null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public OutboxEvent poll(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Move all available events to the given collection.
+     *
+     * @param target collection to add the events to
+     * @return the number of events moved
+     */
+    public int drainTo(Collection<? super OutboxEvent> target) {
+        return queue.drainTo(target);
+    }
+
+    /**
+     * @return the number of events waiting for a consumer
+     */
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.gofido.service;
+
+import com.example.gofido.repository.SchedulerLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Database-backed leases that let several application instances share a
+ * database without running the same scheduled work twice.
+ * <p>
+ * A lease is a row in {@code scheduler_leases} naming the work, its owner and
+ * when the claim lapses on the database clock. Acquiring, renewing and taking
+ * over a lapsed lease are one conditional UPDATE, so exactly one instance
+ * holds a lease at a time, and an instance that crashes loses its leases once
+ * they lapse. Each call runs in its own transaction and must not be made
+ * inside another one, except {@link #renewWithin}.
+ */
+@Slf4j
+@Service
+public class LeaseService {
+
+    /**
+     * Repository holding the leases.
+     */
+    private final SchedulerLeaseRepository leases;
+
+    /**
+     * Template used to run each lease operation in its own transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * ID this instance holds leases under.
+     */
+    private final String nodeId;
+
+    /**
+     * Create the service.
+     *
+     * @param leases repository holding the leases
+     * @param tx     transaction template for lease operations
+     * @param nodeId configured node ID; when blank, the host name plus a random
+     *               suffix, so two instances on one host are told apart
+     */
+    public LeaseService(SchedulerLeaseRepository leases, TransactionTemplate tx,
+                        @Value("${offer.cluster.node-id:}") String nodeId) {
+        this.leases = leases;
+        this.tx = tx;
+        this.nodeId = nodeId.isBlank() ? hostName() + "-" + UUID.randomUUID().toString().substring(0, 8) : nodeId;
+        log.info("Holding scheduler leases as node {}", this.nodeId);
+    }
+
+    /**
+     * Acquire a lease, renew it if this instance already holds it, or take it
+     * over if its holder let it lapse.
+     *
+     * @param name name of the work
+     * @param ttl  how long the lease is valid from now unless renewed
+     * @return true if this instance now holds the lease
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        long ttlMillis = ttl.toMillis();
+        try {
+            Boolean acquired = tx.execute(status -> leases.takeOver(name, nodeId, ttlMillis) == 1
+                    || leases.insertIfAbsent(name, nodeId, ttlMillis) == 1);
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the lease at the same moment
+            return false;
+        }
+    }
+
+    /**
+     * Renew a lease this instance holds, as part of the caller's transaction.
+     * <p>
+     * The one lease operation made inside another transaction: it never takes
+     * a lease over, and the lease row stays locked until the caller commits,
+     * so the caller's writes only commit while this instance holds the lease.
+     *
+     * @param name name of the work
+     * @param ttl  how long the lease is valid from now unless renewed
+     * @return true if this instance still held the lease and renewed it
+     */
+    public boolean renewWithin(String name, Duration ttl) {
+        return leases.renew(name, nodeId, ttl.toMillis()) == 1;
+    }
+
+    /**
+     * Give up a lease so another instance can take it at once; the lease lapses but is kept.
+     * Does nothing if this instance does not hold it.
+     *
+     * @param name name of the work
+     */
+    public void release(String name) {
+        tx.executeWithoutResult(status -> leases.release(name, nodeId));
+    }
+
+    /**
+     * Replace every lease whose name starts with a prefix by free leases with the given names.
+     * <p>
+     * Used to create the leases of a job run's shards up front, dropping
+     * those of earlier runs, so instances claiming a shard never race to insert its lease.
+     *
+     * @param prefix name prefix shared by the job's run leases
+     * @param names  names of the leases to create
+     */
+    public void replace(String prefix, Collection<String> names) {
+        tx.executeWithoutResult(status -> {
+            leases.deleteByNamePrefix(prefix);
+            for (String name : names) {
+                leases.insertIfAbsent(name, nodeId, -1);
+            }
+        });
+    }
+
+    /**
+     * Current time on the database clock, which every instance agrees on.
+     *
+     * @return the database's local timestamp
+     */
+    public LocalDateTime databaseTime() {
+        return leases.databaseTime();
+    }
+
+    /**
+     * ID this instance holds leases under.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.LoanListConverter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off migration of loans from the legacy {@code offer_loans} collection table
+ * into the compact {@code loans_data} column of {@code offers}.
+ * <p>
+ * Runs at startup when the legacy table exists. Offers are moved in chunks,
+ * each chunk in its own transaction; moved rows are deleted from the legacy
+ * table as part of the same transaction, so an interrupted run simply resumes
+ * on the next start. The empty legacy table is dropped at the end.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor // Constructor injection of JDBC and transaction templates
+public class LoanStorageMigration {
+
+    /**
+     * Name of the legacy collection table.
+     */
+    static final String LEGACY_TABLE = "offer_loans";
+
+    /**
+     * JDBC template for the set-based reads and writes.
+     */
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Template used to commit each chunk in its own transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Whether to migrate the legacy table at startup.
+     */
+    @Value("${offer.loans.migrate-legacy:true}")
+    private boolean enabled;
+
+    /**
+     * Maximum number of offers moved per transaction.
+     */
+    @Value("${offer.loans.migration-chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Move all legacy loans into the compact column and drop the legacy table.
+     *
+     * @return the number of offers migrated
+     */
+    @PostConstruct
+    public long migrate() {
+        if (!enabled || !legacyTableExists()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long offers = 0;
+
+        while (true) {
+            Integer moved = tx.execute(status -> migrateChunk());
+            if (moved == null || moved == 0) {
+                break;
+            }
+            offers += moved;
+        }
+
+        jdbc.execute("drop table " + LEGACY_TABLE);
+        log.info("Migrated loans of {} offers from {} to offers.loans_data in {} ms",
+                offers, LEGACY_TABLE, (System.nanoTime() - start) / 1_000_000);
+        return offers;
+    }
+
+    /**
+     * Move the loans of the next chunk of offers, in offer ID order.
+     *
+     * @return the number of offers moved
+     */
+    private int migrateChunk() {
+        // Lowest remaining offer IDs; moved rows are deleted, so no cursor is needed
+        List<String> ids = jdbc.queryForList(
+                "select distinct offer_id from " + LEGACY_TABLE + " order by offer_id limit ?",
+                String.class, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String first = ids.get(0);
+        String last = ids.get(ids.size() - 1);
+
+        // Group the legacy rows of this ID range per offer
+        Map<String, List<Loan>> loans = new LinkedHashMap<>();
+        jdbc.query("select offer_id, bank, belopp from " + LEGACY_TABLE
+                        + " where offer_id between ? and ?",
+                rs -> {
+                    loans.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                         .add(new Loan(rs.getString(2), rs.getObject(3, BigDecimal.class)));
+                },
+                first, last);
+
+        // Write each offer's loans once, without overwriting already migrated offers
+        List<Object[]> args = new ArrayList<>(loans.size());
+        loans.forEach((id, list) -> args.add(new Object[]{LoanListConverter.encode(list), id}));
+        jdbc.batchUpdate("update offers set loans_data = ? where id = ? and loans_data is null", args);
+        jdbc.update("delete from " + LEGACY_TABLE + " where offer_id between ? and ?", first, last);
+        return ids.size();
+    }
+
+    /**
+     * Check whether the legacy collection table is present.
+     */
+    private boolean legacyTableExists() {
+        Boolean exists = jdbc.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData md = con.getMetaData();
+            // Unquoted identifiers are stored upper- or lower-case depending on the database
+            for (String name : new String[]{LEGACY_TABLE.toUpperCase(), LEGACY_TABLE}) {
+                try (ResultSet rs = md.getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
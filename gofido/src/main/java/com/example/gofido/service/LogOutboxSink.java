@@ -0,0 +1,47 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Outbox sink that writes each event to the application log, for development.
+ * <p>
+ * Only the event ID, type, offer ID and offer status are logged. The payload
+ * holds the offer's personnummer, and application logs are neither anonymized
+ * nor expired with the offers, so it is never written to them.
+ */
+@Slf4j
+public class LogOutboxSink implements OutboxSink {
+
+    /**
+     * Mapper used to read the status out of a payload.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent e : events) {
+            log.info("Offer event {} {} offer {} status {}", e.getId(), e.getType(), e.getOfferId(), status(e));
+        }
+    }
+
+    /**
+     * Status of the offer in an event's payload, or {@code -} if the payload has none.
+     */
+    static String status(OutboxEvent e) {
+        if (e.getPayload() == null) {
+            return "-";
+        }
+        try {
+            JsonNode status = MAPPER.readTree(e.getPayload()).get("status");
+            return status != null && status.isTextual() ? status.asText() : "-";
+        } catch (JsonProcessingException ex) {
+            return "-";
+        }
+    }
+}
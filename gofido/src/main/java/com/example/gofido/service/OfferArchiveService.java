@@ -0,0 +1,130 @@
+package com.example.gofido.service;
+
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.OfferRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Service that moves offers which can no longer change from {@code offers} to {@code offers_archive}.
+ * <p>
+ * Accepted offers and expired (UTGÅNGEN) offers, whose personnummer has been cleared, are
+ * never written again, yet they make up most of the table. Moving them keeps
+ * the hot table, its indexes and every scan over it proportional to the open
+ * offers. Each chunk is copied with one INSERT ... SELECT and deleted with one
+ * DELETE in the same short transaction, so an offer is always in exactly one
+ * tier and statistics over both tiers never see it twice.
+ */
+@Service
+@RequiredArgsConstructor // Constructor injection of repositories and transaction template
+public class OfferArchiveService {
+
+    /**
+     * Hot table the offers are moved from.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Archive table the offers are moved to.
+     */
+    private final ArchivedOfferRepository archive;
+
+    /**
+     * Template used to commit each chunk in its own transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Maximum number of offers moved per chunk, injected from configuration.
+     */
+    @Value("${offer.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Time an offer stays in the hot table after it was accepted or expired.
+     */
+    @Value("${offer.archive.min-age:P1D}")
+    private Duration minAge;
+
+    /**
+     * Move every offer accepted, or expired (UTGÅNGEN), more than
+     * {@code offer.archive.min-age} before {@code now}.
+     *
+     * @param now reference time of the run, also stored as the archiving timestamp
+     * @return a report with the moved counts, chunk count and duration of the run
+     */
+    public ArchiveReport archiveColdOffers(LocalDateTime now) {
+        return archiveColdOffers(now, () -> true);
+    }
+
+    /**
+     * Move every offer accepted, or expired (UTGÅNGEN), more than
+     * {@code offer.archive.min-age} before {@code now}, for as long as the
+     * caller may.
+     * <p>
+     * {@code held} runs at the start of each chunk's transaction, e.g. to
+     * renew a lease with {@link LeaseService#renewWithin}; the run stops
+     * without moving the chunk once it returns false.
+     *
+     * @param now  reference time of the run, also stored as the archiving timestamp
+     * @param held whether the run may continue; joins the chunk's transaction
+     * @return a report with the moved counts, chunk count and duration of the run
+     */
+    public ArchiveReport archiveColdOffers(LocalDateTime now, BooleanSupplier held) {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = now.minus(minAge);
+        int[] chunks = new int[1];
+
+        long accepted = move(limit -> repo.findAcceptedBefore(cutoff, limit), now, held, chunks);
+        long expired = move(limit -> repo.findExpiredBefore(cutoff, limit), now, held, chunks);
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ArchiveReport(accepted, expired, chunks[0], durationMillis);
+    }
+
+    /**
+     * Move candidates chunk by chunk until a chunk comes back smaller than the
+     * chunk size or {@code held} returns false.
+     */
+    private long move(Function<Limit, List<UUID>> candidates, LocalDateTime now, BooleanSupplier held,
+                      int[] chunks) {
+        long moved = 0;
+        while (true) {
+            // Copy and delete the next chunk in a single short transaction
+            List<UUID> ids = tx.execute(status -> {
+                if (!held.getAsBoolean()) {
+                    return null;
+                }
+                List<UUID> chunk = candidates.apply(Limit.of(chunkSize));
+                if (!chunk.isEmpty()) {
+                    int copied = archive.copyFromOffers(chunk, now);
+                    int deleted = repo.deleteByIds(chunk);
+                    if (copied != chunk.size() || deleted != chunk.size()) {
+                        throw new IllegalStateException("Archiving copied " + copied + " and deleted "
+                                + deleted + " of " + chunk.size() + " offers; rolled back");
+                    }
+                }
+                return chunk;
+            });
+
+            if (ids == null || ids.isEmpty()) {
+                return moved;
+            }
+            moved += ids.size();
+            chunks[0]++;
+            if (ids.size() < chunkSize) {
+                return moved;
+            }
+        }
+    }
+}
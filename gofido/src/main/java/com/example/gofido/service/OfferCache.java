@@ -0,0 +1,138 @@
+package com.example.gofido.service;
+
+import com.example.gofido.dto.OfferMapper;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.exception.OfferNotFoundException;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.OfferRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded, read-through cache of offers in front of {@link OfferRepository}.
+ * <p>
+ * Serves archived offers too, so clients do not see where an offer is stored.
+ * Stores immutable-by-convention {@link OfferResponseDto} snapshots rather than
+ * managed entities, evicts by size and time-to-live, and records hit, miss and
+ * eviction statistics. Write paths call {@link #invalidate} after they change an
+ * offer; inside a transaction the invalidation is deferred until commit, and
+ * because Caffeine serializes loads and removals per key, a load that read the
+ * old row before the commit cannot survive the invalidation.
+ */
+@Service
+public class OfferCache {
+
+    /**
+     * JPA repository used to load offers on a cache miss.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Archive repository, consulted when an offer is not in the hot table.
+     */
+    private final ArchivedOfferRepository archive;
+
+    /**
+     * Underlying Caffeine cache keyed by offer ID.
+     */
+    private final Cache<UUID, OfferResponseDto> cache;
+
+    /**
+     * Create the cache with the configured bounds.
+     *
+     * @param repo    repository used to load missing offers
+     * @param archive repository of archived offers, tried after {@code repo}
+     * @param maxSize maximum number of cached offers
+     * @param ttl     time after which a cached offer is reloaded
+     */
+    public OfferCache(OfferRepository repo,
+                      ArchivedOfferRepository archive,
+                      @Value("${offer.cache.max-size:10000}") long maxSize,
+                      @Value("${offer.cache.ttl:PT5M}") Duration ttl) {
+        this.repo = repo;
+        this.archive = archive;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get an offer, loading it from the database on a cache miss.
+     *
+     * @param id the unique identifier of the offer
+     * @return the offer as OfferResponseDto
+     * @throws OfferNotFoundException if no offer exists with the given ID
+     */
+    public OfferResponseDto get(UUID id) {
+        OfferResponseDto dto = cache.get(id, this::load);
+        if (dto == null) {
+            throw new OfferNotFoundException(id.toString());
+        }
+        return dto;
+    }
+
+    /**
+     * Remove an offer from the cache, after commit if a transaction is active.
+     *
+     * @param id the unique identifier of the changed offer
+     */
+    public void invalidate(UUID id) {
+        invalidateAll(List.of(id));
+    }
+
+    /**
+     * Remove several offers from the cache, after commit if a transaction is active.
+     *
+     * @param ids the unique identifiers of the changed offers
+     */
+    public void invalidateAll(Collection<UUID> ids) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<UUID> snapshot = List.copyOf(ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll(snapshot);
+                }
+            });
+        } else {
+            cache.invalidateAll(ids);
+        }
+    }
+
+    /**
+     * @return a snapshot of hit, miss and eviction statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the approximate number of cached offers
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Load an offer and its loans in one query and map it to a DTO snapshot,
+     * falling back to the archive for accepted and expired offers.
+     */
+    private OfferResponseDto load(UUID id) {
+        return repo.findById(id)
+                .map(OfferMapper::toDto)
+                .or(() -> archive.findById(id).map(OfferMapper::toDto))
+                .orElse(null);
+    }
+}
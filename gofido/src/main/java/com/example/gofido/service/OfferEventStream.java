@@ -0,0 +1,738 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.domain.OutboxEventType;
+import com.example.gofido.dto.OfferEventDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live stream of committed offer changes, served as Server-Sent Events by GET /offer/events.
+ * <p>
+ * The service layer appends events to a fixed-size ring buffer once their
+ * transaction has committed. A single dispatcher thread serializes each event
+ * once and hands it to a bounded queue per subscriber; a small pool of sender
+ * threads writes a subscriber's queue to its connection only while the queue
+ * is non-empty. Open connections are held by the servlet container's
+ * asynchronous request support, so an idle subscriber costs a queue and an
+ * emitter, not a thread.
+ * <p>
+ * A subscriber that cannot keep up fills its queue; it then either loses its
+ * oldest queued events ({@code drop-oldest}) or is disconnected
+ * ({@code disconnect}). Either way it can reconnect with the
+ * {@code Last-Event-ID} header and is sent the events it missed, as long as
+ * they are still in the ring buffer.
+ * <p>
+ * Writes block until the container has taken the bytes, so a client that
+ * stops reading without closing its connection could hold a sender thread
+ * indefinitely. A watchdog therefore disconnects a subscriber whose write
+ * has not returned within {@code offer.events.write-timeout}, interrupts the
+ * write, and lends the pool an extra thread until the write returns, so the
+ * other subscribers keep being served.
+ */
+@Slf4j
+@Component
+public class OfferEventStream {
+
+    /**
+     * What happens when an event arrives for a subscriber whose queue is full.
+     */
+    enum Overflow {
+
+        /** Drop the oldest queued event and keep the subscriber. */
+        DROP_OLDEST,
+
+        /** Disconnect the subscriber; the client reconnects with Last-Event-ID. */
+        DISCONNECT
+    }
+
+    /**
+     * Connection of one subscriber; {@link SseEmitter} in production.
+     */
+    interface Sender {
+
+        /**
+         * Write one event.
+         *
+         * @param id   sequence number, sent as the SSE event ID
+         * @param type event type, sent as the SSE event name
+         * @param json event payload
+         * @throws IOException if the client has gone away
+         */
+        void send(long id, String type, String json) throws IOException;
+
+        /**
+         * Write a comment line, so proxies keep the connection open and a
+         * client that has gone away is noticed.
+         *
+         * @throws IOException if the client has gone away
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * End the response.
+         */
+        void close();
+    }
+
+    /**
+     * Serialized event ready to be sent to any subscriber.
+     */
+    private record Outgoing(long id, String type, String json) {
+    }
+
+    /**
+     * Ring buffer entry; the sequence number tells whether it has been overwritten.
+     */
+    private record Slot(long seq, OfferEventDto event) {
+    }
+
+    /**
+     * Queue marker for a heartbeat comment.
+     */
+    private static final Outgoing HEARTBEAT = new Outgoing(-1, null, null);
+
+    /**
+     * Write start of a subscriber that is not writing.
+     */
+    private static final long IDLE = Long.MIN_VALUE;
+
+    /**
+     * Write start of a subscriber whose write overran the deadline and was abandoned.
+     */
+    private static final long TIMED_OUT = Long.MAX_VALUE;
+
+    /**
+     * JSON mapper used to serialize event payloads.
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Subscriber gauge and drop counters.
+     */
+    private final OfferMetrics metrics;
+
+    /**
+     * Most recent events, indexed by sequence number modulo its length; also the lock for {@link #head}.
+     */
+    private final Slot[] ring;
+
+    /**
+     * Ring length minus one, the length being a power of two.
+     */
+    private final int mask;
+
+    /**
+     * Maximum number of events queued for one subscriber.
+     */
+    private final int queueSize;
+
+    /**
+     * Policy applied when a subscriber's queue is full.
+     */
+    private final Overflow overflow;
+
+    /**
+     * Interval between heartbeat comments.
+     */
+    private final Duration heartbeat;
+
+    /**
+     * Time after which a connection is closed; the client then reconnects.
+     */
+    private final Duration timeout;
+
+    /**
+     * Number of threads writing to subscriber connections.
+     */
+    private final int senderThreads;
+
+    /**
+     * Time a single write may block before its subscriber is disconnected.
+     */
+    private final Duration writeTimeout;
+
+    /**
+     * Sequence number of the next published event; guarded by {@link #ring}.
+     */
+    private long head;
+
+    /**
+     * Sequence number of the next event to fan out; written by the dispatcher
+     * while holding the {@link #subscribers} lock.
+     */
+    private long dispatched;
+
+    /**
+     * Connected subscribers; also the lock that orders registration against fan-out.
+     */
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+
+    private Thread dispatcher;
+
+    private ThreadPoolExecutor senders;
+
+    private ScheduledExecutorService watchdog;
+
+    /**
+     * Create the stream with the configured bounds.
+     *
+     * @param mapper        JSON mapper for event payloads
+     * @param metrics       metrics the subscriber count and drops are reported to
+     * @param ringSize      events kept for replay, rounded up to a power of two
+     * @param queueSize     maximum events queued per subscriber
+     * @param overflow      {@code drop-oldest} or {@code disconnect}
+     * @param heartbeat     interval between heartbeat comments
+     * @param timeout       maximum lifetime of one connection
+     * @param senderThreads threads writing to subscriber connections
+     * @param writeTimeout  time a single write may block before its subscriber is disconnected
+     * @throws IllegalArgumentException if a bound is not positive or the policy is unknown
+     */
+    public OfferEventStream(ObjectMapper mapper, OfferMetrics metrics,
+                            @Value("${offer.events.ring-size:4096}") int ringSize,
+                            @Value("${offer.events.queue-size:256}") int queueSize,
+                            @Value("${offer.events.overflow:drop-oldest}") String overflow,
+                            @Value("${offer.events.heartbeat:PT15S}") Duration heartbeat,
+                            @Value("${offer.events.timeout:PT30M}") Duration timeout,
+                            @Value("${offer.events.sender-threads:2}") int senderThreads,
+                            @Value("${offer.events.write-timeout:PT10S}") Duration writeTimeout) {
+        if (ringSize < 1 || queueSize < 1 || senderThreads < 1 || writeTimeout.toMillis() < 1) {
+            throw new IllegalArgumentException(
+                    "offer.events ring-size, queue-size, sender-threads and write-timeout must be positive");
+        }
+        this.mapper = mapper;
+        this.metrics = metrics;
+        int length = Integer.highestOneBit(ringSize);
+        this.ring = new Slot[length < ringSize ? length << 1 : length];
+        this.mask = ring.length - 1;
+        this.queueSize = queueSize;
+        this.overflow = Overflow.valueOf(overflow.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.senderThreads = senderThreads;
+        this.writeTimeout = writeTimeout;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        AtomicInteger threads = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "offer-events-send-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "offer-events-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(10, writeTimeout.toMillis() / 4);
+        watchdog.scheduleWithFixedDelay(this::checkWrites, period, period, TimeUnit.MILLISECONDS);
+        dispatcher = new Thread(this::dispatchLoop, "offer-events-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        metrics.registerEventStream(this);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        watchdog.shutdownNow();
+        for (Subscriber s : subscribers) {
+            s.close(false);
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * Publish a change of one offer once the current transaction commits.
+     *
+     * @param type  kind of change
+     * @param offer the offer after the change
+     */
+    public void offerChanged(OutboxEventType type, Offer offer) {
+        publishAfterCommit(List.of(toEvent(type, offer, LocalDateTime.now())));
+    }
+
+    /**
+     * Publish the same change of several offers once the current transaction commits.
+     *
+     * @param type   kind of change
+     * @param offers the offers after the change
+     */
+    public void offersChanged(OutboxEventType type, Collection<Offer> offers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OfferEventDto> events = new ArrayList<>(offers.size());
+        for (Offer o : offers) {
+            events.add(toEvent(type, o, now));
+        }
+        publishAfterCommit(events);
+    }
+
+    /**
+     * Publish the expiry of several offers once the current transaction commits.
+     *
+     * @param offerIds the expired, and thereby anonymized, offers
+     */
+    public void offersExpired(Collection<UUID> offerIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OfferEventDto> events = new ArrayList<>(offerIds.size());
+        for (UUID id : offerIds) {
+            events.add(new OfferEventDto(id.toString(), OutboxEventType.EXPIRED, OfferStatus.UTGÅNGEN, null, now));
+        }
+        publishAfterCommit(events);
+    }
+
+    /**
+     * Open a stream for a new subscriber.
+     *
+     * @param lastEventId ID of the last event the client received before
+     *                    reconnecting, or null for live events only
+     * @return the emitter the events are written to
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber s = register(new EmitterSender(emitter), lastEventId);
+        emitter.onCompletion(() -> s.close(false));
+        emitter.onTimeout(() -> s.close(false));
+        emitter.onError(e -> s.close(false));
+        return emitter;
+    }
+
+    /**
+     * Number of connected subscribers.
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Register a subscriber, first queueing the buffered events after {@code lastEventId}.
+     * <p>
+     * Runs under the fan-out lock, so every event is either replayed here or
+     * fanned out later, never both and never neither.
+     */
+    Subscriber register(Sender sender, Long lastEventId) {
+        Subscriber s = new Subscriber(sender);
+        synchronized (subscribers) {
+            if (lastEventId != null) {
+                for (long seq = Math.max(lastEventId + 1, dispatched - ring.length); seq < dispatched; seq++) {
+                    Outgoing e = outgoing(seq);
+                    if (e != null) {
+                        s.enqueue(e);
+                    }
+                }
+            }
+            if (!s.closed.get()) {
+                subscribers.add(s);
+            }
+        }
+        return s;
+    }
+
+    private static OfferEventDto toEvent(OutboxEventType type, Offer o, LocalDateTime now) {
+        return new OfferEventDto(o.getId().toString(), type, o.getStatus(), o.getPremie(), now);
+    }
+
+    /**
+     * Publish after commit if a transaction is active, otherwise right away.
+     */
+    private void publishAfterCommit(List<OfferEventDto> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(events);
+                }
+            });
+        } else {
+            publish(events);
+        }
+    }
+
+    /**
+     * Append events to the ring and wake the dispatcher; O(1) per event
+     * regardless of the number of subscribers.
+     */
+    void publish(List<OfferEventDto> events) {
+        synchronized (ring) {
+            for (OfferEventDto e : events) {
+                ring[(int) (head & mask)] = new Slot(head, e);
+                head++;
+            }
+            ring.notifyAll();
+        }
+    }
+
+    /**
+     * Fan out new events as they are published and send heartbeats in between.
+     */
+    private void dispatchLoop() {
+        long interval = heartbeat.toNanos();
+        long nextHeartbeat = System.nanoTime() + interval;
+        while (running) {
+            try {
+                long end;
+                synchronized (ring) {
+                    long remaining;
+                    while (running && head == dispatched && (remaining = nextHeartbeat - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(ring, remaining);
+                    }
+                    end = head;
+                }
+                if (end > dispatched) {
+                    fanOut(end);
+                }
+                if (System.nanoTime() - nextHeartbeat >= 0) {
+                    for (Subscriber s : subscribers) {
+                        s.heartbeat();
+                    }
+                    nextHeartbeat = System.nanoTime() + interval;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Offer event dispatch failed", e);
+            }
+        }
+    }
+
+    /**
+     * Queue the events up to {@code end} for every subscriber.
+     */
+    private void fanOut(long end) {
+        synchronized (subscribers) {
+            // Events overwritten before the dispatcher got to them are lost for everyone
+            long from = Math.max(dispatched, end - ring.length);
+            if (from > dispatched) {
+                log.warn("Offer event dispatcher fell {} events behind the ring buffer", from - dispatched);
+                metrics.recordEventsDropped((from - dispatched) * subscribers.size());
+            }
+            for (long seq = from; seq < end; seq++) {
+                Outgoing e = outgoing(seq);
+                if (e == null) {
+                    continue;
+                }
+                for (Subscriber s : subscribers) {
+                    s.enqueue(e);
+                }
+            }
+            dispatched = end;
+        }
+    }
+
+    /**
+     * Disconnect every subscriber whose current write has overrun the deadline.
+     */
+    private void checkWrites() {
+        long now = System.nanoTime();
+        for (Subscriber s : subscribers) {
+            s.checkWrite(now);
+        }
+    }
+
+    /**
+     * Grow or shrink the sender pool; it has one extra thread per abandoned write still blocked.
+     */
+    private synchronized void resizeSenders(int delta) {
+        int size = senders.getCorePoolSize() + delta;
+        if (delta > 0) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Serialize a buffered event, or return null if it has been overwritten.
+     */
+    private Outgoing outgoing(long seq) {
+        Slot slot;
+        synchronized (ring) {
+            slot = ring[(int) (seq & mask)];
+        }
+        if (slot == null || slot.seq() != seq) {
+            return null;
+        }
+        try {
+            return new Outgoing(seq, slot.event().getType().name(), mapper.writeValueAsString(slot.event()));
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot serialize offer event {}", seq, e);
+            return null;
+        }
+    }
+
+    /**
+     * One connected client with its bounded queue.
+     * <p>
+     * At most one sender thread drains a subscriber at a time; the
+     * {@code scheduled} flag hands the queue to the pool when it becomes
+     * non-empty and back when it is empty again.
+     * <p>
+     * A subscriber disconnected by the dispatcher or the watchdog is only
+     * unregistered there; its response is ended by the sender thread once the
+     * write in progress returns, since ending it waits for that write.
+     */
+    final class Subscriber {
+
+        private final Sender sender;
+
+        private final Queue<Outgoing> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Queue length, kept separately since {@link ConcurrentLinkedQueue#size()} is O(n).
+         */
+        private final AtomicInteger size = new AtomicInteger();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * Whether the response has been ended.
+         */
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        /**
+         * {@link System#nanoTime()} at which the current write started, {@link #IDLE}
+         * between writes, or {@link #TIMED_OUT} once the watchdog abandoned it.
+         */
+        private final AtomicLong writingSince = new AtomicLong(IDLE);
+
+        /**
+         * Sender thread of the current write, interrupted if it overruns the deadline.
+         */
+        private volatile Thread writer;
+
+        Subscriber(Sender sender) {
+            this.sender = sender;
+        }
+
+        /**
+         * Queue an event, applying the overflow policy if the queue is full.
+         */
+        void enqueue(Outgoing e) {
+            if (closed.get()) {
+                return;
+            }
+            if (size.incrementAndGet() > queueSize) {
+                if (overflow == Overflow.DISCONNECT) {
+                    log.debug("Disconnecting slow offer event subscriber");
+                    // Its write is likely blocked; a sender thread ends the response once it returns
+                    unregister(true);
+                    schedule();
+                    return;
+                }
+                Outgoing dropped = queue.poll();
+                if (dropped != null) {
+                    size.decrementAndGet();
+                    if (dropped != HEARTBEAT) {
+                        metrics.recordEventsDropped(1);
+                    }
+                }
+            }
+            queue.offer(e);
+            schedule();
+        }
+
+        /**
+         * Queue a heartbeat unless events are already on their way.
+         */
+        void heartbeat() {
+            if (!closed.get() && size.get() == 0) {
+                size.incrementAndGet();
+                queue.offer(HEARTBEAT);
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    unregister(false);
+                    end();
+                }
+            }
+        }
+
+        /**
+         * Write queued events until the queue is empty, then release it;
+         * end the response if the subscriber was disconnected meanwhile.
+         */
+        private void drain() {
+            do {
+                Outgoing e;
+                while (!closed.get() && (e = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    try {
+                        write(e);
+                    } catch (IOException | RuntimeException ex) {
+                        // The client has gone away or the response has already completed
+                        close(false);
+                    }
+                }
+                scheduled.set(false);
+                // Re-check: an event queued after the last poll found the flag still set
+            } while (!closed.get() && !queue.isEmpty() && scheduled.compareAndSet(false, true));
+            if (closed.get()) {
+                end();
+            }
+        }
+
+        /**
+         * Write one event or heartbeat under the watchdog's deadline.
+         * <p>
+         * If the watchdog abandoned the write meanwhile, the subscriber is
+         * already unregistered; the extra thread lent to the pool is given
+         * back, and {@link #drain()} ends the response now that the write has
+         * returned.
+         */
+        private void write(Outgoing e) throws IOException {
+            long since = System.nanoTime();
+            writer = Thread.currentThread();
+            writingSince.set(since);
+            try {
+                if (e == HEARTBEAT) {
+                    sender.heartbeat();
+                } else {
+                    sender.send(e.id(), e.type(), e.json());
+                }
+            } finally {
+                if (!writingSince.compareAndSet(since, IDLE)) {
+                    synchronized (this) {
+                        // Clear the watchdog's interrupt so it cannot reach the pool's next task
+                        Thread.interrupted();
+                        resizeSenders(-1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Disconnect the subscriber if its current write started before the deadline.
+         *
+         * @param now current {@link System#nanoTime()}
+         */
+        void checkWrite(long now) {
+            long since = writingSince.get();
+            if (since == IDLE || since == TIMED_OUT || now - since < writeTimeout.toNanos()) {
+                return;
+            }
+            synchronized (this) {
+                if (!writingSince.compareAndSet(since, TIMED_OUT)) {
+                    return;
+                }
+                log.debug("Disconnecting offer event subscriber whose write blocked for over {}", writeTimeout);
+                // The blocked thread no longer counts against sender-threads
+                resizeSenders(1);
+                unregister(true);
+                writer.interrupt();
+            }
+        }
+
+        /**
+         * Unregister the subscriber and end its response; safe to call more than once.
+         *
+         * @param slow whether it is disconnected for falling behind
+         */
+        void close(boolean slow) {
+            if (unregister(slow)) {
+                end();
+            }
+        }
+
+        /**
+         * End the response; safe to call more than once.
+         */
+        private void end() {
+            if (ended.compareAndSet(false, true)) {
+                sender.close();
+            }
+        }
+
+        /**
+         * Unregister the subscriber and drop its queue, without touching its connection.
+         *
+         * @param slow whether it is disconnected for falling behind
+         * @return false if it was already closed
+         */
+        private boolean unregister(boolean slow) {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            subscribers.remove(this);
+            queue.clear();
+            size.set(0);
+            if (slow) {
+                metrics.recordEventsDisconnected();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sender writing to a servlet-async SSE response.
+     */
+    private record EmitterSender(SseEmitter emitter) implements Sender {
+
+        @Override
+        public void send(long id, String type, String json) throws IOException {
+            emitter.send(SseEmitter.event().id(Long.toString(id)).name(type).data(json));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.gofido.service;
+
+import com.example.gofido.repository.OfferDeadline;
+import com.example.gofido.repository.OfferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Expires offers in near-real time as their validity (giltigTill) passes.
+ * <p>
+ * The deadlines of open offers expiring within {@code offer.expiry.horizon}
+ * are held in a {@link TimerWheel}, together with every offer already overdue
+ * when the application starts. Each tick advances the wheel and expires the
+ * offers whose deadline has passed through {@link AnonymizationService#expire},
+ * at most {@code offer.expiry.batch-size} per tick, so expiry and anonymization
+ * happen within seconds of the deadline as a steady trickle of small
+ * transactions instead of one burst at midnight.
+ * <p>
+ * The next window of deadlines is loaded every {@code offer.expiry.refill-interval}.
+ * New offers are valid for {@code offer.valid-days}, which is longer than the
+ * horizon, so they are always beyond the loaded window when created and are
+ * picked up by a later refill; the wheel never needs to be told about them.
+ * Offers accepted or archived before their deadline are skipped when it fires.
+ * <p>
+ * With several instances, only the one holding the {@code offer-expiry} lease
+ * runs the timer; it renews the lease every tick. If it stops, another
+ * instance takes the lease over once it lapses and starts from a fresh load,
+ * including everything that became overdue in between.
+ */
+@Slf4j
+@Service
+public class OfferExpiryService {
+
+    /**
+     * Name of the lease held by the instance running the timer.
+     */
+    static final String LEASE = "offer-expiry";
+
+    /**
+     * Repository the deadlines are loaded from.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Service that expires each batch in one transaction.
+     */
+    private final AnonymizationService anonymization;
+
+    /**
+     * Metrics the expired offers are counted in.
+     */
+    private final OfferMetrics metrics;
+
+    /**
+     * Lease that keeps the timer running on one instance at a time.
+     */
+    private final LeaseService leases;
+
+    /**
+     * How long the lease is valid without renewal.
+     */
+    private final Duration leaseTtl;
+
+    /**
+     * Resolution of the wheel.
+     */
+    private final Duration tick;
+
+    /**
+     * Whether the timer runs at all.
+     */
+    private final boolean enabled;
+
+    /**
+     * How far ahead deadlines are loaded into the wheel.
+     */
+    private final Duration horizon;
+
+    /**
+     * Interval between loads of the next window of deadlines.
+     */
+    private final Duration refillInterval;
+
+    /**
+     * Maximum number of offers expired per tick.
+     */
+    private final int batchSize;
+
+    /**
+     * Deadlines of open offers expiring within the loaded window; replaced
+     * whenever this instance gains the lease.
+     */
+    private volatile TimerWheel wheel;
+
+    /**
+     * Offers whose deadline has passed but that have not been expired yet.
+     * Only touched by the tick, which runs on one thread at a time.
+     */
+    private final Deque<UUID> pending = new ArrayDeque<>();
+
+    /**
+     * Number of offers in {@link #pending}, readable by the metrics gauge.
+     */
+    private volatile int pendingCount;
+
+    /**
+     * End of the window loaded into the wheel, or null before the first load.
+     */
+    private LocalDateTime loadedUntil;
+
+    /**
+     * Time of the next load of deadlines.
+     */
+    private LocalDateTime nextRefill;
+
+    /**
+     * Create the timer and register its gauges.
+     *
+     * @param repo           repository the deadlines are loaded from
+     * @param anonymization  service that expires each batch
+     * @param metrics        metrics the timer reports to
+     * @param leases         lease service keeping the timer on one instance
+     * @param leaseTtl       how long the lease is valid without renewal
+     * @param enabled        whether the timer runs
+     * @param tick           resolution of the wheel, also the interval between ticks
+     * @param horizon        how far ahead deadlines are loaded; capped at {@code offer.valid-days}
+     * @param refillInterval interval between loads; must be shorter than the horizon
+     * @param batchSize      maximum number of offers expired per tick
+     * @param validDays      validity of new offers in days
+     * @throws IllegalArgumentException if the refill interval is not shorter than the horizon
+     *                                  or the batch size is not positive
+     */
+    public OfferExpiryService(OfferRepository repo, AnonymizationService anonymization, OfferMetrics metrics,
+                              LeaseService leases,
+                              @Value("${offer.cluster.lease-ttl:PT30S}") Duration leaseTtl,
+                              @Value("${offer.expiry.enabled:true}") boolean enabled,
+                              @Value("${offer.expiry.tick:PT1S}") Duration tick,
+                              @Value("${offer.expiry.horizon:PT24H}") Duration horizon,
+                              @Value("${offer.expiry.refill-interval:PT1H}") Duration refillInterval,
+                              @Value("${offer.expiry.batch-size:500}") int batchSize,
+                              @Value("${offer.valid-days}") int validDays) {
+        // A longer horizon could miss offers created after a load with a deadline inside it
+        Duration validity = Duration.ofDays(validDays);
+        Duration effectiveHorizon = horizon.compareTo(validity) > 0 ? validity : horizon;
+        if (refillInterval.compareTo(effectiveHorizon) >= 0 || batchSize < 1) {
+            throw new IllegalArgumentException(
+                    "offer.expiry.refill-interval must be shorter than the horizon and batch-size positive");
+        }
+        this.repo = repo;
+        this.anonymization = anonymization;
+        this.metrics = metrics;
+        this.leases = leases;
+        this.leaseTtl = leaseTtl;
+        this.tick = tick;
+        this.enabled = enabled;
+        this.horizon = effectiveHorizon;
+        this.refillInterval = refillInterval;
+        this.batchSize = batchSize;
+        this.wheel = new TimerWheel(tick, System.currentTimeMillis());
+        metrics.registerExpiry(this);
+    }
+
+    /**
+     * Scheduled tick: renew the lease, load the next window when due, advance
+     * the wheel and expire one batch of the offers whose deadline has passed.
+     * <p>
+     * A failed batch is put back and retried on the next tick.
+     */
+    @Scheduled(fixedDelayString = "${offer.expiry.tick:PT1S}")
+    public synchronized void tick() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (!leases.tryAcquire(LEASE, leaseTtl)) {
+                // Another instance runs the timer; start afresh if this one ever takes over
+                reset(now);
+                return;
+            }
+            if (nextRefill == null || !now.isBefore(nextRefill)) {
+                refill(now);
+            }
+            pending.addAll(wheel.advance(toMillis(now)));
+
+            // Expire at most one batch per tick, so a backlog drains at a steady rate
+            List<UUID> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            while (batch.size() < batchSize && !pending.isEmpty()) {
+                batch.add(pending.poll());
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    metrics.recordExpired(anonymization.expire(batch, now).size());
+                } catch (RuntimeException e) {
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        pending.addFirst(batch.get(i));
+                    }
+                    throw e;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Offer expiry tick failed, retrying next tick: {}", e.toString());
+        } finally {
+            pendingCount = pending.size();
+        }
+    }
+
+    /**
+     * Number of deadlines held in the wheel.
+     */
+    public int scheduled() {
+        return wheel.size();
+    }
+
+    /**
+     * Number of offers past their deadline waiting to be expired.
+     */
+    public int pending() {
+        return pendingCount;
+    }
+
+    /**
+     * Drop every deadline held, so the next refill starts with a full load.
+     */
+    private void reset(LocalDateTime now) {
+        if (loadedUntil != null) {
+            log.info("Offer expiry timer moved to another node");
+            wheel = new TimerWheel(tick, toMillis(now));
+            pending.clear();
+            loadedUntil = null;
+            nextRefill = null;
+        }
+    }
+
+    /**
+     * Load the deadlines up to {@code now + horizon} that are not loaded yet;
+     * the first load also picks up every offer already overdue.
+     */
+    private void refill(LocalDateTime now) {
+        LocalDateTime until = now.plus(horizon);
+        List<OfferDeadline> deadlines = loadedUntil == null
+                ? repo.findOpenDeadlinesUntil(until)
+                : repo.findOpenDeadlines(loadedUntil, until);
+        for (OfferDeadline d : deadlines) {
+            wheel.add(d.getId(), toMillis(d.getGiltigTill()));
+        }
+        log.debug("Scheduled {} offer expiries up to {}", deadlines.size(), until);
+        loadedUntil = until;
+        nextRefill = now.plus(refillInterval);
+    }
+
+    /**
+     * Epoch milliseconds of a local timestamp in the server's time zone, the
+     * zone giltigTill and {@link LocalDateTime#now()} are expressed in.
+     */
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.OfferMapper;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.OfferExportRow;
+import com.example.gofido.repository.OfferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service that exports offers as newline-delimited JSON for downstream warehousing.
+ * <p>
+ * Reads a forward-only cursor of offer rows per storage tier, hot table first
+ * and archive second, and writes each offer as soon as it is read, so neither
+ * entities nor the full result are ever held in memory and loans never cause
+ * extra queries.
+ */
+@Service
+@RequiredArgsConstructor // Constructor injection of repositories and JSON mapper
+public class OfferExportService {
+
+    /**
+     * Number of offers written between explicit flushes of the output.
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    /**
+     * JPA repository providing the export cursor.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Archive repository, exported after the hot table.
+     */
+    private final ArchivedOfferRepository archive;
+
+    /**
+     * JSON mapper used to serialize each offer on its own line.
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Write all matching offers to the output stream, one JSON object per line.
+     *
+     * @param status only offers with this status, or null for all
+     * @param from   only offers created at or after this time, or null
+     * @param to     only offers created before this time, or null
+     * @param out    the stream to write NDJSON to; not closed by this method
+     * @return the number of offers written
+     */
+    @Transactional(readOnly = true)
+    public long export(OfferStatus status, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        ObjectWriter writer = mapper.writerFor(OfferResponseDto.class);
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        long written = 0;
+
+        // Hot offers first, then archived ones; each tier in ID order
+        written += write(repo.streamForExport(status, from, to), writer, buffered, written);
+        written += write(archive.streamForExport(status, from, to), writer, buffered, written);
+        return written;
+    }
+
+    /**
+     * Write every row of a cursor and close it.
+     *
+     * @param rows    the cursor to drain
+     * @param written offers written before this cursor, for the flush interval
+     * @return the number of offers written from this cursor
+     */
+    private long write(Stream<OfferExportRow> rows, ObjectWriter writer, BufferedOutputStream out, long written) {
+        long count = 0;
+        try (rows) {
+            Iterator<OfferExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                writeLine(writer, out, OfferMapper.toDto(it.next()));
+                if ((written + ++count) % FLUSH_INTERVAL == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    /**
+     * Write one offer followed by a newline.
+     */
+    private void writeLine(ObjectWriter writer, OutputStream out, OfferResponseDto dto) throws IOException {
+        out.write(writer.writeValueAsBytes(dto));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.OfferMapper;
+import com.example.gofido.dto.OfferPageDto;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.exception.InvalidCursorException;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.OfferListRow;
+import com.example.gofido.repository.OfferRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service that lists offers page by page in creation order.
+ * <p>
+ * Pages are cut with keyset (seek) pagination on {@code (skapad, id)}: the
+ * cursor names the last offer of the previous page and the next page starts
+ * right after it, read from the {@code (skapad, id)} index. Unlike OFFSET
+ * paging, no skipped rows are read, so a deep page costs the same as the
+ * first, and offers created or archived between requests neither repeat nor
+ * disappear.
+ * <p>
+ * "After the cursor" is read as two seeks rather than one
+ * {@code skapad > ? or id > ?} predicate, which H2 cannot seek on: the rest
+ * of the cursor's creation time by ID, then everything from the next
+ * microsecond ({@code skapad} is stored with microsecond precision). Rows are
+ * read as projections without the loans column; when loans are asked for they
+ * are read for the whole page in one batched query per tier.
+ * <p>
+ * Both storage tiers are listed: each page reads up to {@code limit + 1} rows
+ * from the hot table and from the archive and merges them.
+ */
+@Service
+@RequiredArgsConstructor // Constructor injection of repositories
+public class OfferListingService {
+
+    /**
+     * Lower bound on creation time when no {@code from} or cursor is given.
+     */
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+
+    /**
+     * Upper bound on creation time when no {@code to} is given.
+     */
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    /**
+     * Order of the listing, as the database sorts it; UUIDs compare as unsigned numbers there.
+     */
+    private static final Comparator<Keyed> ORDER = Comparator.comparing((Keyed k) -> k.row().skapad())
+            .thenComparing(k -> k.row().id(), OfferListingService::compareUnsigned);
+
+    /**
+     * Repository of the hot table.
+     */
+    private final OfferRepository repo;
+
+    /**
+     * Repository of the archive.
+     */
+    private final ArchivedOfferRepository archive;
+
+    /**
+     * Page size when the request gives none.
+     */
+    @Value("${offer.list.default-limit:50}")
+    private int defaultLimit;
+
+    /**
+     * Largest page size a request may ask for; larger requests are capped.
+     */
+    @Value("${offer.list.max-limit:500}")
+    private int maxLimit;
+
+    /**
+     * Read one page of offers.
+     *
+     * @param status       only offers with this status, or null for all
+     * @param from         only offers created at or after this time, or null
+     * @param to           only offers created before this time, or null
+     * @param after        cursor returned with the previous page, or null for the first page
+     * @param limit        page size, or null for the default; capped at {@code offer.list.max-limit}
+     * @param includeLoans whether to include each offer's loans
+     * @return the page and the cursor of the next one
+     * @throws InvalidCursorException if the cursor was not issued by this service
+     */
+    @Transactional(readOnly = true)
+    public OfferPageDto list(OfferStatus status, LocalDateTime from, LocalDateTime to, String after,
+                             Integer limit, boolean includeLoans) {
+        int size = Math.max(1, Math.min(maxLimit, limit != null ? limit : defaultLimit));
+        LocalDateTime until = to != null ? to : LATEST;
+
+        // Seek position: right after the cursor, but never before from
+        LocalDateTime start = from != null ? from : EARLIEST;
+        Position cursor = null;
+        if (after != null && !after.isBlank()) {
+            Position decoded = decode(after);
+            if (!decoded.skapad().isBefore(start)) {
+                cursor = decoded;
+                start = decoded.skapad().plus(1, ChronoUnit.MICROS);
+            }
+        }
+
+        // One row more than the page from each tier tells whether another page follows
+        List<Keyed> rows = new ArrayList<>(2 * size + 2);
+        read(repo::findListPageAt, repo::findListPage, status, cursor, start, until, size + 1, false, rows);
+        read(archive::findListPageAt, archive::findListPage, status, cursor, start, until, size + 1, true, rows);
+        rows.sort(ORDER);
+        List<Keyed> page = rows.subList(0, Math.min(size, rows.size()));
+
+        Map<UUID, List<Loan>> loans = includeLoans ? loans(page) : Map.of();
+        List<OfferResponseDto> offers = new ArrayList<>(page.size());
+        for (Keyed k : page) {
+            offers.add(OfferMapper.toDto(k.row(), includeLoans ? loans.getOrDefault(k.row().id(), List.of()) : null));
+        }
+        String next = rows.size() > size ? encode(page.get(size - 1).row()) : null;
+        return new OfferPageDto(offers, next);
+    }
+
+    /**
+     * Read up to {@code fetch} rows of one tier from the seek position: first
+     * the rest of the cursor's creation time, then from the next microsecond
+     * on. Each part is an exact seek on the {@code (skapad, id)} index.
+     */
+    private static void read(TiedQuery tied, RangeQuery range, OfferStatus status, Position cursor,
+                             LocalDateTime start, LocalDateTime until, int fetch, boolean archived,
+                             List<Keyed> into) {
+        int found = 0;
+        if (cursor != null && cursor.skapad().isBefore(until)) {
+            for (OfferListRow r : tied.find(status, cursor.skapad(), cursor.id(), Limit.of(fetch))) {
+                into.add(new Keyed(r, archived));
+                found++;
+            }
+        }
+        if (found < fetch) {
+            for (OfferListRow r : range.find(status, start, until, Limit.of(fetch - found))) {
+                into.add(new Keyed(r, archived));
+            }
+        }
+    }
+
+    /**
+     * Loans of the offers on a page, read with one query per tier.
+     */
+    private Map<UUID, List<Loan>> loans(List<Keyed> page) {
+        List<UUID> hot = new ArrayList<>();
+        List<UUID> archived = new ArrayList<>();
+        for (Keyed k : page) {
+            (k.archived() ? archived : hot).add(k.row().id());
+        }
+        Map<UUID, List<Loan>> loans = new HashMap<>();
+        if (!hot.isEmpty()) {
+            repo.findLoansByIdIn(hot).forEach(r -> loans.put(r.id(), r.loans()));
+        }
+        if (!archived.isEmpty()) {
+            archive.findLoansByIdIn(archived).forEach(r -> loans.put(r.id(), r.loans()));
+        }
+        return loans;
+    }
+
+    /**
+     * Encode the position of an offer as an opaque, URL-safe cursor.
+     */
+    private static String encode(OfferListRow row) {
+        String key = row.skapad() + "," + row.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode}.
+     *
+     * @throws InvalidCursorException if it cannot be decoded
+     */
+    private static Position decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = key.indexOf(',');
+            if (comma < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new Position(LocalDateTime.parse(key.substring(0, comma)),
+                    UUID.fromString(key.substring(comma + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * Position of an offer in the listing, as named by a cursor.
+     */
+    private record Position(LocalDateTime skapad, UUID id) {
+    }
+
+    /**
+     * A listed offer and the tier it was read from.
+     */
+    private record Keyed(OfferListRow row, boolean archived) {
+    }
+
+    /**
+     * Listing query for the rest of one creation time, as each tier's repository declares it.
+     */
+    @FunctionalInterface
+    private interface TiedQuery {
+        List<OfferListRow> find(OfferStatus status, LocalDateTime skapad, UUID afterId, Limit limit);
+    }
+
+    /**
+     * Listing query from a creation time on, as each tier's repository declares it.
+     */
+    @FunctionalInterface
+    private interface RangeQuery {
+        List<OfferListRow> find(OfferStatus status, LocalDateTime from, LocalDateTime to, Limit limit);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the offer lifecycle.
+ * <p>
+ * Records a timer per service operation tagged with its outcome, size
+ * distributions of created offers, the result of the last anonymization
+ * run, archiving runs, outbox relay throughput and failures, the live event stream's
+ * subscribers and drops, and the expiry timer's backlog. Repository calls are timed
+ * by Spring Data's own {@code spring.data.repository.invocations} metric.
+ */
+@Component
+public class OfferMetrics {
+
+    /**
+     * Outcome tag value for operations that completed normally.
+     */
+    static final String SUCCESS = "success";
+
+    /**
+     * Registry all meters are registered with.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Number of loans per created offer.
+     */
+    private final DistributionSummary loansPerOffer;
+
+    /**
+     * Total insured amount per created offer, in SEK.
+     */
+    private final DistributionSummary insuredAmount;
+
+    /**
+     * Duration of the last anonymization run in milliseconds.
+     */
+    private final AtomicLong anonymizationDuration = new AtomicLong();
+
+    /**
+     * Number of rows anonymized by the last run.
+     */
+    private final AtomicLong anonymizationRows = new AtomicLong();
+
+    /**
+     * Register the distributions and the anonymization gauges.
+     *
+     * @param registry meter registry provided by Spring Boot Actuator
+     */
+    public OfferMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.loansPerOffer = DistributionSummary.builder("offer.loans")
+                .description("Number of loans per created offer")
+                .register(registry);
+        this.insuredAmount = DistributionSummary.builder("offer.insured.amount")
+                .description("Total insured amount per created offer")
+                .baseUnit("SEK")
+                .register(registry);
+        TimeGauge.builder("offer.anonymization.last.duration", anonymizationDuration, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Duration of the last anonymization run")
+                .register(registry);
+        Gauge.builder("offer.anonymization.last.rows", anonymizationRows, AtomicLong::get)
+                .description("Rows anonymized by the last anonymization run")
+                .register(registry);
+    }
+
+    /**
+     * Run an offer operation and record its duration tagged with the outcome.
+     * <p>
+     * The outcome is {@code success}, or the simple class name of the
+     * exception that ended the operation, e.g. {@code OfferExpiredException}.
+     * For a transactional operation the timer covers the method body only, so
+     * a conflict detected at commit is not part of the recorded outcome.
+     *
+     * @param operation operation tag, e.g. {@code create}
+     * @param action    the operation to run
+     * @return the result of the operation
+     */
+    public <T> T time(String operation, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder("offer.operation")
+                    .description("Duration of offer service operations")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record the size of a newly created offer.
+     *
+     * @param offer the persisted offer
+     */
+    public void recordCreated(Offer offer) {
+        loansPerOffer.record(offer.getLoans().size());
+        insuredAmount.record(offer.getForsakratBelopp().doubleValue());
+    }
+
+    /**
+     * Publish the result of an anonymization run and add it to the run timer.
+     *
+     * @param report the report returned by the run
+     */
+    public void recordAnonymization(AnonymizationReport report) {
+        anonymizationDuration.set(report.getDurationMillis());
+        anonymizationRows.set(report.getRows());
+        Timer.builder("offer.anonymization")
+                .description("Duration of anonymization runs")
+                .register(registry)
+                .record(report.getDurationMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record an archiving run: its duration and the offers it moved.
+     *
+     * @param report the report returned by the run
+     */
+    public void recordArchive(ArchiveReport report) {
+        registry.counter("offer.archive.rows", "reason", "accepted").increment(report.getAccepted());
+        registry.counter("offer.archive.rows", "reason", "expired").increment(report.getExpired());
+        Timer.builder("offer.archive")
+                .description("Duration of archiving runs")
+                .register(registry)
+                .record(report.getDurationMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a batch published by the outbox relay.
+     *
+     * @param events number of events in the batch
+     * @param nanos  time the sink took to accept the batch
+     */
+    public void recordOutboxPublished(int events, long nanos) {
+        registry.counter("offer.outbox.published").increment(events);
+        Timer.builder("offer.outbox.publish")
+                .description("Time the outbox sink takes to accept a batch")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a failed outbox relay attempt.
+     *
+     * @param e the error that failed the attempt
+     */
+    public void recordOutboxFailure(RuntimeException e) {
+        registry.counter("offer.outbox.failures", "exception", e.getClass().getSimpleName()).increment();
+    }
+
+    /**
+     * Report the number of connected subscribers of the live event stream.
+     *
+     * @param stream the event stream behind GET /offer/events
+     */
+    public void registerEventStream(OfferEventStream stream) {
+        Gauge.builder("offer.events.subscribers", stream, OfferEventStream::subscriberCount)
+                .description("Connected subscribers of the live offer event stream")
+                .register(registry);
+    }
+
+    /**
+     * Record events a live subscriber did not receive because it fell behind.
+     *
+     * @param events number of events dropped
+     */
+    public void recordEventsDropped(long events) {
+        registry.counter("offer.events.dropped").increment(events);
+    }
+
+    /**
+     * Record a live subscriber disconnected for falling behind.
+     */
+    public void recordEventsDisconnected() {
+        registry.counter("offer.events.disconnected").increment();
+    }
+
+    /**
+     * Report the deadlines held by the expiry timer and the offers waiting to be expired.
+     *
+     * @param expiry the expiry timer
+     */
+    public void registerExpiry(OfferExpiryService expiry) {
+        Gauge.builder("offer.expiry.scheduled", expiry, OfferExpiryService::scheduled)
+                .description("Offer deadlines held by the expiry timer")
+                .register(registry);
+        Gauge.builder("offer.expiry.pending", expiry, OfferExpiryService::pending)
+                .description("Offers past their deadline waiting to be expired")
+                .register(registry);
+    }
+
+    /**
+     * Record offers expired by the expiry timer.
+     *
+     * @param offers number of offers expired
+     */
+    public void recordExpired(int offers) {
+        registry.counter("offer.expiry.expired").increment(offers);
+    }
+
+    /**
+     * Record a request answered from its idempotency key without running it again.
+     *
+     * @param operation the replayed operation, e.g. {@code create}
+     */
+    public void recordIdempotentReplay(String operation) {
+        registry.counter("offer.idempotency.replays", "operation", operation).increment();
+    }
+}
@@ -3,21 +3,30 @@ package com.example.gofido.service;
 import com.example.gofido.domain.Loan;
 import com.example.gofido.domain.Offer;
 import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.domain.OutboxEventType;
+import com.example.gofido.dto.BatchItemResultDto;
 import com.example.gofido.dto.CreateOfferDto;
 import com.example.gofido.dto.LoanDto;
 import com.example.gofido.dto.UpdateOfferDto;
+import com.example.gofido.exception.InvalidOfferRequestException;
 import com.example.gofido.exception.OfferAlreadyAcceptedException;
 import com.example.gofido.exception.OfferExpiredException;
 import com.example.gofido.exception.OfferNotFoundException;
+import com.example.gofido.repository.ArchivedOfferRepository;
 import com.example.gofido.repository.OfferRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 /**
  * Service layer for managing insurance offers.
@@ -34,6 +43,57 @@ public class OfferService {
      */
     private final OfferRepository repo;
 
+    /**
+     * Running conversion counters, updated on create and accept once the change commits.
+     */
+    private final ConversionStatistics stats;
+
+    /**
+     * Offer cache, invalidated whenever an offer changes.
+     */
+    private final OfferCache offerCache;
+
+    /**
+     * Template used to commit each chunk of a batch in its own transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Entity manager, cleared after each batch chunk to keep memory bounded.
+     */
+    private final EntityManager em;
+
+    /**
+     * Operation timers and offer size distributions.
+     */
+    private final OfferMetrics metrics;
+
+    /**
+     * Keyed hash of the personnummer, stored for customer lookups.
+     */
+    private final PersonnummerHasher hasher;
+
+    /**
+     * Premium rate tables per bank and amount band.
+     */
+    private final PremiumCalculator premiums;
+
+    /**
+     * Transactional outbox every state change is recorded in.
+     */
+    private final OutboxService outbox;
+
+    /**
+     * Live event stream, fed once the change has committed.
+     */
+    private final OfferEventStream events;
+
+    /**
+     * Archive of accepted and expired offers, consulted to explain why an
+     * offer missing from the hot table cannot be changed.
+     */
+    private final ArchivedOfferRepository archive;
+
     /**
      * Validity period in days for newly created offers, injected from
      * configuration.
@@ -41,42 +101,170 @@ public class OfferService {
     @Value("${offer.valid-days}")
     private int validDays;
 
+    /**
+     * Maximum number of offers persisted per transaction in a batch create.
+     */
+    @Value("${offer.batch.chunk-size:500}")
+    private int batchChunkSize;
+
     /**
      * Create a new insurance offer based on client-provided data.
      * <p>
      * Steps:
      * 1. Map DTO loans to domain Loan entities.
-     * 2. Calculate total insured amount and premium (3.8%).
+     * 2. Calculate total insured amount and premium from the rate tables.
      * 3. Initialize status, creation timestamp, and expiry timestamp.
-     * 4. Persist the offer.
+     * 4. Persist the offer and record a CREATED event in the same transaction.
      *
      * @param dto the create-offer data transfer object
      * @return the persisted Offer entity with generated ID and timestamps
      */
+    @Transactional
     public Offer createOffer(CreateOfferDto dto) {
+        return metrics.time("create", () -> {
+            Offer o = newOffer(dto, LocalDateTime.now());
+
+            // Persist the new offer and count it
+            Offer saved = repo.save(o);
+            outbox.offerChanged(OutboxEventType.CREATED, saved);
+            events.offerChanged(OutboxEventType.CREATED, saved);
+            stats.recordCreated(saved);
+            metrics.recordCreated(saved);
+            return saved;
+        });
+    }
+
+    /**
+     * Create many offers in one call, e.g. a partner bank's quote file.
+     * <p>
+     * Items are consumed lazily from the iterator and persisted in chunks, each
+     * chunk in its own transaction with Hibernate JDBC batching. An item that
+     * cannot be read or is invalid is reported as failed without affecting the
+     * rest of its chunk; if a chunk fails to commit, its items are retried one
+     * by one so only the offending items are reported as failed.
+     *
+     * @param items the create-offer DTOs to persist; {@code next()} may throw for unreadable items
+     * @return one result per consumed item, in input order
+     */
+    public List<BatchItemResultDto> createOffers(Iterator<CreateOfferDto> items) {
+        List<BatchItemResultDto> results = new ArrayList<>();
+        int index = 0;
+
+        while (items.hasNext()) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Offer> chunk = new ArrayList<>(batchChunkSize);
+            List<Integer> positions = new ArrayList<>(batchChunkSize);
+
+            // Read and price up to one chunk of items
+            while (items.hasNext() && chunk.size() < batchChunkSize) {
+                int position = index++;
+                try {
+                    chunk.add(newOffer(items.next(), now));
+                    positions.add(position);
+                } catch (RuntimeException e) {
+                    results.add(BatchItemResultDto.failed(position, e.getMessage()));
+                }
+            }
+
+            try {
+                persistChunk(chunk);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(BatchItemResultDto.ok(positions.get(i), chunk.get(i).getId().toString()));
+                }
+            } catch (RuntimeException chunkFailure) {
+                // Isolate the failing items by retrying each on its own, as new offers again:
+                // the failed flush left an ID and version on each, which would make saveAll merge a copy
+                for (int i = 0; i < chunk.size(); i++) {
+                    Offer o = chunk.get(i);
+                    o.setId(null);
+                    o.setVersion(null);
+                    try {
+                        persistChunk(List.of(o));
+                        results.add(BatchItemResultDto.ok(positions.get(i), o.getId().toString()));
+                    } catch (RuntimeException e) {
+                        results.add(BatchItemResultDto.failed(positions.get(i), e.getMessage()));
+                    }
+                }
+            }
+        }
+
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return results;
+    }
+
+    /**
+     * Persist a chunk of new offers in one transaction and count them once committed.
+     * <p>
+     * The persistence context is flushed and cleared at the end of the chunk so
+     * memory stays flat regardless of the batch size.
+     */
+    private void persistChunk(List<Offer> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        tx.executeWithoutResult(status -> {
+            repo.saveAll(chunk);
+            for (Offer o : chunk) {
+                outbox.offerChanged(OutboxEventType.CREATED, o);
+                stats.recordCreated(o);
+            }
+            events.offersChanged(OutboxEventType.CREATED, chunk);
+            em.flush();
+            em.clear();
+        });
+        for (Offer o : chunk) {
+            metrics.recordCreated(o);
+        }
+    }
+
+    /**
+     * Build a new, priced offer from a create request.
+     * <p>
+     * Steps:
+     * 1. Map DTO loans to domain Loan entities and sum the insured amount in one pass.
+     * 2. Calculate the premium from the rate tables.
+     * 3. Initialize status, creation timestamp, and expiry timestamp.
+     *
+     * @param dto the create-offer data transfer object
+     * @param now the creation timestamp to use
+     * @return a transient Offer ready to be persisted
+     * @throws InvalidOfferRequestException if the request has no loans
+     */
+    private Offer newOffer(CreateOfferDto dto, LocalDateTime now) {
+        if (dto == null || dto.getLån() == null || dto.getLån().isEmpty()) {
+            throw new InvalidOfferRequestException("Offer must contain at least one loan");
+        }
         Offer o = new Offer();
         o.setPersonnummer(dto.getPersonnummer());
-        // Map each LoanDto to a Loan entity
-        o.setLoans(dto.getLån().stream()
-                .map(l -> new Loan(l.getBank(), l.getBelopp()))
-                .collect(Collectors.toList()));
+        o.setPersonnummerHash(hasher.hash(dto.getPersonnummer()));
         o.setManadskostnad(dto.getManadskostnad());
-
-        // Sum up all loan amounts to determine insured amount
-        BigDecimal total = o.getLoans().stream()
-                .map(Loan::getBelopp)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        o.setForsakratBelopp(total);
-        // Premium is 3.8% of total insured amount
-        o.setPremie(total.multiply(BigDecimal.valueOf(0.038)));
+        applyLoans(o, dto.getLån());
 
         // Set initial status and timestamps
         o.setStatus(OfferStatus.SKAPAD);
-        o.setSkapad(LocalDateTime.now());
-        o.setGiltigTill(o.getSkapad().plusDays(validDays));
+        o.setSkapad(now);
+        o.setGiltigTill(now.plusDays(validDays));
+        return o;
+    }
 
-        // Persist and return the new offer
-        return repo.save(o);
+    /**
+     * Replace the loans of an offer and recalculate insured amount and premium.
+     *
+     * @param o   the offer to update
+     * @param lån the new loans
+     */
+    private void applyLoans(Offer o, List<LoanDto> lån) {
+        // Map each LoanDto to a Loan entity while summing the amounts
+        List<Loan> loans = new ArrayList<>(lån.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (LoanDto l : lån) {
+            loans.add(new Loan(l.getBank(), l.getBelopp()));
+            total = total.add(l.getBelopp());
+        }
+        o.setLoans(loans);
+        o.setForsakratBelopp(total);
+        // Premium per loan from its bank's rate table, rounded once to öre
+        o.setPremie(premiums.premium(loans));
     }
 
     /**
@@ -84,6 +272,8 @@ public class OfferService {
      * <p>
      * Validates status and expiry before applying changes.
      * Recalculates insured amount and premium based on updated loans.
+     * Runs in one transaction; the version column makes the write fail with an
+     * optimistic locking conflict if the offer was accepted or updated meanwhile.
      *
      * @param id  the unique identifier of the offer to update
      * @param dto the update-offer DTO with new loan list and monthly cost
@@ -92,62 +282,112 @@ public class OfferService {
      * @throws OfferAlreadyAcceptedException if the offer has already been accepted
      * @throws OfferExpiredException         if the offer has expired
      */
-    public Offer updateOffer(String id, UpdateOfferDto dto) {
-        // Load existing offer or throw if missing
-        Offer o = repo.findById(id)
-                .orElseThrow(() -> new OfferNotFoundException(id));
-        // Prevent updates on already accepted offers
-        if (o.getStatus() != OfferStatus.SKAPAD) {
-            throw new OfferAlreadyAcceptedException(id);
-        }
-        // Prevent updates on expired offers
-        if (LocalDateTime.now().isAfter(o.getGiltigTill())) {
-            throw new OfferExpiredException(id);
-        }
-
-        // Apply new personal number and monthly cost
-        o.setPersonnummer(dto.getPersonnummer());
-        o.setManadskostnad(dto.getManadskostnad());
+    @Transactional
+    public Offer updateOffer(UUID id, UpdateOfferDto dto) {
+        return metrics.time("update", () -> {
+            // Load existing offer or throw if missing
+            Offer o = repo.findById(id)
+                    .orElseThrow(() -> notOpen(id));
+            // Prevent updates on already accepted offers
+            if (o.getStatus() == OfferStatus.TECKNAD) {
+                throw new OfferAlreadyAcceptedException(id.toString());
+            }
+            // Prevent updates on expired offers, whether or not the expiry timer has reached them
+            if (o.getStatus() == OfferStatus.UTGÅNGEN || LocalDateTime.now().isAfter(o.getGiltigTill())) {
+                throw new OfferExpiredException(id.toString());
+            }
 
-        // Map and set new list of loans
-        List<Loan> loans = dto.getLån().stream()
-                .map(l -> new Loan(l.getBank(), l.getBelopp()))
-                .collect(Collectors.toList());
-        o.setLoans(loans);
+            // Apply new personal number and monthly cost
+            o.setPersonnummer(dto.getPersonnummer());
+            o.setPersonnummerHash(hasher.hash(dto.getPersonnummer()));
+            o.setManadskostnad(dto.getManadskostnad());
 
-        // Recompute total insured amount and premium
-        BigDecimal total = loans.stream()
-                .map(Loan::getBelopp)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        o.setForsakratBelopp(total);
-        o.setPremie(total.multiply(BigDecimal.valueOf(0.038)));
+            // Set new list of loans and recompute total insured amount and premium
+            applyLoans(o, dto.getLån());
 
-        // Persist the updated offer
-        return repo.save(o);
+            // Persist the updated offer and drop any cached copy
+            Offer saved = repo.save(o);
+            outbox.offerChanged(OutboxEventType.UPDATED, saved);
+            events.offerChanged(OutboxEventType.UPDATED, saved);
+            offerCache.invalidate(id);
+            return saved;
+        });
     }
 
     /**
      * Accept an existing offer, marking it as TECKNAD if still valid.
      * <p>
-     * Throws exceptions if the offer does not exist or is expired.
+     * The transition is a single conditional UPDATE that only matches an open,
+     * unexpired offer, so of several concurrent accepts exactly one succeeds.
+     * If nothing was updated, the offer is loaded to report why.
      *
      * @param id the unique identifier of the offer to accept
      * @return the updated Offer entity
-     * @throws OfferNotFoundException if no offer found for the given ID
-     * @throws OfferExpiredException  if the offer has already expired
-     */
-    public Offer acceptOffer(String id) {
-        // Retrieve offer or throw if not found
-        Offer o = repo.findById(id)
-                .orElseThrow(() -> new OfferNotFoundException(id));
-        // Prevent accepting expired offers
-        if (LocalDateTime.now().isAfter(o.getGiltigTill())) {
-            throw new OfferExpiredException(id);
+     * @throws OfferNotFoundException        if no offer found for the given ID
+     * @throws OfferAlreadyAcceptedException if the offer has already been accepted
+     * @throws OfferExpiredException         if the offer has already expired
+     */
+    @Transactional
+    public Offer acceptOffer(UUID id) {
+        return metrics.time("accept", () -> {
+            // Atomically move SKAPAD -> TECKNAD if still within validity
+            LocalDateTime now = LocalDateTime.now();
+            if (repo.acceptIfOpen(id, now) == 0) {
+                // Retrieve offer or throw if not found
+                Offer o = repo.findById(id)
+                        .orElseThrow(() -> notOpen(id));
+                // Lost the race or accepted earlier
+                if (o.getStatus() == OfferStatus.TECKNAD) {
+                    throw new OfferAlreadyAcceptedException(id.toString());
+                }
+                // Expired, or still open but past its validity period
+                throw new OfferExpiredException(id.toString());
+            }
+
+            // Reload the accepted state and publish it
+            Offer accepted = repo.findById(id)
+                    .orElseThrow(() -> new OfferNotFoundException(id.toString()));
+            outbox.offerChanged(OutboxEventType.ACCEPTED, accepted);
+            events.offerChanged(OutboxEventType.ACCEPTED, accepted);
+            offerCache.invalidate(id);
+            stats.recordAccepted(accepted);
+            return accepted;
+        });
+    }
+
+    /**
+     * Build the error for an offer that is not in the hot table.
+     * <p>
+     * Archived offers are either accepted or expired, so they are reported the
+     * same way as before they were archived.
+     *
+     * @param id the unique identifier of the offer
+     * @return the exception to throw
+     */
+    private RuntimeException notOpen(UUID id) {
+        return archive.findById(id)
+                .<RuntimeException>map(a -> a.getStatus() == OfferStatus.TECKNAD
+                        ? new OfferAlreadyAcceptedException(id.toString())
+                        : new OfferExpiredException(id.toString()))
+                .orElseGet(() -> new OfferNotFoundException(id.toString()));
+    }
+
+    /**
+     * Find a customer's open offers, i.e. SKAPAD offers that are still valid.
+     * <p>
+     * Looks up the keyed hash of the personnummer, which is indexed, so the
+     * plaintext personnummer is never used as a search key.
+     *
+     * @param personnummer the customer's personnummer
+     * @return the customer's open offers, newest first
+     * @throws InvalidOfferRequestException if no personnummer is given
+     */
+    @Transactional(readOnly = true)
+    public List<Offer> findOpenOffers(String personnummer) {
+        if (personnummer == null || personnummer.isBlank()) {
+            throw new InvalidOfferRequestException("personnummer is required");
         }
-        // Update status and timestamp for acceptance
-        o.setStatus(OfferStatus.TECKNAD);
-        o.setAccepteradVid(LocalDateTime.now());
-        return repo.save(o);
+        return repo.findOpenByPersonnummerHash(hasher.hash(personnummer), LocalDateTime.now());
     }
 
 }
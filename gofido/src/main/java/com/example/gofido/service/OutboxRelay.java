@@ -0,0 +1,151 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OutboxEvent;
+import com.example.gofido.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Drains the transactional outbox to the configured {@link OutboxSink}.
+ * <p>
+ * Each poll publishes the oldest pending events in batches and deletes every
+ * batch once the sink has accepted it, until the outbox is empty. Only one
+ * batch is held in memory at a time, and a slow sink slows the relay down
+ * rather than letting events pile up in memory. When the sink fails, the
+ * batch stays in the outbox and polling backs off exponentially.
+ * <p>
+ * With several instances, only the one holding the {@code outbox-relay} lease
+ * polls, renewing it every poll, so each event is normally published once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor // Constructor injection of repository, sink, metrics and lease service
+public class OutboxRelay {
+
+    /**
+     * Repository holding the pending events.
+     */
+    private final OutboxEventRepository events;
+
+    /**
+     * Destination of the events.
+     */
+    private final OutboxSink sink;
+
+    /**
+     * Published event counts and failures.
+     */
+    private final OfferMetrics metrics;
+
+    /**
+     * Lease that keeps the relay running on one instance at a time.
+     */
+    private final LeaseService leases;
+
+    /**
+     * Name of the relay's lease.
+     */
+    static final String LEASE = "outbox-relay";
+
+    /**
+     * Maximum number of events read, published and deleted at once.
+     */
+    @Value("${offer.outbox.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Delay between polls, also the first backoff step after a failure.
+     */
+    @Value("${offer.outbox.poll-interval:PT1S}")
+    private Duration pollInterval;
+
+    /**
+     * Upper bound of the backoff after repeated failures.
+     */
+    @Value("${offer.outbox.max-backoff:PT1M}")
+    private Duration maxBackoff;
+
+    /**
+     * How long the lease is valid without renewal.
+     */
+    @Value("${offer.cluster.lease-ttl:PT30S}")
+    private Duration leaseTtl;
+
+    /**
+     * Consecutive failed polls.
+     */
+    private int failures;
+
+    /**
+     * Earliest time of the next attempt after a failure, from {@link System#nanoTime()}.
+     */
+    private long retryAt;
+
+    /**
+     * Scheduled poll; skipped while backing off after a failure or while
+     * another instance holds the relay's lease.
+     */
+    @Scheduled(fixedDelayString = "${offer.outbox.poll-interval:PT1S}")
+    public synchronized void poll() {
+        if (failures > 0 && System.nanoTime() - retryAt < 0 || !leases.tryAcquire(LEASE, leaseTtl)) {
+            return;
+        }
+        try {
+            drain();
+            failures = 0;
+        } catch (RuntimeException e) {
+            failures++;
+            Duration backoff = backoff(failures);
+            retryAt = System.nanoTime() + backoff.toNanos();
+            metrics.recordOutboxFailure(e);
+            log.warn("Publishing offer events failed {} time(s), retrying in {}: {}", failures, backoff, e.toString());
+        }
+    }
+
+    /**
+     * Publish and delete pending events until the outbox is empty.
+     *
+     * @return the number of events published
+     * @throws RuntimeException if the sink fails; the failed batch stays in the outbox
+     */
+    public synchronized long drain() {
+        long published = 0;
+        while (true) {
+            List<OutboxEvent> batch = events.findByOrderByIdAsc(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            long start = System.nanoTime();
+            sink.publish(batch);
+            metrics.recordOutboxPublished(batch.size(), System.nanoTime() - start);
+
+            // A crash before this commits re-publishes the batch: at-least-once
+            List<UUID> ids = batch.stream().map(OutboxEvent::getId).toList();
+            events.deleteAllByIdInBatch(ids);
+            published += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Poll interval doubled per consecutive failure, capped at {@link #maxBackoff}.
+     */
+    private Duration backoff(int failures) {
+        Duration d = pollInterval;
+        for (int i = 1; i < failures && d.compareTo(maxBackoff) < 0; i++) {
+            d = d.multipliedBy(2);
+        }
+        return d.compareTo(maxBackoff) > 0 ? maxBackoff : d;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OutboxEvent;
+import com.example.gofido.domain.OutboxEventType;
+import com.example.gofido.domain.UuidV7Strategy;
+import com.example.gofido.dto.OfferMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records offer state changes in the transactional outbox.
+ * <p>
+ * Every method joins the caller's transaction and fails without one, so an
+ * event is committed or rolled back together with the change it describes.
+ * Event IDs are time-ordered UUIDs assigned here, so recording an event is a
+ * single INSERT, batched with the other inserts of the transaction.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor // Constructor injection of entity manager and JSON mapper
+public class OutboxService {
+
+    /**
+     * Entity manager the events are persisted with.
+     */
+    private final EntityManager em;
+
+    /**
+     * JSON mapper used to serialize event payloads.
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Monotonic event IDs, independent of the configured offer ID strategy.
+     */
+    private final UuidV7Strategy ids = new UuidV7Strategy();
+
+    /**
+     * Record a change whose payload is the full offer.
+     *
+     * @param type  CREATED, UPDATED or ACCEPTED
+     * @param offer the offer after the change
+     */
+    public void offerChanged(OutboxEventType type, Offer offer) {
+        record(offer.getId(), type, OfferMapper.toDto(offer));
+    }
+
+    /**
+     * Record the expiry, and with it the anonymization, of several offers.
+     *
+     * @param offerIds the expired offers
+     */
+    public void offersExpired(Collection<UUID> offerIds) {
+        for (UUID id : offerIds) {
+            record(id, OutboxEventType.EXPIRED, Map.of("offerId", id.toString()));
+        }
+    }
+
+    /**
+     * Record the re-pricing of an offer.
+     *
+     * @param offerId         the re-priced offer
+     * @param forsakratBelopp the new insured amount
+     * @param premie          the new premium
+     */
+    public void offerRepriced(UUID offerId, BigDecimal forsakratBelopp, BigDecimal premie) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("offerId", offerId.toString());
+        payload.put("forsakratBelopp", forsakratBelopp);
+        payload.put("premie", premie);
+        record(offerId, OutboxEventType.REPRICED, payload);
+    }
+
+    private void record(UUID offerId, OutboxEventType type, Object payload) {
+        OutboxEvent e = new OutboxEvent();
+        e.setId(ids.next());
+        e.setOfferId(offerId);
+        e.setType(type);
+        e.setOccurredAt(LocalDateTime.now());
+        try {
+            e.setPayload(mapper.writeValueAsString(payload));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize outbox payload for offer " + offerId, ex);
+        }
+        em.persist(e);
+    }
+}
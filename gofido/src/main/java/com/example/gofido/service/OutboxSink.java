@@ -0,0 +1,36 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination the outbox relay publishes offer events to.
+ * <p>
+ * Delivery is at-least-once: the relay deletes a batch only after
+ * {@link #publish(List)} returned, so a batch that fails, or whose deletion
+ * does not commit, is published again. Consumers de-duplicate on the event ID.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publish a batch of events in order.
+     * <p>
+     * May block to apply backpressure; throwing fails the whole batch, which is retried later.
+     *
+     * @param events the events, ordered by ID
+     */
+    void publish(List<OutboxEvent> events);
+
+    /**
+     * Render an event as one line of JSON with its payload embedded as is.
+     *
+     * @param e the event
+     * @return the event as a single-line JSON object
+     */
+    static String toJson(OutboxEvent e) {
+        return "{\"id\":\"" + e.getId() + "\",\"offerId\":\"" + e.getOfferId()
+                + "\",\"type\":\"" + e.getType() + "\",\"occurredAt\":\"" + e.getOccurredAt()
+                + "\",\"payload\":" + e.getPayload() + "}";
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.gofido.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fills in {@code personnummer_hash} for offers stored before the column existed.
+ * <p>
+ * Runs at startup. Offers are hashed in chunks, each chunk in its own
+ * transaction; a hashed row no longer matches the selection, so an
+ * interrupted run simply resumes on the next start.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor // Constructor injection of JDBC template, transaction template and hasher
+public class PersonnummerHashBackfill {
+
+    /**
+     * JDBC template for the set-based reads and writes.
+     */
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Template used to commit each chunk in its own transaction.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Keyed hash written to each offer.
+     */
+    private final PersonnummerHasher hasher;
+
+    /**
+     * Maximum number of offers hashed per transaction.
+     */
+    @Value("${offer.personnummer.backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Hash the personnummer of every offer that has one but no hash yet.
+     *
+     * @return the number of offers hashed
+     */
+    @PostConstruct
+    public long backfill() {
+        long start = System.nanoTime();
+        long offers = 0;
+
+        while (true) {
+            Integer hashed = tx.execute(status -> backfillChunk());
+            if (hashed == null || hashed == 0) {
+                break;
+            }
+            offers += hashed;
+        }
+
+        if (offers > 0) {
+            log.info("Hashed personnummer of {} offers in {} ms",
+                    offers, (System.nanoTime() - start) / 1_000_000);
+        }
+        return offers;
+    }
+
+    /**
+     * Hash the next chunk of offers.
+     *
+     * @return the number of offers hashed
+     */
+    private int backfillChunk() {
+        List<Object[]> args = new ArrayList<>(chunkSize);
+        jdbc.query("select id, personnummer from offers"
+                        + " where personnummer is not null and personnummer_hash is null limit ?",
+                rs -> {
+                    args.add(new Object[]{hasher.hash(rs.getString(2)), rs.getObject(1, UUID.class)});
+                },
+                chunkSize);
+        if (!args.isEmpty()) {
+            jdbc.batchUpdate("update offers set personnummer_hash = ? where id = ?", args);
+        }
+        return args.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.gofido.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Keyed hash of a personnummer, used as the lookup key for a customer's offers.
+ * <p>
+ * HMAC-SHA256 with a secret key means the indexed column cannot be reversed
+ * by hashing all possible personnummer values without the key, unlike a plain
+ * hash or a plaintext index. The input is normalized first so that
+ * {@code 19800101-1234} and {@code 198001011234} give the same hash.
+ */
+@Component
+public class PersonnummerHasher {
+
+    /**
+     * HMAC algorithm; its 32-byte output is stored in {@code offers.personnummer_hash}.
+     */
+    static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Initialized MAC per thread, since {@link Mac} instances are not thread-safe.
+     */
+    private final ThreadLocal<Mac> mac;
+
+    /**
+     * Create the hasher with the configured key.
+     *
+     * @param key Base64-encoded HMAC key
+     * @throws IllegalArgumentException if the key is missing or invalid
+     */
+    public PersonnummerHasher(@Value("${offer.personnummer.hmac-key}") String key) {
+        SecretKeySpec spec = new SecretKeySpec(Base64.getDecoder().decode(key), ALGORITHM);
+        // Fail at startup rather than on the first request
+        newMac(spec);
+        this.mac = ThreadLocal.withInitial(() -> newMac(spec));
+    }
+
+    /**
+     * Hash a personnummer.
+     *
+     * @param personnummer the personnummer in any common format, or null
+     * @return the 32-byte keyed hash, or null if the personnummer is null
+     */
+    public byte[] hash(String personnummer) {
+        if (personnummer == null) {
+            return null;
+        }
+        return mac.get().doFinal(normalize(personnummer).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Keep only the digits, dropping separators such as '-', '+' and spaces.
+     */
+    static String normalize(String personnummer) {
+        StringBuilder digits = new StringBuilder(personnummer.length());
+        for (int i = 0; i < personnummer.length(); i++) {
+            char c = personnummer.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    private static Mac newMac(SecretKeySpec spec) {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(spec);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid personnummer HMAC key", e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.gofido.service;
+
+import com.example.gofido.config.PremiumProperties;
+import com.example.gofido.domain.Loan;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prices loans from the configured premium rate tables.
+ * <p>
+ * The tables are converted once into immutable sorted arrays: amount band
+ * lower bounds in öre and rates in parts per million. Pricing a loan is a
+ * case-insensitive bank lookup, a binary search over the bands and one long
+ * multiplication, with no allocation. {@link BigDecimal} is only used to
+ * convert amounts in and premiums out, at scale 2 rounded half up.
+ */
+public class PremiumCalculator {
+
+    /**
+     * Rate denominator: rates are stored in parts per million.
+     */
+    static final long PPM = 1_000_000L;
+
+    /**
+     * Rate table for banks without their own table.
+     */
+    private final RateTable defaultTable;
+
+    /**
+     * Rate tables per bank, compared ignoring case so lookups need no lower-casing.
+     */
+    private final TreeMap<String, RateTable> bankTables = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Build the calculator from the configured rate tables.
+     *
+     * @param properties the rate tables
+     * @throws IllegalArgumentException if a table is empty, does not start at 0,
+     *                                  has duplicate bands or a rate with more than six decimals
+     */
+    public PremiumCalculator(PremiumProperties properties) {
+        this.defaultTable = RateTable.of("default", properties.getBands());
+        for (Map.Entry<String, List<PremiumProperties.Band>> e : properties.getBanks().entrySet()) {
+            bankTables.put(e.getKey(), RateTable.of(e.getKey(), e.getValue()));
+        }
+    }
+
+    /**
+     * Rate for a loan, in parts per million of its amount.
+     *
+     * @param bank      the lending bank, or null for the default table
+     * @param amountOre the loan amount in öre
+     * @return the rate of the matching amount band
+     */
+    public int ratePpm(String bank, long amountOre) {
+        return table(bank).rate(amountOre);
+    }
+
+    /**
+     * Premium of a single loan in öre, rounded half up.
+     *
+     * @param bank      the lending bank, or null for the default table
+     * @param amountOre the loan amount in öre
+     * @return the premium in öre
+     */
+    public long premiumOre(String bank, long amountOre) {
+        return roundHalfUp(Math.multiplyExact(amountOre, (long) ratePpm(bank, amountOre)));
+    }
+
+    /**
+     * Premium of an offer's loans.
+     * <p>
+     * Loan premiums are summed unrounded and the total rounded once, so the
+     * result does not depend on how the amount is split across loans at the same rate.
+     *
+     * @param loans the loans to price
+     * @return the premium in SEK at scale 2
+     */
+    public BigDecimal premium(List<Loan> loans) {
+        return BigDecimal.valueOf(premiumOre(loans), 2);
+    }
+
+    /**
+     * Premium of an offer's loans in öre, summed unrounded and rounded half up once.
+     *
+     * @param loans the loans to price
+     * @return the premium in öre
+     */
+    public long premiumOre(List<Loan> loans) {
+        long total = 0;
+        for (Loan l : loans) {
+            long amountOre = toOre(l.getBelopp());
+            total = Math.addExact(total, Math.multiplyExact(amountOre, (long) ratePpm(l.getBank(), amountOre)));
+        }
+        return roundHalfUp(total);
+    }
+
+    /**
+     * Convert a SEK amount to öre, rounding half up beyond two decimals.
+     *
+     * @param sek the amount in SEK
+     * @return the amount in öre
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long toOre(BigDecimal sek) {
+        return sek.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private RateTable table(String bank) {
+        if (bank == null) {
+            return defaultTable;
+        }
+        RateTable t = bankTables.get(bank);
+        return t != null ? t : defaultTable;
+    }
+
+    /**
+     * Divide a premium in öre × ppm by {@link #PPM}, rounding half away from zero.
+     */
+    private static long roundHalfUp(long orePpm) {
+        long half = PPM / 2;
+        return orePpm >= 0 ? (orePpm + half) / PPM : -((-orePpm + half) / PPM);
+    }
+
+    /**
+     * Immutable rate table: band lower bounds in öre, ascending, and their rates in ppm.
+     */
+    private static final class RateTable {
+
+        private final long[] fromOre;
+
+        private final int[] ratePpm;
+
+        private RateTable(long[] fromOre, int[] ratePpm) {
+            this.fromOre = fromOre;
+            this.ratePpm = ratePpm;
+        }
+
+        /**
+         * Validate and convert configured bands.
+         */
+        static RateTable of(String name, List<PremiumProperties.Band> bands) {
+            if (bands == null || bands.isEmpty()) {
+                throw new IllegalArgumentException("Premium rate table '" + name + "' has no bands");
+            }
+            List<PremiumProperties.Band> sorted = new ArrayList<>(bands);
+            sorted.sort(Comparator.comparing(PremiumProperties.Band::getFrom));
+            long[] from = new long[sorted.size()];
+            int[] rate = new int[sorted.size()];
+            for (int i = 0; i < from.length; i++) {
+                PremiumProperties.Band b = sorted.get(i);
+                from[i] = toOre(b.getFrom());
+                if (i > 0 && from[i] == from[i - 1]) {
+                    throw new IllegalArgumentException(
+                            "Premium rate table '" + name + "' has two bands from " + b.getFrom());
+                }
+                try {
+                    rate[i] = b.getRate().movePointRight(6).setScale(0, RoundingMode.UNNECESSARY).intValueExact();
+                } catch (ArithmeticException | NullPointerException e) {
+                    throw new IllegalArgumentException(
+                            "Premium rate table '" + name + "' has an invalid rate: " + b.getRate(), e);
+                }
+            }
+            if (from[0] != 0) {
+                throw new IllegalArgumentException("Premium rate table '" + name + "' must start at 0");
+            }
+            return new RateTable(from, rate);
+        }
+
+        /**
+         * Rate of the band with the highest lower bound not above the amount.
+         */
+        int rate(long amountOre) {
+            int i = Arrays.binarySearch(fromOre, amountOre);
+            if (i < 0) {
+                // Insertion point minus one; amounts below 0 use the first band
+                i = Math.max(-i - 2, 0);
+            }
+            return ratePpm[i];
+        }
+    }
+}
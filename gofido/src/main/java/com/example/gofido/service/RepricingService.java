@@ -0,0 +1,488 @@
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.LoanListConverter;
+import com.example.gofido.domain.RepricingCheckpoint;
+import com.example.gofido.domain.RepricingStatus;
+import com.example.gofido.repository.RepricingCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-prices every open offer after the premium rate tables changed.
+ * <p>
+ * Open offers are read in ID order in keyset-paginated chunks, priced in
+ * parallel on a dedicated fork/join pool, and written back with one batched
+ * UPDATE per chunk. Reads run outside any transaction; each chunk's writes
+ * and the checkpoint commit together in one short transaction, so a run
+ * never holds locks across the table and a failed run resumes after its last
+ * committed chunk. Writes are conditional on the version read, so an offer
+ * updated or accepted meanwhile is left alone and counted as a conflict.
+ * <p>
+ * A run holds the {@code repricing} lease, so instances sharing the database
+ * never run the job at the same time, also when several of them find an
+ * interrupted run at startup. The lease is renewed in each chunk's
+ * transaction; a run that lost it to another instance stops without writing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor // Constructor injection of templates, checkpoint repository, calculator, cache, outbox and leases
+public class RepricingService {
+
+    /**
+     * Name of the checkpoint row and of the lease used by this job.
+     */
+    static final String JOB = "repricing";
+
+    /**
+     * Keyset start below every real ID; databases order UUIDs as unsigned bytes.
+     */
+    private static final UUID FIRST = new UUID(0L, 0L);
+
+    /**
+     * Offers priced sequentially by one fork/join leaf task.
+     */
+    private static final int LEAF_SIZE = 256;
+
+    /**
+     * Version-checked write of a re-priced offer; skips offers changed since they were read.
+     */
+    private static final String UPDATE_SQL = "update offers set forsakrat_belopp = ?, premie = ?,"
+            + " version = version + 1 where id = ? and version = ? and status = 'SKAPAD'";
+
+    /**
+     * JDBC template for the chunk reads and batched writes.
+     */
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Template used to commit each chunk together with the checkpoint.
+     */
+    private final TransactionTemplate tx;
+
+    /**
+     * Checkpoint storage.
+     */
+    private final RepricingCheckpointRepository checkpoints;
+
+    /**
+     * Rate tables the offers are re-priced with.
+     */
+    private final PremiumCalculator premiums;
+
+    /**
+     * Offer cache, so re-priced offers are never served stale.
+     */
+    private final OfferCache offerCache;
+
+    /**
+     * Transactional outbox the new premiums are recorded in.
+     */
+    private final OutboxService outbox;
+
+    /**
+     * Lease that keeps the job on one instance at a time.
+     */
+    private final LeaseService leases;
+
+    /**
+     * Whether a run is in progress in this instance.
+     */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Maximum number of offers read and written per chunk.
+     */
+    @Value("${offer.repricing.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Pricing threads; 0 uses one per available processor.
+     */
+    @Value("${offer.repricing.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * Whether a run interrupted by a shutdown or crash is resumed at startup.
+     */
+    @Value("${offer.repricing.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    /**
+     * How long the lease is valid without renewal; must exceed the duration of one chunk.
+     */
+    @Value("${offer.cluster.lease-ttl:PT30S}")
+    private Duration leaseTtl;
+
+    /**
+     * Pool the pricing of each chunk is split over.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Single thread that runs jobs started through {@link #start(boolean)}.
+     */
+    private ExecutorService runner;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "repricing");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Resume a run whose checkpoint is still RUNNING, i.e. one the previous
+     * process did not get to finish.
+     * <p>
+     * The checkpoint is checked only once the lease is held: a RUNNING
+     * checkpoint seen without it may belong to a run still in progress on
+     * another instance, which may also complete it meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        if (!acquire()) {
+            log.info("Re-pricing lease is held by another node; not resuming here");
+            return;
+        }
+        if (checkpoints.findById(JOB).filter(cp -> cp.getStatus() == RepricingStatus.RUNNING).isEmpty()) {
+            finish();
+            return;
+        }
+        log.info("Resuming interrupted re-pricing run");
+        runInBackground(true);
+    }
+
+    /**
+     * Start a run in the background.
+     *
+     * @param resume whether to continue a failed or interrupted run instead of starting over
+     * @return false if a run is already in progress on this or another instance
+     */
+    public boolean start(boolean resume) {
+        if (!acquire()) {
+            return false;
+        }
+        runInBackground(resume);
+        return true;
+    }
+
+    /**
+     * Run the job in the calling thread.
+     *
+     * @param resume whether to continue a failed or interrupted run instead of starting over
+     * @return the checkpoint of the completed run
+     * @throws IllegalStateException if a run is already in progress on this or another instance,
+     *                               or the lease was lost to another instance during the run
+     * @throws RuntimeException      the error that failed the run, after recording it
+     */
+    public RepricingCheckpoint reprice(boolean resume) {
+        if (!acquire()) {
+            throw new IllegalStateException("Re-pricing is already running");
+        }
+        try {
+            return run(resume);
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Mark a run as in progress in this instance and take the lease.
+     *
+     * @return false if a run is in progress here or another instance holds the lease
+     */
+    private boolean acquire() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        if (!leases.tryAcquire(JOB, leaseTtl)) {
+            running.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Give up the lease and mark the run as finished.
+     */
+    private void finish() {
+        try {
+            leases.release(JOB);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Run the job on the runner thread; the caller has acquired the run.
+     */
+    private void runInBackground(boolean resume) {
+        runner.execute(() -> {
+            try {
+                run(resume);
+            } catch (RuntimeException e) {
+                // Already logged, and recorded in the checkpoint unless the lease was lost
+            } finally {
+                finish();
+            }
+        });
+    }
+
+    /**
+     * @return whether a run is in progress in this instance
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return the checkpoint of the current or last run, if any
+     */
+    public Optional<RepricingCheckpoint> status() {
+        return checkpoints.findById(JOB);
+    }
+
+    /**
+     * Re-price all open offers after the checkpoint, chunk by chunk.
+     */
+    private RepricingCheckpoint run(boolean resume) {
+        RepricingCheckpoint cp = begin(resume);
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.nanoTime();
+        long priorMillis = cp.getDurationMillis();
+        boolean lost = false;
+
+        try {
+            while (true) {
+                Chunk chunk = read(cp.getLastId(), now);
+                if (chunk.size == 0) {
+                    break;
+                }
+                pool.invoke(new PriceTask(chunk, 0, chunk.size));
+                if (!commit(cp, chunk, priorMillis + (System.nanoTime() - start) / 1_000_000)) {
+                    // The checkpoint now belongs to the other instance's run
+                    log.warn("Lost the re-pricing lease to another node after offer {}; stopping", cp.getLastId());
+                    lost = true;
+                    throw new IllegalStateException("Lost the re-pricing lease to another node");
+                }
+                if (chunk.size < chunkSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (lost) {
+                throw e;
+            }
+            // Record the failure on the last committed state, not on in-memory progress
+            RepricingCheckpoint failed = checkpoints.findById(JOB).orElse(cp);
+            failed.setStatus(RepricingStatus.FAILED);
+            failed.setFinishedAt(LocalDateTime.now());
+            failed.setError(truncate(String.valueOf(e.getMessage())));
+            checkpoints.save(failed);
+            log.error("Re-pricing failed after offer {}; resume with POST /admin/repricing", failed.getLastId(), e);
+            throw e;
+        }
+
+        cp.setStatus(RepricingStatus.COMPLETED);
+        cp.setFinishedAt(LocalDateTime.now());
+        cp.setDurationMillis(priorMillis + (System.nanoTime() - start) / 1_000_000);
+        cp = checkpoints.save(cp);
+        log.info("Re-priced {} of {} open offers in {} chunks ({} ms, {} rows/s, {} conflicts)",
+                cp.getRepriced(), cp.getScanned(), cp.getChunks(), cp.getDurationMillis(),
+                String.format("%.1f", cp.getRowsPerSecond()), cp.getConflicts());
+        return cp;
+    }
+
+    /**
+     * Load the checkpoint to resume from, or reset it for a fresh run, and mark it RUNNING.
+     */
+    private RepricingCheckpoint begin(boolean resume) {
+        RepricingCheckpoint cp = checkpoints.findById(JOB)
+                .filter(c -> resume && c.getStatus() != RepricingStatus.COMPLETED)
+                .orElseGet(() -> {
+                    RepricingCheckpoint fresh = new RepricingCheckpoint();
+                    fresh.setJob(JOB);
+                    fresh.setLastId(FIRST);
+                    fresh.setStartedAt(LocalDateTime.now());
+                    return fresh;
+                });
+        cp.setStatus(RepricingStatus.RUNNING);
+        cp.setFinishedAt(null);
+        cp.setError(null);
+        return checkpoints.save(cp);
+    }
+
+    /**
+     * Read the next chunk of open offers after the cursor, in ID order.
+     */
+    private Chunk read(UUID after, LocalDateTime now) {
+        Chunk chunk = new Chunk(chunkSize);
+        jdbc.query("select id, version, forsakrat_belopp, premie, loans_data from offers"
+                        + " where status = 'SKAPAD' and giltig_till > ? and id > ? order by id limit ?",
+                rs -> {
+                    chunk.add(rs.getObject(1, UUID.class), rs.getLong(2),
+                              rs.getBigDecimal(3), rs.getBigDecimal(4), rs.getBytes(5));
+                },
+                now, after, chunkSize);
+        return chunk;
+    }
+
+    /**
+     * Renew the lease, write the changed offers of a chunk and advance the
+     * checkpoint in one transaction.
+     *
+     * @return false, without writing anything, if another instance holds the lease
+     */
+    private boolean commit(RepricingCheckpoint cp, Chunk chunk, long durationMillis) {
+        List<Object[]> args = new ArrayList<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.changed[i]) {
+                args.add(new Object[]{BigDecimal.valueOf(chunk.totalOre[i], 2),
+                        BigDecimal.valueOf(chunk.premieOre[i], 2), chunk.ids[i], chunk.versions[i]});
+                ids.add(chunk.ids[i]);
+            }
+        }
+
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            if (!leases.renewWithin(JOB, leaseTtl)) {
+                return false;
+            }
+            int written = 0;
+            if (!args.isEmpty()) {
+                int[] counts = jdbc.batchUpdate(UPDATE_SQL, args);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        written++;
+                        Object[] row = args.get(i);
+                        outbox.offerRepriced((UUID) row[2], (BigDecimal) row[0], (BigDecimal) row[1]);
+                    }
+                }
+                // Evict cached copies once this chunk has committed
+                offerCache.invalidateAll(ids);
+            }
+            cp.setLastId(chunk.ids[chunk.size - 1]);
+            cp.setScanned(cp.getScanned() + chunk.size);
+            cp.setRepriced(cp.getRepriced() + written);
+            cp.setConflicts(cp.getConflicts() + args.size() - written);
+            cp.setChunks(cp.getChunks() + 1);
+            cp.setUpdatedAt(LocalDateTime.now());
+            cp.setDurationMillis(durationMillis);
+            checkpoints.save(cp);
+            return true;
+        }));
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    /**
+     * One chunk of offers as parallel arrays, filled in by the pricing tasks.
+     */
+    private static final class Chunk {
+
+        final UUID[] ids;
+        final long[] versions;
+        final BigDecimal[] oldTotal;
+        final BigDecimal[] oldPremie;
+        final byte[][] loans;
+        final long[] totalOre;
+        final long[] premieOre;
+        final boolean[] changed;
+        int size;
+
+        Chunk(int capacity) {
+            ids = new UUID[capacity];
+            versions = new long[capacity];
+            oldTotal = new BigDecimal[capacity];
+            oldPremie = new BigDecimal[capacity];
+            loans = new byte[capacity][];
+            totalOre = new long[capacity];
+            premieOre = new long[capacity];
+            changed = new boolean[capacity];
+        }
+
+        void add(UUID id, long version, BigDecimal total, BigDecimal premie, byte[] data) {
+            ids[size] = id;
+            versions[size] = version;
+            oldTotal[size] = total;
+            oldPremie[size] = premie;
+            loans[size] = data;
+            size++;
+        }
+    }
+
+    /**
+     * Prices the offers in {@code [from, to)} of a chunk, splitting the range in halves
+     * down to {@link #LEAF_SIZE} offers.
+     */
+    private final class PriceTask extends RecursiveAction {
+
+        private final Chunk chunk;
+        private final int from;
+        private final int to;
+
+        PriceTask(Chunk chunk, int from, int to) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PriceTask(chunk, from, mid), new PriceTask(chunk, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                List<Loan> loans = LoanListConverter.decode(chunk.loans[i]);
+                long total = 0;
+                for (Loan l : loans) {
+                    total = Math.addExact(total, PremiumCalculator.toOre(l.getBelopp()));
+                }
+                long premie = premiums.premiumOre(loans);
+                chunk.totalOre[i] = total;
+                chunk.premieOre[i] = premie;
+                chunk.changed[i] = chunk.oldTotal[i] == null || chunk.oldPremie[i] == null
+                        || PremiumCalculator.toOre(chunk.oldTotal[i]) != total
+                        || PremiumCalculator.toOre(chunk.oldPremie[i]) != premie;
+            }
+        }
+    }
+}
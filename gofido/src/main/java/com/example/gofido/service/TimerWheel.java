@@ -0,0 +1,182 @@
+package com.example.gofido.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hierarchical timer wheel holding the expiry deadlines of open offers.
+ * <p>
+ * Level 0 has one slot per tick; every higher level has slots 64 times as wide
+ * as the level below, so four levels span 64<sup>4</sup> ticks (about 194 days
+ * at one-second ticks). A deadline is placed in the lowest level whose span
+ * still covers it and cascades one level down each time the wheel reaches its
+ * slot, so adding a deadline is O(1) and advancing the wheel costs one slot
+ * per tick plus at most three moves per deadline, however many deadlines are
+ * held. Deadlines beyond the top level wait in an overflow list until the top
+ * level wraps.
+ * <p>
+ * Deadlines are never cancelled; the caller re-checks each fired offer
+ * against the database. All methods are synchronized, as deadlines may be
+ * added by one thread while another advances the wheel.
+ */
+public final class TimerWheel {
+
+    /**
+     * Bits of the tick number consumed per level.
+     */
+    private static final int BITS = 6;
+
+    /**
+     * Slots per level.
+     */
+    private static final int SLOTS = 1 << BITS;
+
+    /**
+     * Mask selecting a slot within a level.
+     */
+    private static final int MASK = SLOTS - 1;
+
+    /**
+     * Number of levels.
+     */
+    static final int LEVELS = 4;
+
+    /**
+     * Width of one level-0 slot in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * Slots of every level, each holding the deadlines placed there; created on first use.
+     */
+    private final List<Entry>[][] slots;
+
+    /**
+     * Deadlines beyond the span of the top level.
+     */
+    private final List<Entry> overflow = new ArrayList<>();
+
+    /**
+     * Deadlines that have passed and will be returned by the next {@link #advance}.
+     */
+    private final List<UUID> due = new ArrayList<>();
+
+    /**
+     * Tick the wheel has advanced to; deadlines up to and including it have fired.
+     */
+    private long currentTick;
+
+    /**
+     * Number of deadlines held, including those due but not yet returned.
+     */
+    private int size;
+
+    /**
+     * Create an empty wheel.
+     *
+     * @param tick        width of a level-0 slot, i.e. the firing resolution
+     * @param startMillis epoch milliseconds the wheel starts at
+     * @throws IllegalArgumentException if the tick is shorter than one millisecond
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(Duration tick, long startMillis) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Timer wheel tick must be at least 1 ms");
+        }
+        this.tickMillis = tick.toMillis();
+        this.slots = new List[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Add a deadline. A deadline that has already passed is returned by the next {@link #advance}.
+     *
+     * @param id             the offer that expires
+     * @param deadlineMillis epoch milliseconds the offer expires at
+     */
+    public synchronized void add(UUID id, long deadlineMillis) {
+        // Round up, so a deadline never fires before it has passed
+        place(new Entry(id, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis)));
+        size++;
+    }
+
+    /**
+     * Advance the wheel to a point in time and collect the deadlines that have passed.
+     *
+     * @param nowMillis epoch milliseconds to advance to
+     * @return the offers whose deadline is at or before {@code nowMillis}
+     */
+    public synchronized List<UUID> advance(long nowMillis) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < target) {
+            currentTick++;
+            // Redistribute wrapped levels top-down, so their deadlines can still fire this tick
+            if ((currentTick & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+                List<Entry> waiting = new ArrayList<>(overflow);
+                overflow.clear();
+                waiting.forEach(this::place);
+            }
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (BITS * level)) & MASK);
+                }
+            }
+            cascade(0, (int) currentTick & MASK);
+        }
+        List<UUID> fired = new ArrayList<>(due);
+        due.clear();
+        size -= fired.size();
+        return fired;
+    }
+
+    /**
+     * Number of deadlines held.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Empty one slot and re-place its deadlines relative to the current tick.
+     */
+    private void cascade(int level, int slot) {
+        List<Entry> entries = slots[level][slot];
+        if (entries != null && !entries.isEmpty()) {
+            slots[level][slot] = null;
+            entries.forEach(this::place);
+        }
+    }
+
+    /**
+     * Place a deadline in the lowest level that shares the current tick's
+     * slot on the level above, i.e. the level it will next cascade from.
+     */
+    private void place(Entry e) {
+        if (e.tick() <= currentTick) {
+            due.add(e.id());
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int above = BITS * (level + 1);
+            if ((e.tick() >>> above) == (currentTick >>> above)) {
+                int slot = (int) (e.tick() >>> (BITS * level)) & MASK;
+                List<Entry> entries = slots[level][slot];
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    slots[level][slot] = entries;
+                }
+                entries.add(e);
+                return;
+            }
+        }
+        overflow.add(e);
+    }
+
+    /**
+     * A deadline as the offer ID and the tick it fires at.
+     */
+    private record Entry(UUID id, long tick) {
+    }
+}
@@ -0,0 +1,97 @@
+-- Baseline schema: every table and index the entities map, as Hibernate generated them
+-- with ddl-auto before migrations were introduced. Later changes go in new V<n>__*.sql
+-- scripts; this file must never change once applied.
+
+-- Offers, one row each with the loans encoded in loans_data (see LoanListConverter)
+create table offers (
+    id                uuid not null,
+    personnummer      varchar(255),
+    personnummer_hash varbinary(32),
+    loans_data        varbinary(65535),
+    manadskostnad     numeric(38,2),
+    forsakrat_belopp  numeric(38,2),
+    premie            numeric(38,2),
+    status            enum ('SKAPAD','TECKNAD','UTGÅNGEN'),
+    skapad            timestamp(6),
+    giltig_till       timestamp(6),
+    accepterad_vid    timestamp(6),
+    version           bigint,
+    primary key (id)
+);
+
+-- Expiry timer and anonymization job
+create index idx_offers_status_giltig_till on offers (status, giltig_till);
+-- Acceptance counts and archiving
+create index idx_offers_status_accepterad_vid on offers (status, accepterad_vid);
+-- Customer lookups by keyed hash
+create index idx_offers_personnummer_hash on offers (personnummer_hash, status, giltig_till);
+
+-- Offers that can no longer change, moved out of offers by the archiving job
+create table offers_archive (
+    id               uuid not null,
+    personnummer     varchar(255),
+    loans_data       varbinary(65535),
+    manadskostnad    numeric(38,2),
+    forsakrat_belopp numeric(38,2),
+    premie           numeric(38,2),
+    status           enum ('SKAPAD','TECKNAD','UTGÅNGEN'),
+    skapad           timestamp(6),
+    giltig_till      timestamp(6),
+    accepterad_vid   timestamp(6),
+    arkiverad        timestamp(6),
+    primary key (id)
+);
+
+create index idx_offers_archive_status_accepterad_vid on offers_archive (status, accepterad_vid);
+
+-- Transactional outbox of offer events, drained by the relay
+create table offer_outbox (
+    id          uuid not null,
+    offer_id    uuid not null,
+    type        enum ('ACCEPTED','CREATED','EXPIRED','REPRICED','UPDATED') not null,
+    payload     varchar(65535),
+    occurred_at timestamp(6) not null,
+    primary key (id)
+);
+
+-- Progress of the re-pricing job, one row per job
+create table repricing_checkpoint (
+    job             varchar(255) not null,
+    status          enum ('COMPLETED','FAILED','RUNNING'),
+    last_id         uuid,
+    scanned         bigint not null,
+    repriced        bigint not null,
+    conflicts       bigint not null,
+    chunks          integer not null,
+    duration_millis bigint not null,
+    error           varchar(1000),
+    started_at      timestamp(6),
+    updated_at      timestamp(6),
+    finished_at     timestamp(6),
+    primary key (job)
+);
+
+-- Leases that keep scheduled work on one instance at a time
+create table scheduler_leases (
+    name       varchar(255) not null,
+    owner      varchar(255),
+    expires_at timestamp(6),
+    primary key (name)
+);
+
+-- Shards of the nightly anonymization runs
+create table job_shards (
+    id          varchar(255) not null,
+    run         varchar(255),
+    shard       integer not null,
+    from_id     uuid,
+    to_id       uuid,
+    cursor_id   uuid,
+    processed   bigint not null,
+    done        boolean not null,
+    owner       varchar(255),
+    finished_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_job_shards_run on job_shards (run);
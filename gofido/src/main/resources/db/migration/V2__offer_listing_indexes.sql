@@ -0,0 +1,3 @@
+-- Keyset-paginated listing (GET /offer) seeks on (skapad, id) in both storage tiers
+create index idx_offers_skapad_id on offers (skapad, id);
+create index idx_offers_archive_skapad_id on offers_archive (skapad, id);
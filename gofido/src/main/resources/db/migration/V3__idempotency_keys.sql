@@ -0,0 +1,13 @@
+-- Responses to requests sent with an Idempotency-Key header (POST /offer, POST /offer/{id}/accept),
+-- replayed to retries of the same request until expires_at
+create table idempotency_keys (
+    idempotency_key varchar(255) not null,
+    request_hash    varbinary(32) not null,
+    response        varchar(65535),
+    created         timestamp(6) not null,
+    expires_at      timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+-- Purge of expired keys
+create index idx_idempotency_keys_expires_at on idempotency_keys (expires_at);
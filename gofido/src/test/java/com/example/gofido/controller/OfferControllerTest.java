@@ -0,0 +1,113 @@
+/**
+ * Web-layer tests for {@link com.example.gofido.controller.OfferController}.
+ * <p>
+ * Sends requests through MockMvc against the full application and verifies
+ * that invalid requests are answered with 400 Bad Request and a reason
+ * rather than a server error, and that the export streams NDJSON.
+ */
+package com.example.gofido.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:offercontroller",
+    "offer.expiry.enabled=false"
+})
+@AutoConfigureMockMvc
+class OfferControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    /**
+     * Test that creating an offer without loans, or with an empty loan list,
+     * gets 400 with the reason.
+     */
+    @Test
+    void createWithoutLoansIsBadRequest() throws Exception {
+        mvc.perform(post("/offer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"personnummer\":\"19800101-1234\",\"manadskostnad\":5000}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Offer must contain at least one loan"));
+
+        mvc.perform(post("/offer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"personnummer\":\"19800101-1234\",\"manadskostnad\":5000,\"lån\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test that a valid create still succeeds.
+     */
+    @Test
+    void createWithLoansIsOk() throws Exception {
+        mvc.perform(post("/offer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"personnummer\":\"19800101-1234\",\"manadskostnad\":5000,"
+                                + "\"lån\":[{\"bank\":\"SEB\",\"belopp\":1000000}]}"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Test that a customer search without a personnummer gets 400.
+     */
+    @Test
+    void searchWithoutPersonnummerIsBadRequest() throws Exception {
+        mvc.perform(post("/offer/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"personnummer\":\" \"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("personnummer is required"));
+
+        mvc.perform(post("/offer/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test that the export answers application/x-ndjson with one offer per
+     * line and applies the status filter.
+     */
+    @Test
+    void exportStreamsNdjson() throws Exception {
+        createWithLoansIsOk();
+
+        String all = export("/offer/export");
+        assertTrue(all.endsWith("\n"));
+        assertTrue(all.lines().allMatch(line -> line.startsWith("{\"offerId\":")));
+        assertTrue(all.lines().count() >= 1);
+
+        assertEquals("", export("/offer/export?status=TECKNAD"));
+        assertEquals(all, export("/offer/export?status=SKAPAD"));
+
+        mvc.perform(get("/offer/export?from=yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String export(String url) throws Exception {
+        MvcResult started = mvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
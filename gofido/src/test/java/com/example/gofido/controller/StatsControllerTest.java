@@ -0,0 +1,90 @@
+/**
+ * Web-layer tests for {@link com.example.gofido.controller.StatsController}.
+ * <p>
+ * Verifies how {@code /stats/conversion/series} parses its granularity and
+ * range parameters: offers created through the service show up in the
+ * requested buckets, and values that cannot be parsed get 400 Bad Request.
+ */
+package com.example.gofido.controller;
+
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.service.Granularity;
+import com.example.gofido.service.OfferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:statscontroller",
+    "offer.expiry.enabled=false"
+})
+@AutoConfigureMockMvc
+class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private OfferService offers;
+
+    /**
+     * Test that each granularity is accepted and buckets start at its
+     * boundary, and that the default range ending now includes a new offer.
+     */
+    @Test
+    void seriesByGranularity() throws Exception {
+        LocalDateTime skapad = offers.createOffer(createDto()).getSkapad();
+        String from = skapad.minusDays(8).toString();
+        String to = skapad.plusHours(1).toString();
+
+        mvc.perform(get("/stats/conversion/series").param("granularity", "HOUR").param("from", from).param("to", to))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].start").value(iso(Granularity.HOUR.truncate(skapad))))
+                .andExpect(jsonPath("$[0].skapade").value(1));
+        mvc.perform(get("/stats/conversion/series").param("granularity", "WEEK").param("from", from).param("to", to))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start").value(iso(Granularity.WEEK.truncate(skapad))))
+                .andExpect(jsonPath("$[0].skapade").value(1));
+        // Default: DAY buckets over the 90 days up to now
+        mvc.perform(get("/stats/conversion/series"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start").value(iso(Granularity.DAY.truncate(skapad))))
+                .andExpect(jsonPath("$[0].skapade").value(1));
+    }
+
+    /**
+     * Test that an unknown granularity or a malformed timestamp gets 400.
+     */
+    @Test
+    void rejectsUnparsableParameters() throws Exception {
+        mvc.perform(get("/stats/conversion/series").param("granularity", "MONTH"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/stats/conversion/series").param("from", "2026-01-05"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static String iso(LocalDateTime t) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(t);
+    }
+
+    private static CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(5_000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(1_000_000))));
+        return dto;
+    }
+}
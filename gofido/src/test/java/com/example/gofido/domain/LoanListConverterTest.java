@@ -0,0 +1,71 @@
+/**
+ * Unit tests for {@link com.example.gofido.domain.LoanListConverter}.
+ * <p>
+ * Verifies that loans survive a round trip through the compact binary format
+ * unchanged, including scales, nulls and repeated bank names.
+ */
+package com.example.gofido.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanListConverterTest {
+
+    /**
+     * Converter under test.
+     */
+    private final LoanListConverter converter = new LoanListConverter();
+
+    /**
+     * Test that amounts keep their exact value and scale, and that null banks
+     * and amounts are preserved.
+     */
+    @Test
+    void roundTripPreservesValuesAndScale() {
+        List<Loan> loans = Arrays.asList(
+            new Loan("Handelsbanken", new BigDecimal("1200000")),
+            new Loan("SEB", new BigDecimal("800000.50")),
+            new Loan("Länsförsäkringar", new BigDecimal("-12.345")),
+            new Loan("SEB", new BigDecimal("1E+6")),
+            new Loan(null, new BigDecimal("123456789012345678901234567890.12")),
+            new Loan("Nordea", null));
+
+        List<Loan> decoded = converter.convertToEntityAttribute(converter.convertToDatabaseColumn(loans));
+
+        // Loan equality compares BigDecimal scale as well as value
+        assertEquals(loans, decoded);
+    }
+
+    /**
+     * Ensure that a repeated bank name is stored once, so more loans at the
+     * same bank cost only a few bytes each.
+     */
+    @Test
+    void repeatedBankIsStoredOnce() {
+        List<Loan> one = List.of(new Loan("Handelsbanken", BigDecimal.valueOf(1_000_000)));
+        List<Loan> ten = new ArrayList<>(Collections.nCopies(10, one.get(0)));
+
+        int oneSize = LoanListConverter.encode(one).length;
+        int tenSize = LoanListConverter.encode(ten).length;
+
+        assertTrue(tenSize - oneSize <= 9 * 6,
+                   "Each extra loan should add at most 6 bytes, was " + (tenSize - oneSize) / 9.0);
+    }
+
+    /**
+     * Ensure that empty and missing loan lists map sensibly.
+     */
+    @Test
+    void emptyAndNullLists() {
+        assertEquals(List.of(), converter.convertToEntityAttribute(converter.convertToDatabaseColumn(List.of())));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertEquals(List.of(), converter.convertToEntityAttribute(null));
+    }
+}
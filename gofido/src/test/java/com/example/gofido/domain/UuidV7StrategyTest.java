@@ -0,0 +1,54 @@
+/**
+ * Unit tests for {@link com.example.gofido.domain.UuidV7Strategy}.
+ * <p>
+ * Verifies the RFC 9562 version and variant bits and that IDs are strictly
+ * increasing in the unsigned byte order databases use for UUID columns.
+ */
+package com.example.gofido.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7StrategyTest {
+
+    /**
+     * Strategy under test.
+     */
+    private final UuidV7Strategy strategy = new UuidV7Strategy();
+
+    /**
+     * Test that IDs carry version 7, the RFC variant and the current time.
+     */
+    @Test
+    void setsVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = strategy.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1, "Timestamp should be the creation time");
+    }
+
+    /**
+     * Test that a burst of IDs, far more than one per millisecond, is strictly
+     * increasing when compared as unsigned 128-bit values.
+     */
+    @Test
+    void idsAreStrictlyIncreasing() {
+        UUID previous = strategy.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = strategy.next();
+            int cmp = Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits());
+            if (cmp == 0) {
+                cmp = Long.compareUnsigned(next.getLeastSignificantBits(), previous.getLeastSignificantBits());
+            }
+            assertTrue(cmp > 0, "ID " + next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Query plan tests for the {@code offers} table.
+ * <p>
+ * Runs H2 {@code EXPLAIN} on the SQL behind the statistics, anonymization,
+ * expiry timer, listing and customer lookups and asserts that each one is answered from its secondary
+ * index rather than a table scan, so an index dropped or reordered in the
+ * entity mapping fails the build instead of slowing down production. Uses its
+ * own database so the optimizer statistics are not skewed by other tests' rows.
+ */
+package com.example.gofido.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:queryplan")
+class OfferQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Test that counting by status uses an index with status as leading column.
+     */
+    @Test
+    void countByStatusUsesStatusIndex() {
+        String plan = explain("select count(*) from offers where status = 'TECKNAD'");
+        assertTrue(plan.contains("IDX_OFFERS_STATUS_"), plan);
+    }
+
+    /**
+     * Test that counting accepted offers before a cutoff is a range scan on
+     * (status, accepterad_vid).
+     */
+    @Test
+    void countAcceptedBeforeUsesAcceptanceIndex() {
+        String plan = explain("select count(*) from offers"
+                + " where status = 'TECKNAD' and accepterad_vid < timestamp '2025-01-01 00:00:00'");
+        assertTrue(plan.contains("IDX_OFFERS_STATUS_ACCEPTERAD_VID"), plan);
+    }
+
+    /**
+     * Test that the anonymization candidate lookup is a range scan on
+     * (status, giltig_till).
+     */
+    @Test
+    void anonymizationCandidatesUseExpiryIndex() {
+        String plan = explain("select id from offers"
+                + " where status = 'SKAPAD' and giltig_till < timestamp '2025-01-01 00:00:00'"
+                + " and id > '00000000-0000-0000-0000-000000000000'"
+                + " order by id fetch first 1000 rows only");
+        assertTrue(plan.contains("IDX_OFFERS_STATUS_GILTIG_TILL"), plan);
+    }
+
+    /**
+     * Test that loading the next window of deadlines into the expiry timer is
+     * a range scan on (status, giltig_till).
+     */
+    @Test
+    void expiryDeadlinesUseExpiryIndex() {
+        String plan = explain("select id, giltig_till from offers"
+                + " where status = 'SKAPAD' and giltig_till > timestamp '2025-01-01 00:00:00'"
+                + " and giltig_till <= timestamp '2025-01-02 00:00:00'");
+        assertTrue(plan.contains("IDX_OFFERS_STATUS_GILTIG_TILL"), plan);
+    }
+
+    /**
+     * Test that a customer lookup is a range scan on
+     * (personnummer_hash, status, giltig_till).
+     */
+    @Test
+    void customerLookupUsesPersonnummerHashIndex() {
+        // On an empty table every index costs the same, so seed distinct customers
+        jdbc.update("insert into offers (id, personnummer_hash, status, skapad, giltig_till, version)"
+                + " select random_uuid(7), secure_rand(32), 'SKAPAD', localtimestamp, localtimestamp + 30, 0"
+                + " from system_range(1, 1000)");
+        jdbc.execute("analyze");
+        String plan = explain("select id from offers where personnummer_hash = X'00112233'"
+                + " and status = 'SKAPAD' and giltig_till > timestamp '2025-01-01 00:00:00'");
+        assertTrue(plan.contains("IDX_OFFERS_PERSONNUMMER_HASH"), plan);
+    }
+
+    /**
+     * Test that both halves of a listing page after a cursor, the rest of the
+     * cursor's creation time and everything after it, seek on (skapad, id) and
+     * are read in index order, so no sort or scan of earlier rows is needed.
+     */
+    @Test
+    void listingPageSeeksOnCreationIndex() {
+        String tied = explain("select id, skapad from offers"
+                + " where skapad = timestamp '2025-01-01 00:00:00'"
+                + " and id > '00000000-0000-0000-0000-000000000000'"
+                + " order by skapad, id fetch first 51 rows only");
+        assertTrue(tied.contains("IDX_OFFERS_SKAPAD_ID: SKAPAD = TIMESTAMP '2025-01-01 00:00:00'"), tied);
+        assertTrue(tied.contains("AND ID >"), tied);
+        assertTrue(tied.contains("index sorted"), tied);
+
+        String range = explain("select id, skapad from offers"
+                + " where skapad >= timestamp '2025-01-01 00:00:00.000001'"
+                + " and skapad < timestamp '9999-12-31 00:00:00'"
+                + " order by skapad, id fetch first 51 rows only");
+        assertTrue(range.contains("IDX_OFFERS_SKAPAD_ID"), range);
+        assertTrue(range.contains("index sorted"), range);
+    }
+
+    /**
+     * Test that the plaintext personnummer is not indexed.
+     */
+    @Test
+    void personnummerIsNotIndexed() {
+        String plan = explain("select id from offers where personnummer = '19800101-1234'");
+        assertFalse(plan.contains("IDX_OFFERS_PERSONNUMMER"), plan);
+    }
+
+    /**
+     * Return H2's execution plan for a query.
+     */
+    private String explain(String sql) {
+        return jdbc.queryForObject("explain " + sql, String.class);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Statement-count tests for offer persistence.
+ * <p>
+ * Uses Hibernate statistics against the real H2 database to pin down how
+ * many JDBC statements each offer request costs, so a regression back to a
+ * per-loan collection table is caught by the build. Every change also writes
+ * one outbox row in the same transaction.
+ */
+package com.example.gofido.repository;
+
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.dto.UpdateOfferDto;
+import com.example.gofido.service.OfferService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "offer.expiry.enabled=false",
+    "offer.outbox.poll-interval=PT1H"
+})
+class OfferStatementCountTest {
+
+    /**
+     * Number of loans per offer; large enough that per-loan statements would show.
+     */
+    private static final int LOANS = 10;
+
+    @Autowired
+    private OfferService service;
+
+    @Autowired
+    private OfferRepository repo;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    /**
+     * Hibernate statistics, reset before each measured call.
+     */
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Test that creating an offer is a single offer INSERT plus the outbox
+     * INSERT, regardless of its loan count.
+     */
+    @Test
+    void createIsOneInsertPlusOutbox() {
+        statistics.clear();
+        service.createOffer(createDto());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test that reading an offer with its loans is a single SELECT.
+     */
+    @Test
+    void readIsOneStatement() {
+        UUID id = service.createOffer(createDto()).getId();
+
+        statistics.clear();
+        assertEquals(LOANS, repo.findById(id).orElseThrow().getLoans().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test that updating an offer's loans is one SELECT and one UPDATE plus
+     * the outbox INSERT, instead of deleting and re-inserting every loan.
+     */
+    @Test
+    void updateIsOneSelectAndOneUpdatePlusOutbox() {
+        UUID id = service.createOffer(createDto()).getId();
+        UpdateOfferDto update = new UpdateOfferDto();
+        update.setPersonnummer("19800101-1234");
+        update.setManadskostnad(BigDecimal.valueOf(9500));
+        update.setLån(loans(BigDecimal.valueOf(200_000)));
+
+        statistics.clear();
+        service.updateOffer(id, update);
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9500));
+        dto.setLån(loans(BigDecimal.valueOf(100_000)));
+        return dto;
+    }
+
+    private List<LoanDto> loans(BigDecimal belopp) {
+        List<LoanDto> lån = new ArrayList<>(LOANS);
+        for (int i = 0; i < LOANS; i++) {
+            lån.add(new LoanDto(i % 2 == 0 ? "SEB" : "Handelsbanken", belopp));
+        }
+        return lån;
+    }
+}
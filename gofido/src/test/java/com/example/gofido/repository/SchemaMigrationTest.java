@@ -0,0 +1,155 @@
+/**
+ * Tests for the Flyway-managed schema and the durable {@code prod} profile.
+ * <p>
+ * Hibernate's {@code validate} only checks tables and columns, so the first
+ * test compares every index declared on an entity with the indexes the
+ * migrations created. The second boots the {@code prod} profile twice against
+ * one database file and verifies that offers survive the restart and that
+ * the migrations are applied only once, and the third that the profile
+ * refuses to start without a personnummer HMAC key.
+ */
+package com.example.gofido.repository;
+
+import com.example.gofido.GofidoApplication;
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.service.OfferService;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:schema")
+class SchemaMigrationTest {
+
+    /**
+     * Personnummer HMAC key passed to the {@code prod} profile, which has no default.
+     */
+    private static final String HMAC_KEY = "dGVzdC1vbmx5LXBlcnNvbm51bW1lci1obWFjLWtleQ==";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Test that every index declared in an entity mapping exists, on the same
+     * columns in the same order, in the schema built by the migrations.
+     */
+    @Test
+    void migrationsCreateEveryMappedIndex() throws Exception {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+
+        int checked = 0;
+        for (var candidate : scanner.findCandidateComponents("com.example.gofido.domain")) {
+            Table table = Class.forName(candidate.getBeanClassName()).getAnnotation(Table.class);
+            for (Index index : table.indexes()) {
+                List<String> columns = jdbc.queryForList(
+                        "select c.column_name from information_schema.index_columns c"
+                                + " where c.table_name = ? and c.index_name = ? order by c.ordinal_position",
+                        String.class, table.name().toUpperCase(Locale.ROOT), index.name().toUpperCase(Locale.ROOT));
+                assertEquals(index.columnList().replace(" ", "").toUpperCase(Locale.ROOT), String.join(",", columns),
+                        table.name() + "." + index.name());
+                checked++;
+            }
+        }
+        assertTrue(checked >= 5, "found the mapped indexes");
+    }
+
+    /**
+     * Test that the {@code prod} profile stores offers in a file that outlives
+     * the application, and that a restart validates the schema without
+     * migrating it again.
+     */
+    @Test
+    void prodProfileKeepsOffersAcrossRestarts() {
+        Path db = Path.of("target", "prod-test", UUID.randomUUID().toString(), "gofido").toAbsolutePath();
+
+        UUID id;
+        List<String> migrated;
+        try (ConfigurableApplicationContext ctx = startProd(db)) {
+            OfferService service = ctx.getBean(OfferService.class);
+            id = service.createOffer(createDto()).getId();
+            service.acceptOffer(id);
+            migrated = migrations(ctx);
+        }
+        assertFalse(migrated.isEmpty());
+
+        try (ConfigurableApplicationContext ctx = startProd(db)) {
+            Offer offer = ctx.getBean(OfferRepository.class).findById(id).orElseThrow();
+            assertEquals(OfferStatus.TECKNAD, offer.getStatus());
+            assertEquals(migrated, migrations(ctx));
+        }
+    }
+
+    /**
+     * Test that the {@code prod} profile does not fall back to the development
+     * HMAC key: without {@code OFFER_PERSONNUMMER_HMAC_KEY} startup fails.
+     */
+    @Test
+    void prodProfileRequiresHmacKey() {
+        assumeTrue(System.getenv("OFFER_PERSONNUMMER_HMAC_KEY") == null, "key set in the environment");
+        Path db = Path.of("target", "prod-test", UUID.randomUUID().toString(), "gofido").toAbsolutePath();
+
+        BeanCreationException e = assertThrows(BeanCreationException.class, () -> startProd(db, null).close());
+        assertTrue(e.getMostSpecificCause().getMessage().contains("OFFER_PERSONNUMMER_HMAC_KEY"),
+                e.getMostSpecificCause().getMessage());
+    }
+
+    /**
+     * Versions of the migrations applied so far, in order.
+     */
+    private static List<String> migrations(ConfigurableApplicationContext ctx) {
+        return ctx.getBean(JdbcTemplate.class).queryForList("select \"version\" from \"flyway_schema_history\""
+                + " where \"type\" = 'SQL' order by \"installed_rank\"", String.class);
+    }
+
+    private static ConfigurableApplicationContext startProd(Path db) {
+        return startProd(db, HMAC_KEY);
+    }
+
+    /**
+     * Start the {@code prod} profile; a null key leaves the HMAC key unset.
+     */
+    private static ConfigurableApplicationContext startProd(Path db, String hmacKey) {
+        SpringApplication app = new SpringApplication(GofidoApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=prod",
+                "--offer.db.path=" + db,
+                "--offer.expiry.enabled=false",
+                "--offer.outbox.poll-interval=PT1H"));
+        if (hmacKey != null) {
+            args.add("--offer.personnummer.hmac-key=" + hmacKey);
+        }
+        return app.run(args.toArray(String[]::new));
+    }
+
+    private static CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(5_000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(1_000_000))));
+        return dto;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.AnonymizationService}.
+ * <p>
+ * Verifies that expired offers are expired and anonymized chunk by chunk using
+ * keyset pagination, that the run report reflects the work done, and that the
+ * timer's batches only expire offers that are still open.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnonymizationServiceTest {
+
+    /**
+     * Candidate IDs in ascending order.
+     */
+    private static final UUID A = new UUID(0, 1);
+    private static final UUID B = new UUID(0, 2);
+    private static final UUID C = new UUID(0, 3);
+    private static final UUID D = new UUID(0, 4);
+    private static final UUID E = new UUID(0, 5);
+
+    /**
+     * Upper bound of the whole ID space.
+     */
+    private static final UUID LAST = new UUID(-1, -1);
+
+    /**
+     * Mocked repository to simulate the candidate query and bulk update.
+     */
+    @Mock
+    private OfferRepository repo;
+
+    /**
+     * Mocked transaction manager backing the transaction template.
+     */
+    @Mock
+    private PlatformTransactionManager txManager;
+
+    /**
+     * Mocked offer cache.
+     */
+    @Mock
+    private OfferCache offerCache;
+
+    /**
+     * Mocked outbox.
+     */
+    @Mock
+    private OutboxService outbox;
+
+    /**
+     * Mocked live event stream.
+     */
+    @Mock
+    private OfferEventStream events;
+
+    /**
+     * Service under test.
+     */
+    private AnonymizationService service;
+
+    /**
+     * Build the service with a chunk size of two.
+     */
+    @BeforeEach
+    void setUp() {
+        service = new AnonymizationService(repo, new TransactionTemplate(txManager), offerCache, outbox, events);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    /**
+     * Test that candidates are processed in chunks, each continuing after the
+     * last ID of the previous one, and that every chunk commits separately.
+     */
+    @Test
+    void anonymizesInKeysetChunks() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Arrange: five candidates spread over three chunks
+        when(repo.findAnonymizationCandidates(eq(OfferStatus.SKAPAD), eq(now), eq(new UUID(0, 0)), eq(LAST), any(Limit.class)))
+            .thenReturn(List.of(A, B));
+        when(repo.findAnonymizationCandidates(eq(OfferStatus.SKAPAD), eq(now), eq(B), eq(LAST), any(Limit.class)))
+            .thenReturn(List.of(C, D));
+        when(repo.findAnonymizationCandidates(eq(OfferStatus.SKAPAD), eq(now), eq(D), eq(LAST), any(Limit.class)))
+            .thenReturn(List.of(E));
+        when(repo.expireIfOpen(anyCollection())).thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+
+        // Act
+        AnonymizationReport report = service.anonymizeExpiredOffers(now);
+
+        // Assert: all rows expired in three bulk updates and three commits
+        assertEquals(5, report.getRows(), "All candidates should be anonymized");
+        assertEquals(3, report.getChunks(), "Candidates should be processed in three chunks");
+        verify(repo).expireIfOpen(List.of(A, B));
+        verify(repo).expireIfOpen(List.of(C, D));
+        verify(repo).expireIfOpen(List.of(E));
+        verify(txManager, times(3)).commit(any());
+        verify(offerCache).invalidateAll(List.of(A, B));
+        verify(offerCache).invalidateAll(List.of(E));
+        verify(outbox).offersExpired(List.of(C, D));
+    }
+
+    /**
+     * Ensure that no bulk update is issued when there is nothing to anonymize.
+     */
+    @Test
+    void noCandidatesSkipsUpdate() {
+        when(repo.findAnonymizationCandidates(any(), any(), any(), any(), any()))
+            .thenReturn(Collections.emptyList());
+
+        AnonymizationReport report = service.anonymizeExpiredOffers(LocalDateTime.now());
+
+        assertEquals(0, report.getRows());
+        assertEquals(0, report.getChunks());
+        assertEquals(0, report.getRowsPerSecond());
+        verify(repo, never()).expireIfOpen(anyCollection());
+    }
+
+    /**
+     * Test that the throughput is a rate even for a run under a millisecond.
+     */
+    @Test
+    void rowsPerSecondClampsSubMillisecondRuns() {
+        assertEquals(500_000, new AnonymizationReport(500, 1, 0).getRowsPerSecond());
+        assertEquals(500, new AnonymizationReport(500, 1, 1_000).getRowsPerSecond());
+        assertEquals(0, new AnonymizationReport(0, 0, 0).getRowsPerSecond());
+    }
+
+    /**
+     * Test that a timer batch only expires and publishes the offers the
+     * database still reports as open and past their validity.
+     */
+    @Test
+    void expireSkipsOffersNoLongerOpen() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repo.findExpiredAmong(List.of(A, B, C), now)).thenReturn(List.of(A, C));
+        when(repo.expireIfOpen(List.of(A, C))).thenReturn(2);
+
+        assertEquals(List.of(A, C), service.expire(List.of(A, B, C), now));
+        verify(outbox).offersExpired(List.of(A, C));
+        verify(events).offersExpired(List.of(A, C));
+        verify(offerCache).invalidateAll(List.of(A, C));
+    }
+
+    /**
+     * Test that a timer batch whose update does not match every locked offer
+     * fails without publishing anything, so no event names an offer that was
+     * not expired and the caller's count is never inflated.
+     */
+    @Test
+    void expireFailsWithoutEventsWhenUpdateMissesOffers() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repo.findExpiredAmong(List.of(A, B), now)).thenReturn(List.of(A, B));
+        when(repo.expireIfOpen(List.of(A, B))).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> service.expire(List.of(A, B), now));
+        verify(outbox, never()).offersExpired(anyCollection());
+        verify(events, never()).offersExpired(anyCollection());
+        verify(txManager).rollback(any());
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Integration tests for running scheduled work on several instances.
+ * <p>
+ * Boots three application contexts, each with its own node ID, against one
+ * file-based H2 database, and verifies that leases are exclusive and taken
+ * over once they lapse, and that a sharded anonymization run is shared by
+ * the nodes without expiring any offer twice, also when a shard's owner
+ * crashes, and that a node that lost a shard's lease cannot write to it.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.GofidoApplication;
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.LoanListConverter;
+import com.example.gofido.repository.JobShardRepository;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClusterSchedulingTest {
+
+    /**
+     * Shared database; a new file per test run.
+     */
+    private static final String URL = "jdbc:h2:file:./target/cluster-test/" + UUID.randomUUID()
+            + ";DB_CLOSE_ON_EXIT=FALSE";
+
+    private static final List<ConfigurableApplicationContext> NODES = new ArrayList<>();
+
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 1; i <= 3; i++) {
+            SpringApplication app = new SpringApplication(GofidoApplication.class);
+            app.setWebApplicationType(WebApplicationType.NONE);
+            NODES.add(app.run(
+                    "--spring.datasource.url=" + URL,
+                    "--offer.cluster.node-id=node-" + i,
+                    "--offer.cluster.poll-interval=PT0.05S",
+                    "--offer.cluster.shards=8",
+                    "--offer.anonymization.chunk-size=20",
+                    "--offer.expiry.enabled=false",
+                    "--offer.outbox.poll-interval=PT1H"));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        NODES.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = NODES.get(0).getBean(JdbcTemplate.class);
+        jdbc.update("delete from offer_outbox");
+        jdbc.update("delete from offers");
+        jdbc.update("delete from job_shards");
+        jdbc.update("delete from scheduler_leases");
+    }
+
+    /**
+     * Test that a lease is held by one node at a time, renewed by its holder,
+     * and taken over by another node only once it has lapsed.
+     */
+    @Test
+    void leaseIsExclusiveUntilItLapses() throws Exception {
+        LeaseService first = node(0, LeaseService.class);
+        LeaseService second = node(1, LeaseService.class);
+
+        assertTrue(first.tryAcquire("job", Duration.ofMillis(500)));
+        assertFalse(second.tryAcquire("job", Duration.ofMillis(500)));
+        assertTrue(first.tryAcquire("job", Duration.ofMillis(500)), "holder renews");
+
+        Thread.sleep(700);
+        assertTrue(second.tryAcquire("job", Duration.ofSeconds(30)));
+        assertFalse(first.tryAcquire("job", Duration.ofSeconds(30)));
+
+        second.release("job");
+        assertTrue(first.tryAcquire("job", Duration.ofSeconds(30)));
+    }
+
+    /**
+     * Test that three nodes running the same anonymization run concurrently
+     * expire every overdue offer exactly once and complete every shard.
+     */
+    @Test
+    void nodesShareShardsOfOneRun() throws Exception {
+        seedOverdue(500);
+        LocalDateTime now = LocalDateTime.now();
+
+        ExecutorService pool = Executors.newFixedThreadPool(NODES.size());
+        List<Future<AnonymizationReport>> reports = new ArrayList<>();
+        try {
+            for (int i = 0; i < NODES.size(); i++) {
+                AnonymizationCoordinator coordinator = node(i, AnonymizationCoordinator.class);
+                reports.add(pool.submit(() -> coordinator.anonymizeExpiredOffers(now)));
+            }
+            long rows = 0;
+            for (Future<AnonymizationReport> report : reports) {
+                rows += report.get().getRows();
+            }
+            assertEquals(500, rows);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(500, jdbc.queryForObject("select count(*) from offers where status = 'UTGÅNGEN'", Integer.class));
+        assertEquals(500, jdbc.queryForObject(
+                "select count(distinct offer_id) from offer_outbox where type = 'EXPIRED'", Integer.class));
+        assertEquals(500, jdbc.queryForObject("select count(*) from offer_outbox", Integer.class));
+        assertEquals(8, jdbc.queryForObject("select count(*) from job_shards where done", Integer.class));
+        assertEquals(500, jdbc.queryForObject("select sum(processed) from job_shards", Integer.class));
+        // The plan split the candidates evenly
+        assertEquals(62, jdbc.queryForObject("select min(processed) from job_shards", Integer.class));
+        assertEquals(63, jdbc.queryForObject("select max(processed) from job_shards", Integer.class));
+    }
+
+    /**
+     * Test that a shard left behind by a crashed node is taken over once its
+     * lease lapses and resumed after its last checkpoint.
+     */
+    @Test
+    void shardOfCrashedNodeIsTakenOver() {
+        List<UUID> ids = seedOverdue(50);
+        LocalDateTime now = LocalDateTime.now();
+        String run = AnonymizationCoordinator.JOB + "@" + now.plusSeconds(30).truncatedTo(ChronoUnit.MINUTES);
+
+        // A crashed node planned one shard, got through the first 10 offers and still holds the lease
+        jdbc.update("insert into job_shards (id, run, shard, from_id, to_id, cursor_id, processed, done, owner)"
+                + " values (?, ?, 0, ?, ?, ?, 0, false, 'crashed')",
+                run + "#0", run, AnonymizationService.FIRST, AnonymizationService.LAST, ids.get(9));
+        jdbc.update("insert into scheduler_leases (name, owner, expires_at)"
+                + " values (?, 'crashed', dateadd(millisecond, 500, localtimestamp))", run + "#0");
+
+        AnonymizationReport report = node(1, AnonymizationCoordinator.class).anonymizeExpiredOffers(now);
+
+        assertEquals(40, report.getRows(), "resumed after the checkpoint");
+        assertEquals("node-2", jdbc.queryForObject("select owner from job_shards where id = ?", String.class, run + "#0"));
+        assertTrue(jdbc.queryForObject("select done from job_shards where id = ?", Boolean.class, run + "#0"));
+    }
+
+    /**
+     * Test that a node whose shard lease was taken over while it processed a
+     * chunk neither checkpoints nor completes the shard, and leaves the lease
+     * to the new holder.
+     */
+    @Test
+    void stalledNodeCannotCheckpointShardTakenOver() {
+        seedOverdue(10);
+        LocalDateTime now = LocalDateTime.now();
+        String shard = AnonymizationCoordinator.JOB + "@" + now.plusSeconds(30).truncatedTo(ChronoUnit.MINUTES) + "#0";
+
+        // The node stalls past its lease in the middle of the shard, and another node takes it over
+        AnonymizationService stalled = mock(AnonymizationService.class);
+        boolean[] continued = new boolean[1];
+        when(stalled.anonymizeRange(any(), any(), any(), any())).thenAnswer(inv -> {
+            jdbc.update("update scheduler_leases set owner = 'thief', expires_at = dateadd(minute, 1, localtimestamp)"
+                    + " where name = ?", shard);
+            continued[0] = inv.<AnonymizationService.ChunkCallback>getArgument(3).committed(UUID.randomUUID(), 10);
+            // The new holder finishes the shard
+            jdbc.update("update job_shards set done = true, owner = 'thief' where id = ?", shard);
+            return new AnonymizationReport(10, 1, 0);
+        });
+
+        ConfigurableApplicationContext ctx = NODES.get(1);
+        AnonymizationCoordinator coordinator = new AnonymizationCoordinator(ctx.getBean(OfferRepository.class),
+                ctx.getBean(JobShardRepository.class), ctx.getBean(LeaseService.class), stalled,
+                ctx.getBean(TransactionTemplate.class));
+        ReflectionTestUtils.setField(coordinator, "maxShards", 8);
+        ReflectionTestUtils.setField(coordinator, "chunkSize", 20);
+        ReflectionTestUtils.setField(coordinator, "leaseTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(coordinator, "pollInterval", Duration.ofMillis(50));
+        coordinator.anonymizeExpiredOffers(now);
+
+        assertFalse(continued[0], "stopped after losing the lease");
+        assertNull(jdbc.queryForObject("select cursor_id from job_shards where id = ?", UUID.class, shard));
+        assertEquals(0, jdbc.queryForObject("select processed from job_shards where id = ?", Integer.class, shard));
+        assertEquals("thief", jdbc.queryForObject("select owner from scheduler_leases where name = ?", String.class, shard));
+        assertTrue(jdbc.queryForObject("select expires_at > localtimestamp from scheduler_leases where name = ?",
+                Boolean.class, shard), "lease not released");
+    }
+
+    private <T> T node(int i, Class<T> type) {
+        return NODES.get(i).getBean(type);
+    }
+
+    /**
+     * Insert open offers whose validity ended a day ago.
+     *
+     * @return their IDs in ascending order
+     */
+    private List<UUID> seedOverdue(int rows) {
+        byte[] loans = LoanListConverter.encode(List.of(new Loan("SEB", BigDecimal.valueOf(100_000))));
+        jdbc.update("insert into offers (id, personnummer, loans_data, premie, status, skapad, giltig_till, version)"
+                + " select random_uuid(7), '19800101-1234', ?, 3800.00, 'SKAPAD', localtimestamp - 31,"
+                + " localtimestamp - 1, 0 from system_range(1, ?)", loans, rows);
+        return jdbc.queryForList("select id from offers order by id", UUID.class);
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.ConversionStatistics}.
+ * <p>
+ * Drives transaction synchronization by hand to verify that events recorded
+ * in a transaction are counted only once it commits, that the startup rebuild
+ * and the reconciliation match the database, and that reconciliation does not
+ * mistake a commit in flight for drift.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.repository.OfferRepository;
+import com.example.gofido.repository.TierCounts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversionStatisticsTest {
+
+    /**
+     * Mocked repository returning the database counts.
+     */
+    @Mock
+    private OfferRepository repo;
+
+    /**
+     * Mocked hourly series the events are forwarded to.
+     */
+    @Mock
+    private ConversionTimeSeries series;
+
+    private ConversionStatistics stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new ConversionStatistics(repo, series);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Test that the rebuild loads the database counts, replacing what was counted before.
+     */
+    @Test
+    void rebuildLoadsCountsFromDatabase() {
+        stats.recordCreated(offer());
+        when(repo.countAllTiers()).thenReturn(counts(10, 4));
+
+        stats.rebuild();
+
+        assertEquals(10, stats.getTotal());
+        assertEquals(4, stats.getAccepted());
+    }
+
+    /**
+     * Test that events recorded in a transaction are counted on commit, and
+     * not at all on rollback.
+     */
+    @Test
+    void countsOnlyCommittedEvents() {
+        Offer offer = offer();
+
+        TransactionSynchronizationManager.initSynchronization();
+        stats.recordCreated(offer);
+        stats.recordAccepted(offer);
+        assertEquals(0, stats.getTotal());
+        assertEquals(0, stats.getAccepted());
+        commit();
+        assertEquals(1, stats.getTotal());
+        assertEquals(1, stats.getAccepted());
+        verify(series).recordCreated(offer.getSkapad());
+        verify(series).recordAccepted(offer.getSkapad(), offer.getAccepteradVid());
+
+        TransactionSynchronizationManager.initSynchronization();
+        stats.recordCreated(offer);
+        rollback();
+        assertEquals(1, stats.getTotal());
+        verify(series, times(1)).recordCreated(any());
+    }
+
+    /**
+     * Test that reconciliation corrects real drift by the difference.
+     */
+    @Test
+    void reconcileCorrectsDrift() {
+        when(repo.countAllTiers()).thenReturn(counts(3, 1));
+        stats.rebuild();
+        stats.recordCreated(offer());
+
+        // Two rows written outside the service, one of them accepted
+        when(repo.countAllTiers()).thenReturn(counts(6, 2));
+        assertTrue(stats.reconcile());
+
+        assertEquals(6, stats.getTotal());
+        assertEquals(2, stats.getAccepted());
+    }
+
+    /**
+     * Test that a round is skipped while a commit is in flight, when the
+     * database already has a row the counters have not seen yet, and runs
+     * again once the commit has completed.
+     */
+    @Test
+    void reconcileSkipsWhileCommitInFlight() {
+        when(repo.countAllTiers()).thenReturn(counts(0, 0));
+        stats.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        stats.recordCreated(offer());
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        // The row is committed in the database, the counter not yet updated
+        when(repo.countAllTiers()).thenReturn(counts(1, 0));
+        assertFalse(stats.reconcile());
+        assertEquals(0, stats.getTotal());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(stats.reconcile());
+        assertEquals(1, stats.getTotal());
+    }
+
+    /**
+     * Test that a round is skipped if a commit starts while the database is read.
+     */
+    @Test
+    void reconcileSkipsWhenCommitStartsDuringRead() {
+        TransactionSynchronizationManager.initSynchronization();
+        stats.recordCreated(offer());
+        when(repo.countAllTiers()).thenAnswer(inv -> {
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            return counts(0, 0);
+        });
+
+        assertFalse(stats.reconcile());
+        assertEquals(1, stats.getTotal());
+    }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static Offer offer() {
+        Offer o = new Offer();
+        o.setSkapad(LocalDateTime.of(2026, 1, 5, 10, 15));
+        o.setAccepteradVid(LocalDateTime.of(2026, 1, 6, 9, 0));
+        return o;
+    }
+
+    private static TierCounts counts(long total, long accepted) {
+        return new TierCounts() {
+            @Override
+            public long getTotal() {
+                return total;
+            }
+
+            @Override
+            public long getAccepted() {
+                return accepted;
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.ConversionTimeSeries} and
+ * {@link com.example.gofido.service.Granularity}.
+ * <p>
+ * Verifies that the startup rebuild adds up both tiers, that hourly buckets
+ * roll up into hours, days and ISO weeks, and how the range bounds select
+ * hourly buckets.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.dto.ConversionBucketDto;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.HourlyCount;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversionTimeSeriesTest {
+
+    /**
+     * Monday of the week most tests record into.
+     */
+    private static final LocalDate MONDAY = LocalDate.of(2026, 1, 5);
+
+    /**
+     * Mocked hot-table repository for the rebuild.
+     */
+    @Mock
+    private OfferRepository repo;
+
+    /**
+     * Mocked archive repository for the rebuild.
+     */
+    @Mock
+    private ArchivedOfferRepository archive;
+
+    private ConversionTimeSeries series;
+
+    @BeforeEach
+    void setUp() {
+        series = new ConversionTimeSeries(repo, archive);
+    }
+
+    /**
+     * Test that the rebuild sums the hourly counts of the hot table and the
+     * archive into the same buckets, and drops what was recorded before.
+     */
+    @Test
+    void rebuildAddsBothTiers() {
+        series.recordCreated(MONDAY.atTime(8, 0));
+        when(repo.countCreatedPerHour()).thenReturn(List.of(count(MONDAY, 10, 3)));
+        when(archive.countCreatedPerHour()).thenReturn(List.of(count(MONDAY, 10, 2), count(MONDAY, 11, 1)));
+        when(archive.countAcceptedPerHour()).thenReturn(List.of(count(MONDAY, 11, 1)));
+        when(archive.countConvertedPerCreationHour()).thenReturn(List.of(count(MONDAY, 10, 1)));
+
+        series.rebuild();
+
+        List<ConversionBucketDto> hours = series.query(Granularity.HOUR, MONDAY.atStartOfDay(), MONDAY.plusDays(1).atStartOfDay());
+        assertEquals(List.of(
+                new ConversionBucketDto(MONDAY.atTime(10, 0), 5, 0, 1, 20.0),
+                new ConversionBucketDto(MONDAY.atTime(11, 0), 1, 1, 0, 0.0)), hours);
+    }
+
+    /**
+     * Test that the same events roll up into hours, calendar days and ISO
+     * weeks starting on Monday, with acceptances counted in the hour they
+     * happened and conversions in the hour the offer was created.
+     */
+    @Test
+    void rollsUpByHourDayAndWeek() {
+        series.recordCreated(MONDAY.atTime(10, 15));
+        series.recordCreated(MONDAY.atTime(10, 45));
+        series.recordCreated(MONDAY.atTime(11, 5));
+        series.recordCreated(MONDAY.plusDays(1).atTime(9, 0));
+        series.recordCreated(MONDAY.plusDays(6).atTime(23, 59));
+        series.recordCreated(MONDAY.plusDays(7).atStartOfDay());
+        series.recordAccepted(MONDAY.atTime(10, 15), MONDAY.plusDays(1).atTime(9, 30));
+
+        LocalDateTime from = MONDAY.atStartOfDay();
+        LocalDateTime to = MONDAY.plusDays(14).atStartOfDay();
+
+        assertEquals(List.of(
+                new ConversionBucketDto(MONDAY.atTime(10, 0), 2, 0, 1, 50.0),
+                new ConversionBucketDto(MONDAY.atTime(11, 0), 1, 0, 0, 0.0),
+                new ConversionBucketDto(MONDAY.plusDays(1).atTime(9, 0), 1, 1, 0, 0.0),
+                new ConversionBucketDto(MONDAY.plusDays(6).atTime(23, 0), 1, 0, 0, 0.0),
+                new ConversionBucketDto(MONDAY.plusDays(7).atStartOfDay(), 1, 0, 0, 0.0)),
+                series.query(Granularity.HOUR, from, to));
+
+        assertEquals(List.of(
+                new ConversionBucketDto(MONDAY.atStartOfDay(), 3, 0, 1, 100.0 / 3),
+                new ConversionBucketDto(MONDAY.plusDays(1).atStartOfDay(), 1, 1, 0, 0.0),
+                new ConversionBucketDto(MONDAY.plusDays(6).atStartOfDay(), 1, 0, 0, 0.0),
+                new ConversionBucketDto(MONDAY.plusDays(7).atStartOfDay(), 1, 0, 0, 0.0)),
+                series.query(Granularity.DAY, from, to));
+
+        // Sunday 23:59 belongs to the week of the Monday before, Monday 00:00 starts the next
+        assertEquals(List.of(
+                new ConversionBucketDto(MONDAY.atStartOfDay(), 5, 1, 1, 20.0),
+                new ConversionBucketDto(MONDAY.plusDays(7).atStartOfDay(), 1, 0, 0, 0.0)),
+                series.query(Granularity.WEEK, from, to));
+    }
+
+    /**
+     * Test the range bounds: {@code from} selects its whole hour, {@code to}
+     * excludes the hour starting at it, an empty or reversed range returns
+     * nothing, and a week cut by the range only sums the hours inside it.
+     */
+    @Test
+    void rangeSelectsWholeHours() {
+        series.recordCreated(MONDAY.atTime(10, 5));
+        series.recordCreated(MONDAY.atTime(11, 0));
+        series.recordCreated(MONDAY.atTime(12, 30));
+        series.recordCreated(MONDAY.plusDays(2).atTime(8, 0));
+
+        // From mid-hour still includes that hour; the hour starting at 'to' is excluded
+        assertEquals(List.of(MONDAY.atTime(10, 0), MONDAY.atTime(11, 0)),
+                starts(series.query(Granularity.HOUR, MONDAY.atTime(10, 30), MONDAY.atTime(12, 0))));
+        // A 'to' within an hour includes that hour
+        assertEquals(List.of(MONDAY.atTime(11, 0), MONDAY.atTime(12, 0)),
+                starts(series.query(Granularity.HOUR, MONDAY.atTime(11, 0), MONDAY.atTime(12, 1))));
+
+        assertEquals(List.of(), series.query(Granularity.HOUR, MONDAY.atTime(11, 0), MONDAY.atTime(11, 0)));
+        assertEquals(List.of(), series.query(Granularity.DAY, MONDAY.plusDays(3).atStartOfDay(), MONDAY.atStartOfDay()));
+
+        // The week bucket keeps its Monday start but counts only Wednesday
+        assertEquals(List.of(new ConversionBucketDto(MONDAY.atStartOfDay(), 1, 0, 0, 0.0)),
+                series.query(Granularity.WEEK, MONDAY.plusDays(2).atStartOfDay(), MONDAY.plusDays(7).atStartOfDay()));
+    }
+
+    /**
+     * Test that each granularity truncates to the start of its bucket.
+     */
+    @Test
+    void granularityTruncatesToBucketStart() {
+        LocalDateTime sunday = MONDAY.plusDays(6).atTime(23, 59, 59);
+
+        assertEquals(MONDAY.plusDays(6).atTime(23, 0), Granularity.HOUR.truncate(sunday));
+        assertEquals(MONDAY.plusDays(6).atStartOfDay(), Granularity.DAY.truncate(sunday));
+        assertEquals(MONDAY.atStartOfDay(), Granularity.WEEK.truncate(sunday));
+        assertEquals(MONDAY.atStartOfDay(), Granularity.WEEK.truncate(MONDAY.atStartOfDay()));
+        // Weeks run across year boundaries: Friday 2027-01-01 is in the week of Monday 2026-12-28
+        assertEquals(LocalDate.of(2026, 12, 28).atStartOfDay(), Granularity.WEEK.truncate(LocalDate.of(2027, 1, 1).atTime(12, 0)));
+    }
+
+    private static List<LocalDateTime> starts(List<ConversionBucketDto> buckets) {
+        return buckets.stream().map(ConversionBucketDto::getStart).toList();
+    }
+
+    private static HourlyCount count(LocalDate dag, int timme, long antal) {
+        return new HourlyCount() {
+            @Override
+            public LocalDate getDag() {
+                return dag;
+            }
+
+            @Override
+            public Integer getTimme() {
+                return timme;
+            }
+
+            @Override
+            public Long getAntal() {
+                return antal;
+            }
+        };
+    }
+}
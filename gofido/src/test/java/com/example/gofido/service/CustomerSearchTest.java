@@ -0,0 +1,104 @@
+/**
+ * Integration tests for the customer offer lookup.
+ * <p>
+ * Uses the real H2 database to verify that offers are found through the keyed
+ * personnummer hash, that only open offers are returned, and that anonymized
+ * and pre-existing rows behave as expected.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CustomerSearchTest {
+
+    @Autowired
+    private OfferService service;
+
+    @Autowired
+    private OfferRepository repo;
+
+    @Autowired
+    private AnonymizationService anonymization;
+
+    @Autowired
+    private PersonnummerHasher hasher;
+
+    @Autowired
+    private PersonnummerHashBackfill backfill;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Test that only the customer's open offers are returned, whichever
+     * format the personnummer was given in.
+     */
+    @Test
+    void findsOnlyOpenOffersOfCustomer() {
+        Offer open = service.createOffer(createDto("19700101-1111"));
+        Offer accepted = service.createOffer(createDto("197001011111"));
+        service.acceptOffer(accepted.getId());
+        service.createOffer(createDto("19700101-2222"));
+
+        List<Offer> found = service.findOpenOffers("19700101 1111");
+
+        assertEquals(List.of(open.getId()), found.stream().map(Offer::getId).toList());
+    }
+
+    /**
+     * Test that expiring an offer, which anonymizes it, clears its hash, so
+     * no row can be found by the customer's personnummer any more.
+     */
+    @Test
+    void anonymizedOffersAreNotFound() {
+        Offer o = service.createOffer(createDto("19700101-3333"));
+        jdbc.update("update offers set giltig_till = ? where id = ?", LocalDateTime.now().minusDays(1), o.getId());
+
+        assertEquals(List.of(o.getId()), anonymization.expire(List.of(o.getId()), LocalDateTime.now()));
+
+        assertTrue(service.findOpenOffers("19700101-3333").isEmpty());
+        assertEquals(0, jdbc.queryForObject("select count(*) from offers where personnummer_hash = ?",
+                Integer.class, (Object) hasher.hash("19700101-3333")));
+        Offer expired = repo.findById(o.getId()).orElseThrow();
+        assertNull(expired.getPersonnummer());
+        assertNull(expired.getPersonnummerHash());
+    }
+
+    /**
+     * Test that offers stored before the hash column existed are hashed at startup.
+     */
+    @Test
+    void backfillHashesExistingOffers() {
+        UUID id = UUID.randomUUID();
+        jdbc.update("insert into offers (id, personnummer, status, skapad, giltig_till, version)"
+                    + " values (?, '19700101-4444', 'SKAPAD', ?, ?, 0)",
+                    id, LocalDateTime.now(), LocalDateTime.now().plusDays(30));
+
+        assertEquals(1, backfill.backfill());
+
+        assertEquals(List.of(id), service.findOpenOffers("19700101-4444").stream().map(Offer::getId).toList());
+    }
+
+    private CreateOfferDto createDto(String personnummer) {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer(personnummer);
+        dto.setManadskostnad(BigDecimal.valueOf(9500));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        return dto;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.IdempotencyService}.
+ * <p>
+ * Runs requests through the real offer service and verifies that a key is
+ * answered once: retries, concurrent duplicates and another instance sharing
+ * the database get the first response back without creating another offer,
+ * while a failed request leaves the key free and a different request with
+ * the same key is rejected.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.dto.OfferMapper;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.exception.IdempotencyKeyReusedException;
+import com.example.gofido.exception.InvalidIdempotencyKeyException;
+import com.example.gofido.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:idempotency",
+    "offer.expiry.enabled=false"
+})
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private OfferService offers;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Number of times the request actually ran.
+     */
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from idempotency_keys");
+        runs.set(0);
+    }
+
+    /**
+     * Test that a retry gets the first response back, recorded in the
+     * database, without creating a second offer.
+     */
+    @Test
+    void retryReplaysFirstResponse() {
+        CreateOfferDto dto = createDto(1_000_000);
+
+        IdempotencyService.Outcome first = idempotency.execute("retry", "create", dto, create(dto));
+        IdempotencyService.Outcome retry = idempotency.execute("retry", "create", createDto(1_000_000), create(dto));
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.response(), retry.response());
+        assertEquals(1, runs.get());
+        assertEquals(1, jdbc.queryForObject("select count(*) from idempotency_keys"
+                + " where idempotency_key = 'retry' and response is not null", Integer.class));
+    }
+
+    /**
+     * Test that a key sent with another body or to another operation is
+     * rejected, and that blank or oversized keys are refused.
+     */
+    @Test
+    void rejectsKeyReusedForDifferentRequest() {
+        CreateOfferDto dto = createDto(1_000_000);
+        OfferResponseDto created = idempotency.execute("reused", "create", dto, create(dto)).response();
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotency.execute("reused", "create", createDto(2_000_000), create(dto)));
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotency.execute("reused", "accept", created.getOfferId(), create(dto)));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> idempotency.execute(" ", "create", dto, create(dto)));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> idempotency.execute("k".repeat(256), "create", dto, create(dto)));
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Test that concurrent requests with one key create a single offer and all
+     * get it back: the later ones wait for the first to commit.
+     */
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        CreateOfferDto dto = createDto(1_000_000);
+        Supplier<OfferResponseDto> slowCreate = () -> {
+            OfferResponseDto response = create(dto).get();
+            sleep(200);
+            return response;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyService.Outcome>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return idempotency.execute("storm", "create", dto, slowCreate);
+            }));
+        }
+        start.countDown();
+
+        List<IdempotencyService.Outcome> outcomes = new ArrayList<>();
+        for (Future<IdempotencyService.Outcome> result : results) {
+            outcomes.add(result.get());
+        }
+        pool.shutdown();
+
+        Set<String> ids = outcomes.stream().map(o -> o.response().getOfferId()).collect(Collectors.toSet());
+        assertEquals(1, ids.size());
+        assertEquals(1, runs.get());
+        assertEquals(7, outcomes.stream().filter(IdempotencyService.Outcome::replayed).count());
+    }
+
+    /**
+     * Test that another instance sharing the database, with nothing in its
+     * memory, replays the stored response.
+     */
+    @Test
+    void otherInstanceReplaysFromDatabase(@Autowired IdempotencyRecordRepository records,
+                                          @Autowired TransactionTemplate tx,
+                                          @Autowired ObjectMapper mapper,
+                                          @Autowired OfferMetrics metrics,
+                                          @Autowired LeaseService leases) {
+        CreateOfferDto dto = createDto(1_000_000);
+        OfferResponseDto created = idempotency.execute("shared", "create", dto, create(dto)).response();
+
+        IdempotencyService other = new IdempotencyService(records, tx, mapper, metrics, leases,
+                Duration.ofHours(24), 100);
+        IdempotencyService.Outcome replay = other.execute("shared", "create", dto, create(dto));
+
+        assertTrue(replay.replayed());
+        assertEquals(created, replay.response());
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Test that a failed request records nothing, so its retry runs, and that
+     * expired keys are purged.
+     */
+    @Test
+    void failedRequestLeavesKeyFreeAndExpiredKeysArePurged() {
+        CreateOfferDto dto = createDto(1_000_000);
+        assertThrows(IllegalStateException.class, () -> idempotency.execute("failed", "create", dto, () -> {
+            create(dto).get();
+            throw new IllegalStateException("Simulated failure");
+        }));
+        assertEquals(0, jdbc.queryForObject("select count(*) from idempotency_keys", Integer.class));
+
+        assertFalse(idempotency.execute("failed", "create", dto, create(dto)).replayed());
+        assertEquals(2, runs.get());
+
+        assertEquals(0, idempotency.purge(LocalDateTime.now()));
+        assertEquals(1, idempotency.purge(LocalDateTime.now().plusDays(2)));
+        assertEquals(0, jdbc.queryForObject("select count(*) from idempotency_keys", Integer.class));
+    }
+
+    private Supplier<OfferResponseDto> create(CreateOfferDto dto) {
+        return () -> {
+            runs.incrementAndGet();
+            return OfferMapper.toDto(offers.createOffer(dto));
+        };
+    }
+
+    private static CreateOfferDto createDto(long amount) {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(5_000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(amount))));
+        return dto;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.LoanStorageMigration}.
+ * <p>
+ * Recreates the legacy {@code offer_loans} collection table in the real H2
+ * database and verifies that its rows end up in the compact loans column.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LoanStorageMigrationTest {
+
+    @Autowired
+    private LoanStorageMigration migration;
+
+    @Autowired
+    private OfferRepository repo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Test that legacy loans are moved across several chunks, that an offer
+     * without legacy rows is left alone, and that the legacy table is dropped.
+     */
+    @Test
+    void movesLegacyLoansIntoCompactColumn() {
+        ReflectionTestUtils.setField(migration, "chunkSize", 2);
+
+        // Arrange: five offers in the pre-migration shape, three of them with legacy loans
+        jdbc.execute("create table offer_loans (offer_id varchar(255) not null, bank varchar(255), belopp numeric(38,2))");
+        String[] ids = new String[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            jdbc.update("insert into offers (id, status, skapad, giltig_till, version) values (?, 'SKAPAD', ?, ?, 0)",
+                        ids[i], LocalDateTime.now(), LocalDateTime.now().plusDays(30));
+        }
+        jdbc.update("insert into offer_loans values (?, 'SEB', 800000.00)", ids[0]);
+        jdbc.update("insert into offer_loans values (?, 'Handelsbanken', 1200000.00)", ids[0]);
+        jdbc.update("insert into offer_loans values (?, 'Nordea', 500000.00)", ids[1]);
+        jdbc.update("insert into offer_loans values (?, 'SEB', 100000.00)", ids[2]);
+
+        // Act
+        long migrated = migration.migrate();
+
+        // Assert: every offer with legacy rows now carries them in its own row
+        assertEquals(3, migrated);
+        List<Loan> first = repo.findById(UUID.fromString(ids[0])).orElseThrow().getLoans();
+        assertEquals(2, first.size());
+        assertTrue(first.contains(new Loan("Handelsbanken", new BigDecimal("1200000.00"))));
+        assertEquals(List.of(new Loan("Nordea", new BigDecimal("500000.00"))),
+                     repo.findById(UUID.fromString(ids[1])).orElseThrow().getLoans());
+        assertTrue(repo.findById(UUID.fromString(ids[3])).orElseThrow().getLoans().isEmpty());
+
+        // Assert: the legacy table is gone, so the next start does nothing
+        assertEquals(0, migration.migrate());
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.LogOutboxSink}.
+ * <p>
+ * Verifies that the development sink, the default, logs enough to follow
+ * events but never the personal data in their payloads.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OutboxEvent;
+import com.example.gofido.domain.OutboxEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class LogOutboxSinkTest {
+
+    /**
+     * Test that an event is logged with its IDs, type and offer status, without its payload.
+     */
+    @Test
+    void logsEventWithoutPersonalData(CapturedOutput output) {
+        OutboxEvent e = new OutboxEvent();
+        e.setId(UUID.randomUUID());
+        e.setOfferId(UUID.randomUUID());
+        e.setType(OutboxEventType.CREATED);
+        e.setOccurredAt(LocalDateTime.now());
+        e.setPayload("{\"offerId\":\"" + e.getOfferId() + "\",\"personnummer\":\"19800101-1234\",\"status\":\"SKAPAD\"}");
+
+        new LogOutboxSink().publish(List.of(e));
+
+        assertTrue(output.getOut().contains("Offer event " + e.getId() + " CREATED offer " + e.getOfferId()
+                + " status SKAPAD"), output.getOut());
+        assertFalse(output.getOut().contains("19800101-1234"));
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.OfferArchiveService}.
+ * <p>
+ * Runs the job against its own H2 database with a tiny chunk size, verifying
+ * that only accepted and expired (UTGÅNGEN) offers leave the hot table, and
+ * that statistics, lookups and export cover both tiers afterwards.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.dto.UpdateOfferDto;
+import com.example.gofido.exception.OfferAlreadyAcceptedException;
+import com.example.gofido.exception.OfferExpiredException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:archive",
+    "offer.archive.chunk-size=2",
+    "offer.expiry.enabled=false"
+})
+class OfferArchiveServiceTest {
+
+    @Autowired
+    private OfferArchiveService archiving;
+
+    @Autowired
+    private OfferService offers;
+
+    @Autowired
+    private ConversionStatistics stats;
+
+    @Autowired
+    private OfferCache offerCache;
+
+    @Autowired
+    private OfferExportService export;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from offers");
+        jdbc.update("delete from offers_archive");
+    }
+
+    /**
+     * Test that accepted and expired offers past the minimum age are moved in
+     * chunks, while open, recently accepted and overdue but not yet expired
+     * offers stay in the hot table.
+     */
+    @Test
+    void movesOnlyColdOffers() {
+        UUID open = offers.createOffer(createDto()).getId();
+        UUID recent = accept(offers.createOffer(createDto()).getId());
+        List<UUID> accepted = List.of(
+                accept(offers.createOffer(createDto()).getId()),
+                accept(offers.createOffer(createDto()).getId()),
+                accept(offers.createOffer(createDto()).getId()));
+        UUID expired = offers.createOffer(createDto()).getId();
+        UUID overdue = offers.createOffer(createDto()).getId();
+        for (UUID id : accepted) {
+            jdbc.update("update offers set accepterad_vid = localtimestamp - 2 where id = ?", id);
+        }
+        expire(expired);
+        jdbc.update("update offers set giltig_till = localtimestamp - 2 where id = ?", overdue);
+
+        ArchiveReport report = archiving.archiveColdOffers(LocalDateTime.now());
+
+        assertEquals(3, report.getAccepted());
+        assertEquals(1, report.getExpired());
+        assertEquals(3, report.getChunks());
+        assertEquals(List.of(open, recent, overdue).stream().sorted().toList(),
+                jdbc.queryForList("select id from offers order by id", UUID.class));
+        assertEquals(4, jdbc.queryForObject("select count(*) from offers_archive", Integer.class));
+        assertEquals("TECKNAD", jdbc.queryForObject(
+                "select status from offers_archive where id = ?", String.class, accepted.get(0)));
+
+        // A second run finds nothing left to move
+        assertEquals(0, archiving.archiveColdOffers(LocalDateTime.now()).getRows());
+    }
+
+    /**
+     * Test that a run renewing its lease in each chunk stops at the first
+     * chunk after another instance has taken the lease over.
+     */
+    @Test
+    void stopsWhenLeaseIsLost(@Autowired LeaseService leases) {
+        List<UUID> accepted = List.of(
+                accept(offers.createOffer(createDto()).getId()),
+                accept(offers.createOffer(createDto()).getId()),
+                accept(offers.createOffer(createDto()).getId()));
+        for (UUID id : accepted) {
+            jdbc.update("update offers set accepterad_vid = localtimestamp - 2 where id = ?", id);
+        }
+        assertTrue(leases.tryAcquire("archive-test", Duration.ofMinutes(1)));
+
+        int[] renewals = new int[1];
+        ArchiveReport report = archiving.archiveColdOffers(LocalDateTime.now(), () -> {
+            if (++renewals[0] == 2) {
+                // Another instance takes the lease over after the first chunk
+                jdbc.update("update scheduler_leases set owner = 'other' where name = 'archive-test'");
+            }
+            return leases.renewWithin("archive-test", Duration.ofMinutes(1));
+        });
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(1, report.getChunks());
+        assertEquals(1, jdbc.queryForObject("select count(*) from offers", Integer.class));
+        assertEquals(2, jdbc.queryForObject("select count(*) from offers_archive", Integer.class));
+    }
+
+    /**
+     * Test that statistics, lookups, error reporting and export behave the
+     * same after offers have been archived.
+     */
+    @Test
+    void archivedOffersRemainVisible() throws Exception {
+        offers.createOffer(createDto());
+        UUID accepted = accept(offers.createOffer(createDto()).getId());
+        UUID expired = offers.createOffer(createDto()).getId();
+        jdbc.update("update offers set accepterad_vid = localtimestamp - 2 where id = ?", accepted);
+        expire(expired);
+
+        archiving.archiveColdOffers(LocalDateTime.now());
+        assertEquals(1, jdbc.queryForObject("select count(*) from offers", Integer.class));
+
+        // Counters are rebuilt and reconciled over both tiers
+        stats.rebuild();
+        stats.reconcile();
+        assertEquals(3, stats.getTotal());
+        assertEquals(1, stats.getAccepted());
+
+        // GET falls back to the archive
+        offerCache.invalidateAll(List.of(accepted, expired));
+        assertEquals(OfferStatus.TECKNAD, offerCache.get(accepted).getStatus());
+        assertEquals(1, offerCache.get(expired).getLån().size());
+
+        // Archived offers are reported as accepted or expired, not as missing
+        assertThrows(OfferAlreadyAcceptedException.class, () -> offers.acceptOffer(accepted));
+        assertThrows(OfferExpiredException.class, () -> offers.acceptOffer(expired));
+        assertThrows(OfferExpiredException.class, () -> offers.updateOffer(expired, updateDto()));
+
+        // Export covers the hot table and the archive
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, export.export(null, null, null, out));
+        assertEquals(1, export.export(OfferStatus.TECKNAD, null, null, new ByteArrayOutputStream()));
+    }
+
+    private void expire(UUID id) {
+        jdbc.update("update offers set giltig_till = localtimestamp - 2, status = 'UTGÅNGEN', personnummer = null"
+                + " where id = ?", id);
+    }
+
+    private UUID accept(UUID id) {
+        offers.acceptOffer(id);
+        return id;
+    }
+
+    private static CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        return dto;
+    }
+
+    private static UpdateOfferDto updateDto() {
+        UpdateOfferDto dto = new UpdateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(200_000))));
+        return dto;
+    }
+}
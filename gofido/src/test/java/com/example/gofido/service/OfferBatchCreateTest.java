@@ -0,0 +1,70 @@
+/**
+ * Integration tests for batch creation in {@link com.example.gofido.service.OfferService}.
+ * <p>
+ * Runs against the real H2 database so that a chunk can fail at flush time,
+ * which the Mockito tests in {@code OfferServiceTest} cannot simulate, and
+ * verifies that the per-item retry persists the valid items of the chunk.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.BatchItemResultDto;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batch",
+    "offer.expiry.enabled=false"
+})
+class OfferBatchCreateTest {
+
+    @Autowired
+    private OfferService service;
+
+    @Autowired
+    private OfferRepository repo;
+
+    /**
+     * Test that when the database rejects one row of a chunk, the other items
+     * are retried on their own, persisted and reported with their IDs.
+     */
+    @Test
+    void chunkRejectedByDatabaseIsRetriedItemByItem() {
+        // A personnummer longer than its column passes validation but fails the INSERT
+        List<CreateOfferDto> items = List.of(
+                createDto("19800101-1234"),
+                createDto("1".repeat(400)),
+                createDto("19900101-5678"));
+
+        List<BatchItemResultDto> results = service.createOffers(items.iterator());
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isOk(), results.get(0).getFel());
+        assertFalse(results.get(1).isOk());
+        assertNotNull(results.get(1).getFel());
+        assertTrue(results.get(2).isOk(), results.get(2).getFel());
+        for (BatchItemResultDto ok : List.of(results.get(0), results.get(2))) {
+            assertNotNull(ok.getOfferId());
+            assertEquals(OfferStatus.SKAPAD,
+                    repo.findById(UUID.fromString(ok.getOfferId())).orElseThrow().getStatus());
+        }
+    }
+
+    private static CreateOfferDto createDto(String personnummer) {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer(personnummer);
+        dto.setManadskostnad(BigDecimal.valueOf(5_000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(1_000_000))));
+        return dto;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.OfferCache}.
+ * <p>
+ * Verifies read-through loading, invalidation and statistics using Mockito
+ * for repository mocking.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.exception.OfferNotFoundException;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OfferCacheTest {
+
+    /**
+     * ID of the cached offer.
+     */
+    private static final UUID ID = UUID.randomUUID();
+
+    /**
+     * ID that no offer has.
+     */
+    private static final UUID UNKNOWN = UUID.randomUUID();
+
+    /**
+     * Mocked repository to simulate database lookups.
+     */
+    @Mock
+    private OfferRepository repo;
+
+    /**
+     * Mocked archive, empty unless a test stubs it.
+     */
+    @Mock
+    private ArchivedOfferRepository archive;
+
+    /**
+     * Cache under test.
+     */
+    private OfferCache cache;
+
+    /**
+     * Build a small cache with a long TTL so only invalidation evicts.
+     */
+    @BeforeEach
+    void setUp() {
+        cache = new OfferCache(repo, archive, 100, Duration.ofHours(1));
+    }
+
+    /**
+     * Test that repeated lookups hit the database only once and that an
+     * invalidation forces a reload with the new data.
+     */
+    @Test
+    void loadsOnceUntilInvalidated() {
+        // Arrange: first load returns the original offer, second an anonymized copy
+        when(repo.findById(ID))
+            .thenReturn(Optional.of(offer("19800101-1234")))
+            .thenReturn(Optional.of(offer(null)));
+
+        // Act & Assert: second lookup is a cache hit
+        assertEquals("19800101-1234", cache.get(ID).getPersonnummer());
+        assertEquals("19800101-1234", cache.get(ID).getPersonnummer());
+        verify(repo, times(1)).findById(ID);
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+
+        // Act & Assert: after invalidation the anonymized row is served
+        cache.invalidate(ID);
+        OfferResponseDto reloaded = cache.get(ID);
+        assertNull(reloaded.getPersonnummer(), "Anonymized personnummer must not be served stale");
+        verify(repo, times(2)).findById(ID);
+    }
+
+    /**
+     * Ensure that a missing offer throws {@link OfferNotFoundException} and is not cached.
+     */
+    @Test
+    void missingOfferThrowsAndIsNotCached() {
+        when(repo.findById(UNKNOWN)).thenReturn(Optional.empty());
+
+        assertThrows(OfferNotFoundException.class, () -> cache.get(UNKNOWN));
+        assertThrows(OfferNotFoundException.class, () -> cache.get(UNKNOWN));
+        verify(repo, times(2)).findById(UNKNOWN);
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Build a minimal offer with the given personnummer.
+     */
+    private Offer offer(String personnummer) {
+        Offer o = new Offer();
+        o.setId(ID);
+        o.setPersonnummer(personnummer);
+        o.setLoans(new ArrayList<>());
+        o.setStatus(OfferStatus.SKAPAD);
+        return o;
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Concurrency tests for {@link com.example.gofido.service.OfferService}.
+ * <p>
+ * Runs against the real H2 database to verify that concurrent accepts cannot
+ * both succeed, that a stale load-modify-save is rejected by the version column,
+ * and that an accept cannot slip in between the expiry re-check and its update.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.exception.OfferAlreadyAcceptedException;
+import com.example.gofido.exception.OfferExpiredException;
+import com.example.gofido.repository.OfferRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OfferConcurrencyTest {
+
+    /**
+     * Number of threads racing to accept the same offer.
+     */
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OfferService service;
+
+    @Autowired
+    private OfferRepository repo;
+
+    @Autowired
+    private ConversionStatistics stats;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    /**
+     * Start many accepts of the same offer at once and verify that exactly one
+     * wins while all others are rejected as already accepted.
+     */
+    @Test
+    void exactlyOneConcurrentAcceptWins() throws Exception {
+        // Repeat to give interleavings a chance to vary
+        for (int round = 0; round < 20; round++) {
+            UUID id = service.createOffer(newOffer()).getId();
+            long acceptedBefore = stats.getAccepted();
+
+            AtomicInteger wins = new AtomicInteger();
+            AtomicInteger conflicts = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        service.acceptOffer(id);
+                        wins.incrementAndGet();
+                    } catch (OfferAlreadyAcceptedException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            // Release all threads at once and wait for them to finish
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            assertEquals(1, wins.get(), "Exactly one accept should succeed");
+            assertEquals(THREADS - 1, conflicts.get(), "All other accepts should conflict");
+            assertEquals(OfferStatus.TECKNAD, repo.findById(id).orElseThrow().getStatus());
+            assertEquals(acceptedBefore + 1, stats.getAccepted(), "Acceptance should be counted once");
+        }
+    }
+
+    /**
+     * Verify that saving an offer loaded before a concurrent accept fails the
+     * optimistic lock check instead of overwriting the accepted state.
+     */
+    @Test
+    void staleWriteAfterAcceptIsRejected() {
+        UUID id = service.createOffer(newOffer()).getId();
+
+        // Load a copy, then accept the offer behind its back
+        Offer stale = repo.findById(id).orElseThrow();
+        service.acceptOffer(id);
+
+        // Writing the stale copy must not revert the status
+        stale.setPremie(BigDecimal.ONE);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> repo.save(stale));
+        assertEquals(OfferStatus.TECKNAD, repo.findById(id).orElseThrow().getStatus());
+    }
+
+    /**
+     * Verify that an accept arriving after the expiry re-check selected its
+     * offer waits for the expiry to commit and then fails, so an offer for
+     * which EXPIRED is published can never end up TECKNAD.
+     */
+    @Test
+    void acceptWaitsForExpiryThatSelectedItsOffer() throws Exception {
+        UUID id = service.createOffer(newOffer()).getId();
+        // A cutoff past the offer's validity, while accepting it is still allowed
+        LocalDateTime cutoff = LocalDateTime.now().plusDays(31);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        Future<?> accept = tx.execute(status -> {
+            assertEquals(List.of(id), repo.findExpiredAmong(List.of(id), cutoff));
+            Future<?> pending = pool.submit(() -> service.acceptOffer(id));
+            // The accept is blocked on the row the re-check locked
+            assertThrows(TimeoutException.class, () -> pending.get(300, TimeUnit.MILLISECONDS));
+            assertEquals(1, repo.expireIfOpen(List.of(id)));
+            return pending;
+        });
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> accept.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(OfferExpiredException.class, failure.getCause());
+        assertEquals(OfferStatus.UTGÅNGEN, repo.findById(id).orElseThrow().getStatus());
+        pool.shutdown();
+    }
+
+    /**
+     * Build a valid create request with a single loan.
+     */
+    private CreateOfferDto newOffer() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9500));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(1_000_000))));
+        return dto;
+    }
+}
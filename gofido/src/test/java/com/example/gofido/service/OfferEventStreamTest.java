@@ -0,0 +1,352 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.OfferEventStream}.
+ * <p>
+ * Subscribers are registered with a recording sender instead of an SSE
+ * response, so delivery order, Last-Event-ID replay, publishing after commit,
+ * both slow-consumer policies and the write deadline can be observed directly.
+ */
+package com.example.gofido.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfferEventStreamTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OfferEventStream stream;
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+    }
+
+    /**
+     * Test that events arrive in publish order and that a subscriber
+     * reconnecting with Last-Event-ID first receives the events it missed.
+     */
+    @Test
+    void deliversInOrderAndReplaysAfterLastEventId() throws Exception {
+        stream = start(16, "drop-oldest");
+        RecordingSender live = new RecordingSender(0);
+        stream.register(live, null);
+
+        publish(3);
+        await(() -> live.ids.size() == 3);
+        assertEquals(List.of(0L, 1L, 2L), live.ids);
+        assertTrue(live.payloads.get(0).contains("\"type\":\"EXPIRED\""));
+
+        RecordingSender reconnected = new RecordingSender(0);
+        stream.register(reconnected, 0L);
+        publish(1);
+        await(() -> live.ids.size() == 4 && reconnected.ids.size() == 3);
+        assertEquals(List.of(1L, 2L, 3L), reconnected.ids);
+        assertEquals(2, stream.subscriberCount());
+    }
+
+    /**
+     * Test that events published inside a transaction reach subscribers only
+     * once it commits.
+     */
+    @Test
+    void publishesOnlyAfterCommit() throws Exception {
+        stream = start(16, "drop-oldest");
+        RecordingSender live = new RecordingSender(0);
+        stream.register(live, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            publish(1);
+            Thread.sleep(100);
+            assertTrue(live.ids.isEmpty());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        await(() -> live.ids.size() == 1);
+    }
+
+    /**
+     * Test that with drop-oldest a subscriber whose queue is full loses its
+     * oldest queued events but stays connected.
+     */
+    @Test
+    void slowSubscriberDropsOldestEvents() throws Exception {
+        stream = start(2, "drop-oldest");
+        RecordingSender slow = new RecordingSender(1);
+        stream.register(slow, null);
+
+        // Event 0 is in flight; 1..5 queue behind it, of which only 4 and 5 fit
+        publish(1);
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+        publish(5);
+        await(() -> registry.counter("offer.events.dropped").count() == 3);
+        slow.release.countDown();
+
+        await(() -> slow.ids.size() == 3);
+        assertEquals(List.of(0L, 4L, 5L), slow.ids);
+        assertFalse(slow.closed);
+        assertEquals(1, stream.subscriberCount());
+    }
+
+    /**
+     * Test that with disconnect a subscriber whose queue overflows is
+     * unregistered at once and its response ended once its blocked write
+     * returns, while other subscribers are unaffected.
+     */
+    @Test
+    void slowSubscriberIsDisconnected() throws Exception {
+        stream = start(2, "disconnect");
+        RecordingSender slow = new RecordingSender(1);
+        RecordingSender fast = new RecordingSender(0);
+        stream.register(slow, null);
+        stream.register(fast, null);
+        try {
+            publish(1);
+            assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+            // One at a time, so only the blocked subscriber's queue fills up
+            for (int i = 1; i <= 3; i++) {
+                int received = i + 1;
+                publish(1);
+                await(() -> fast.ids.size() == received);
+            }
+
+            // Fan-out order is not fixed, so the fast subscriber may see an event before the overflow
+            await(() -> stream.subscriberCount() == 1);
+            assertEquals(1.0, registry.counter("offer.events.disconnected").count());
+            assertFalse(slow.closed, "Ended by its sender thread, not while the write blocks");
+            assertFalse(fast.closed);
+        } finally {
+            slow.release.countDown();
+        }
+        await(() -> slow.closed);
+        assertEquals(List.of(0L), slow.ids);
+    }
+
+    /**
+     * Test that disconnecting a subscriber whose write is stuck does not
+     * stall fan-out or registration, although ending its response waits
+     * for that write, as completing an SSE response does.
+     */
+    @Test
+    void disconnectDoesNotWaitForBlockedWrite() throws Exception {
+        stream = start(2, "disconnect");
+        LockingSender stuck = new LockingSender();
+        RecordingSender other = new RecordingSender(0);
+        stream.register(stuck, null);
+        stream.register(other, null);
+        try {
+            publish(1);
+            assertTrue(stuck.entered.await(5, TimeUnit.SECONDS));
+            // The third event overflows the stuck subscriber's queue and disconnects it
+            for (int i = 1; i <= 5; i++) {
+                int received = i + 1;
+                publish(1);
+                await(() -> other.ids.size() == received);
+            }
+            assertEquals(1.0, registry.counter("offer.events.disconnected").count());
+
+            // Registration is not held up either; the replay fits the late subscriber's queue
+            RecordingSender late = new RecordingSender(0);
+            stream.register(late, 4L);
+            publish(1);
+            await(() -> other.ids.size() == 7 && late.ids.size() == 2);
+            assertEquals(List.of(5L, 6L), late.ids);
+            assertEquals(2, stream.subscriberCount());
+            assertFalse(stuck.closed);
+        } finally {
+            stuck.release.countDown();
+        }
+        await(() -> stuck.closed);
+    }
+
+    /**
+     * Test that a subscriber whose write blocks past the deadline, e.g. a
+     * client that stopped reading, is disconnected and its write interrupted,
+     * while the other subscribers keep receiving events although it held the
+     * only sender thread.
+     */
+    @Test
+    void blockedWriteIsDisconnectedAfterDeadline() throws Exception {
+        stream = start(16, "drop-oldest", 1, Duration.ofMillis(200));
+        BlockingSender blocked = new BlockingSender();
+        RecordingSender other = new RecordingSender(0);
+        stream.register(blocked, null);
+        stream.register(other, null);
+
+        publish(1);
+        assertTrue(blocked.entered.await(5, TimeUnit.SECONDS));
+        publish(1);
+
+        await(() -> other.ids.size() == 2);
+        await(() -> blocked.closed);
+        assertTrue(blocked.interrupted);
+        assertEquals(1, stream.subscriberCount());
+        assertEquals(1.0, registry.counter("offer.events.disconnected").count());
+
+        // The pool is back to one thread and still delivers
+        publish(1);
+        await(() -> other.ids.size() == 3);
+    }
+
+    private OfferEventStream start(int queueSize, String overflow) {
+        return start(queueSize, overflow, 2, Duration.ofSeconds(10));
+    }
+
+    private OfferEventStream start(int queueSize, String overflow, int senderThreads, Duration writeTimeout) {
+        OfferEventStream s = new OfferEventStream(new ObjectMapper().findAndRegisterModules(),
+                new OfferMetrics(registry), 64, queueSize, overflow,
+                Duration.ofSeconds(15), Duration.ofMinutes(1), senderThreads, writeTimeout);
+        s.start();
+        return s;
+    }
+
+    private void publish(int events) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        stream.offersExpired(ids);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5 s");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Sender whose writes block until interrupted, like a client that stopped reading.
+     */
+    private static final class BlockingSender implements OfferEventStream.Sender {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        volatile boolean interrupted;
+
+        volatile boolean closed;
+
+        @Override
+        public void send(long id, String type, String json) throws IOException {
+            entered.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw new InterruptedIOException("Write interrupted");
+            }
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Sender whose first write holds a lock until released, and whose close
+     * needs the same lock, like an SSE response completed during a write.
+     */
+    private static final class LockingSender implements OfferEventStream.Sender {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        volatile boolean closed;
+
+        @Override
+        public void send(long id, String type, String json) {
+            lock.lock();
+            try {
+                entered.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sender that records event IDs and can block its first send until released.
+     */
+    private static final class RecordingSender implements OfferEventStream.Sender {
+
+        final List<Long> ids = new CopyOnWriteArrayList<>();
+
+        final List<String> payloads = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch release;
+
+        volatile boolean closed;
+
+        RecordingSender(int blockedSends) {
+            this.release = new CountDownLatch(blockedSends);
+        }
+
+        @Override
+        public void send(long id, String type, String json) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ids.add(id);
+            payloads.add(json);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.OfferExpiryService}.
+ * <p>
+ * Runs its own timer instance against an H2 database, with the scheduled one
+ * disabled, and ticks it by hand to verify that overdue offers found at
+ * startup and offers whose deadline passes later are expired and anonymized
+ * in bounded batches, while open and accepted offers are left alone.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.exception.OfferExpiredException;
+import com.example.gofido.repository.OfferRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:expiry",
+    "offer.expiry.enabled=false",
+    // Keep the relay from draining the EXPIRED events the test counts
+    "offer.outbox.poll-interval=PT1H"
+})
+class OfferExpiryServiceTest {
+
+    @Autowired
+    private OfferService offers;
+
+    @Autowired
+    private OfferRepository repo;
+
+    @Autowired
+    private AnonymizationService anonymization;
+
+    @Autowired
+    private OfferMetrics metrics;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private LeaseService leases;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from offer_outbox");
+        jdbc.update("delete from offers");
+    }
+
+    /**
+     * Test that overdue offers are expired at most one batch per tick, that an
+     * offer expires once its deadline passes, and that open and accepted
+     * offers keep their status and personnummer.
+     */
+    @Test
+    void expiresOffersAsDeadlinesPass() throws Exception {
+        UUID open = offers.createOffer(createDto()).getId();
+        UUID accepted = offers.createOffer(createDto()).getId();
+        offers.acceptOffer(accepted);
+        List<UUID> overdue = List.of(
+                offers.createOffer(createDto()).getId(),
+                offers.createOffer(createDto()).getId(),
+                offers.createOffer(createDto()).getId());
+        UUID soon = offers.createOffer(createDto()).getId();
+        for (UUID id : overdue) {
+            jdbc.update("update offers set giltig_till = localtimestamp - 1 where id = ?", id);
+        }
+        jdbc.update("update offers set giltig_till = localtimestamp - 1 where id = ?", accepted);
+        jdbc.update("update offers set giltig_till = dateadd(millisecond, 500, localtimestamp) where id = ?", soon);
+
+        OfferExpiryService expiry = new OfferExpiryService(repo, anonymization, metrics, leases,
+                Duration.ofSeconds(30), true, Duration.ofMillis(100), Duration.ofHours(1),
+                Duration.ofMinutes(30), 2, 30);
+
+        // The first tick loads the deadlines and expires one batch of the overdue offers
+        expiry.tick();
+        assertEquals(2, count("UTGÅNGEN"));
+        assertEquals(1, expiry.pending());
+        expiry.tick();
+        assertEquals(3, count("UTGÅNGEN"));
+
+        // The upcoming offer expires once its deadline has passed
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!"UTGÅNGEN".equals(status(soon))) {
+            assertTrue(System.nanoTime() < deadline, "offer not expired within 5 s");
+            Thread.sleep(100);
+            expiry.tick();
+        }
+        assertEquals(0, expiry.scheduled());
+
+        assertNull(jdbc.queryForObject("select personnummer from offers where id = ?", String.class, soon));
+        assertEquals("SKAPAD", status(open));
+        assertEquals("TECKNAD", status(accepted));
+        assertNotNull(jdbc.queryForObject("select personnummer from offers where id = ?", String.class, open));
+        assertEquals(4, jdbc.queryForObject(
+                "select count(*) from offer_outbox where type = 'EXPIRED'", Integer.class));
+        // The accepted offer was past its deadline too, but is not counted as expired
+        assertEquals(4.0, registry.counter("offer.expiry.expired").count());
+        assertThrows(OfferExpiredException.class, () -> offers.acceptOffer(soon));
+    }
+
+    private int count(String status) {
+        return jdbc.queryForObject("select count(*) from offers where status = ?", Integer.class, status);
+    }
+
+    private String status(UUID id) {
+        return jdbc.queryForObject("select status from offers where id = ?", String.class, id);
+    }
+
+    private static CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        return dto;
+    }
+}
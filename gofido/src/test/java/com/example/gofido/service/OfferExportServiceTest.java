@@ -0,0 +1,197 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.OfferExportService}.
+ * <p>
+ * Exports from its own H2 database with offers in both the hot table and the
+ * archive, verifying the NDJSON framing, the status and creation-time
+ * filters, and that a client going away mid-export closes the cursor.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.repository.ArchivedOfferRepository;
+import com.example.gofido.repository.OfferExportRow;
+import com.example.gofido.repository.OfferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:export",
+    "offer.expiry.enabled=false"
+})
+class OfferExportServiceTest {
+
+    /**
+     * Creation times of the test offers, one day apart.
+     */
+    private static final LocalDateTime DAY_1 = LocalDateTime.of(2026, 3, 1, 12, 0);
+    private static final LocalDateTime DAY_2 = DAY_1.plusDays(1);
+    private static final LocalDateTime DAY_3 = DAY_1.plusDays(2);
+
+    @Autowired
+    private OfferExportService export;
+
+    @Autowired
+    private OfferService offers;
+
+    @Autowired
+    private OfferArchiveService archiving;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Offers left in the hot table: open, created on day 1 and day 3.
+     */
+    private List<UUID> hot;
+
+    /**
+     * Offers moved to the archive: accepted on day 2, expired on day 3.
+     */
+    private List<UUID> archived;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from offers");
+        jdbc.update("delete from offers_archive");
+
+        UUID open1 = create(DAY_1);
+        UUID open3 = create(DAY_3);
+        UUID accepted = create(DAY_2);
+        UUID expired = create(DAY_3);
+        offers.acceptOffer(accepted);
+        jdbc.update("update offers set accepterad_vid = localtimestamp - 2 where id = ?", accepted);
+        jdbc.update("update offers set giltig_till = localtimestamp - 2, status = 'UTGÅNGEN', personnummer = null"
+                + " where id = ?", expired);
+        archiving.archiveColdOffers(LocalDateTime.now());
+
+        hot = List.of(open1, open3);
+        archived = List.of(accepted, expired);
+        assertEquals(2, jdbc.queryForObject("select count(*) from offers_archive", Integer.class));
+    }
+
+    /**
+     * Test that every offer is written as one JSON object terminated by a
+     * newline, hot offers first and then archived ones, each tier in ID order.
+     */
+    @Test
+    void writesOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = export.export(null, null, null, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertEquals(4, written);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n", -1);
+        assertEquals(5, lines.length, "four lines and nothing after the last newline");
+        assertEquals("", lines[4]);
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            assertFalse(lines[i].isBlank());
+            OfferResponseDto dto = mapper.readValue(lines[i], OfferResponseDto.class);
+            assertEquals(1, dto.getLån().size());
+            ids.add(UUID.fromString(dto.getOfferId()));
+        }
+        List<UUID> expected = new ArrayList<>(hot.stream().sorted().toList());
+        expected.addAll(archived.stream().sorted().toList());
+        assertEquals(expected, ids);
+    }
+
+    /**
+     * Test the status filter and the creation-time bounds, inclusive
+     * {@code from} and exclusive {@code to}, over both tiers.
+     */
+    @Test
+    void filtersByStatusAndCreationTime() throws Exception {
+        assertEquals(List.of(OfferStatus.SKAPAD, OfferStatus.SKAPAD), statuses(OfferStatus.SKAPAD, null, null));
+        assertEquals(List.of(OfferStatus.TECKNAD), statuses(OfferStatus.TECKNAD, null, null));
+        assertEquals(List.of(OfferStatus.UTGÅNGEN), statuses(OfferStatus.UTGÅNGEN, null, null));
+
+        // Day 2 and 3 from both tiers; day 1 is before 'from'
+        assertEquals(3, export.export(null, DAY_2, null, new ByteArrayOutputStream()));
+        // Day 1 and 2; day 3 starts exactly at the exclusive 'to'
+        assertEquals(2, export.export(null, null, DAY_3, new ByteArrayOutputStream()));
+        assertEquals(List.of(OfferStatus.TECKNAD), statuses(null, DAY_2, DAY_3));
+        assertEquals(List.of(OfferStatus.UTGÅNGEN), statuses(OfferStatus.UTGÅNGEN, DAY_3, DAY_3.plusSeconds(1)));
+        assertEquals(0, export.export(OfferStatus.TECKNAD, DAY_3, null, new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Test that a write failure, as when the client aborts the download,
+     * ends the export and closes the open cursor without reading the next tier.
+     */
+    @Test
+    void clientAbortClosesCursor() {
+        OfferRepository repo = mock(OfferRepository.class);
+        ArchivedOfferRepository archive = mock(ArchivedOfferRepository.class);
+        AtomicBoolean closed = new AtomicBoolean();
+        OfferExportRow row = new OfferExportRow(UUID.randomUUID(), "19800101-1234", BigDecimal.TEN,
+                BigDecimal.TEN, BigDecimal.ONE, OfferStatus.SKAPAD, DAY_1, DAY_2, null, List.of());
+        when(repo.streamForExport(any(), any(), any()))
+                .thenReturn(Stream.generate(() -> row).limit(10_000).onClose(() -> closed.set(true)));
+
+        OutputStream aborted = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        OfferExportService service = new OfferExportService(repo, archive, mapper);
+        assertThrows(UncheckedIOException.class, () -> service.export(null, null, null, aborted));
+        assertTrue(closed.get());
+        verifyNoInteractions(archive);
+    }
+
+    private List<OfferStatus> statuses(OfferStatus status, LocalDateTime from, LocalDateTime to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.export(status, from, to, out);
+        List<OfferStatus> result = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).lines().toList()) {
+            result.add(mapper.readValue(line, OfferResponseDto.class).getStatus());
+        }
+        return result;
+    }
+
+    private UUID create(LocalDateTime skapad) {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9000));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        UUID id = offers.createOffer(dto).getId();
+        jdbc.update("update offers set skapad = ? where id = ?", skapad, id);
+        return id;
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.OfferListingService}.
+ * <p>
+ * Seeds offers in both the hot table and the archive, several of them created
+ * at the same instant, and verifies that walking the pages with the returned
+ * cursors yields every matching offer exactly once in (skapad, id) order.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Loan;
+import com.example.gofido.domain.LoanListConverter;
+import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.dto.OfferPageDto;
+import com.example.gofido.dto.OfferResponseDto;
+import com.example.gofido.exception.InvalidCursorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:listing",
+    "offer.expiry.enabled=false"
+})
+class OfferListingServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Autowired
+    private OfferListingService listing;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from offers");
+        jdbc.update("delete from offers_archive");
+    }
+
+    /**
+     * Test that pages follow each other without gaps or repeats across both
+     * tiers, with ties on skapad broken by ID, including IDs whose top bit is set.
+     */
+    @Test
+    void cursorsWalkEveryOfferOnceInCreationOrder() {
+        List<String> expected = new ArrayList<>();
+        for (int minute = 0; minute < 4; minute++) {
+            // Three offers per minute: two hot and one archived, IDs ascending as unsigned numbers
+            LocalDateTime skapad = T0.plusMinutes(minute);
+            expected.add(insert("offers", new UUID(minute, 1), skapad, OfferStatus.SKAPAD));
+            expected.add(insert("offers_archive", new UUID(minute, 2), skapad, OfferStatus.TECKNAD));
+            expected.add(insert("offers", new UUID(minute | Long.MIN_VALUE, 3), skapad, OfferStatus.TECKNAD));
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OfferPageDto page = listing.list(null, null, null, cursor, 5, false);
+            page.getOfferter().forEach(o -> seen.add(o.getOfferId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    /**
+     * Test that status and creation time filters apply across pages.
+     */
+    @Test
+    void filtersByStatusAndCreationTime() {
+        for (int minute = 0; minute < 6; minute++) {
+            insert("offers", UUID.randomUUID(), T0.plusMinutes(minute), OfferStatus.SKAPAD);
+            insert("offers_archive", UUID.randomUUID(), T0.plusMinutes(minute), OfferStatus.TECKNAD);
+        }
+
+        List<OfferResponseDto> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            OfferPageDto page = listing.list(OfferStatus.TECKNAD, T0.plusMinutes(1), T0.plusMinutes(5), cursor, 2, false);
+            all.addAll(page.getOfferter());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(4, all.size());
+        assertTrue(all.stream().allMatch(o -> o.getStatus() == OfferStatus.TECKNAD));
+        assertEquals(T0.plusMinutes(1), all.get(0).getSkapad());
+        assertEquals(T0.plusMinutes(4), all.get(3).getSkapad());
+    }
+
+    /**
+     * Test that loans are only returned when asked for.
+     */
+    @Test
+    void includesLoansOnlyWhenRequested() {
+        insert("offers", UUID.randomUUID(), T0, OfferStatus.SKAPAD);
+
+        assertNull(listing.list(null, null, null, null, null, false).getOfferter().get(0).getLån());
+        OfferResponseDto withLoans = listing.list(null, null, null, null, null, true).getOfferter().get(0);
+        assertEquals(1, withLoans.getLån().size());
+        assertEquals("SEB", withLoans.getLån().get(0).getBank());
+    }
+
+    /**
+     * Test that a cursor this service did not issue is rejected.
+     */
+    @Test
+    void rejectsForeignCursor() {
+        assertThrows(InvalidCursorException.class, () -> listing.list(null, null, null, "not-a-cursor", null, false));
+    }
+
+    private String insert(String table, UUID id, LocalDateTime skapad, OfferStatus status) {
+        byte[] loans = LoanListConverter.encode(List.of(new Loan("SEB", BigDecimal.valueOf(100_000))));
+        if (table.equals("offers")) {
+            jdbc.update("insert into offers (id, personnummer, loans_data, premie, status, skapad, giltig_till, version)"
+                    + " values (?, '19800101-1234', ?, 3800.00, ?, ?, ?, 0)",
+                    id, loans, status.name(), skapad, skapad.plusDays(30));
+        } else {
+            jdbc.update("insert into offers_archive (id, personnummer, loans_data, premie, status, skapad, giltig_till,"
+                    + " accepterad_vid, arkiverad) values (?, '19800101-1234', ?, 3800.00, ?, ?, ?, ?, ?)",
+                    id, loans, status.name(), skapad, skapad.plusDays(30), skapad, skapad.plusDays(2));
+        }
+        return id.toString();
+    }
+}
@@ -6,28 +6,39 @@
  */
 package com.example.gofido.service;
 
+import com.example.gofido.dto.BatchItemResultDto;
 import com.example.gofido.dto.CreateOfferDto;
 import com.example.gofido.dto.LoanDto;
 import com.example.gofido.dto.UpdateOfferDto;
+import com.example.gofido.config.PremiumProperties;
 import com.example.gofido.domain.Offer;
 import com.example.gofido.domain.OfferStatus;
+import com.example.gofido.domain.OutboxEventType;
 import com.example.gofido.exception.OfferAlreadyAcceptedException;
 import com.example.gofido.exception.OfferExpiredException;
 import com.example.gofido.exception.OfferNotFoundException;
+import com.example.gofido.repository.ArchivedOfferRepository;
 import com.example.gofido.repository.OfferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,12 +46,87 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class OfferServiceTest {
 
+    /**
+     * Offer IDs used by the individual tests.
+     */
+    private static final UUID TEST_ID = UUID.randomUUID();
+    private static final UUID EXPIRED_ID = UUID.randomUUID();
+    private static final UUID ACCEPTED_ID = UUID.randomUUID();
+    private static final UUID UNKNOWN_ID = UUID.randomUUID();
+    private static final UUID UPDATE_ID = UUID.randomUUID();
+    private static final UUID EXPIRED_UPDATE_ID = UUID.randomUUID();
+
+    /**
+     * In-memory meter registry backing {@link #metrics}.
+     */
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
     /**
      * Mocked repository to simulate database operations.
      */
     @Mock
     private OfferRepository repo;
 
+    /**
+     * Mocked conversion counters.
+     */
+    @Mock
+    private ConversionStatistics stats;
+
+    /**
+     * Mocked offer cache.
+     */
+    @Mock
+    private OfferCache offerCache;
+
+    /**
+     * Mocked transaction template used by batch creation.
+     */
+    @Mock
+    private TransactionTemplate tx;
+
+    /**
+     * Mocked entity manager used by batch creation.
+     */
+    @Mock
+    private EntityManager em;
+
+    /**
+     * Real metrics over an in-memory registry, so recorded outcomes can be asserted.
+     */
+    @Spy
+    private OfferMetrics metrics = new OfferMetrics(registry);
+
+    /**
+     * Real personnummer hasher with a fixed test key.
+     */
+    @Spy
+    private PersonnummerHasher hasher = new PersonnummerHasher("dGVzdC1rZXk=");
+
+    /**
+     * Mocked transactional outbox.
+     */
+    @Mock
+    private OutboxService outbox;
+
+    /**
+     * Mocked live event stream.
+     */
+    @Mock
+    private OfferEventStream events;
+
+    /**
+     * Mocked archive, empty unless a test stubs it.
+     */
+    @Mock
+    private ArchivedOfferRepository archive;
+
+    /**
+     * Real premium calculator with the default 3.8% rate table.
+     */
+    @Spy
+    private PremiumCalculator premiums = new PremiumCalculator(new PremiumProperties());
+
     /**
      * Service under test with injected mocks.
      */
@@ -54,6 +140,7 @@ class OfferServiceTest {
     void setUp() {
         // Set offer validity to 30 days for deterministic testing
         ReflectionTestUtils.setField(service, "validDays", 30);
+        ReflectionTestUtils.setField(service, "batchChunkSize", 2);
     }
 
     /**
@@ -81,44 +168,50 @@ class OfferServiceTest {
         BigDecimal expectedTotal = BigDecimal.valueOf(2_000_000);
         assertEquals(expectedTotal, result.getForsakratBelopp(),
             "Insured amount should match sum of loan amounts");
-        assertEquals(expectedTotal.multiply(BigDecimal.valueOf(0.038)), result.getPremie(),
-            "Premium should be 3.8% of the insured amount");
+        assertEquals(new BigDecimal("76000.00"), result.getPremie(),
+            "Premium should be 3.8% of the insured amount, in öre");
         assertEquals(OfferStatus.SKAPAD, result.getStatus(),
             "Status should be SKAPAD after creation");
         assertNotNull(result.getSkapad(), "Creation timestamp should be set");
         assertNotNull(result.getGiltigTill(), "Expiry timestamp should be set");
         assertTrue(result.getGiltigTill().isAfter(result.getSkapad()),
             "Expiry should be after creation");
+        assertArrayEquals(hasher.hash("198001011234"), result.getPersonnummerHash(),
+            "Personnummer hash should be set, independent of separator");
 
-        // Verify that the repository save method was invoked
+        // Verify that the repository save method was invoked and the offer counted
         verify(repo).save(result);
+        verify(stats).recordCreated(result);
+        verify(outbox).offerChanged(OutboxEventType.CREATED, result);
     }
 
     /**
      * Test that accepting an offer before its expiry date succeeds,
-     * updating status and acceptance timestamp.
+     * returning the accepted state written by the conditional update.
      */
     @Test
     void acceptOfferBeforeExpirySucceeds() {
-        // Arrange: existing offer valid for one more day
+        // Arrange: conditional update matches, reload returns the accepted row
         Offer existing = new Offer();
-        existing.setId("test-id");
-        existing.setStatus(OfferStatus.SKAPAD);
+        existing.setId(TEST_ID);
+        existing.setStatus(OfferStatus.TECKNAD);
         existing.setGiltigTill(LocalDateTime.now().plusDays(1));
+        existing.setAccepteradVid(LocalDateTime.now());
 
-        // Mock repository lookup and save
-        when(repo.findById("test-id")).thenReturn(Optional.of(existing));
-        when(repo.save(any(Offer.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(repo.acceptIfOpen(eq(TEST_ID), any(LocalDateTime.class))).thenReturn(1);
+        when(repo.findById(TEST_ID)).thenReturn(Optional.of(existing));
 
         // Act: accept the offer
-        Offer accepted = service.acceptOffer("test-id");
+        Offer accepted = service.acceptOffer(TEST_ID);
 
         // Assert: status change and timestamp set
         assertEquals(OfferStatus.TECKNAD, accepted.getStatus(),
             "Status should change to TECKNAD on accept");
         assertNotNull(accepted.getAccepteradVid(),
             "Acceptance timestamp should be populated");
-        verify(repo).save(accepted);
+        verify(repo, never()).save(any());
+        verify(stats).recordAccepted(accepted);
+        verify(offerCache).invalidate(TEST_ID);
     }
 
     /**
@@ -126,18 +219,45 @@ class OfferServiceTest {
      */
     @Test
     void acceptOfferAfterExpiryThrowsException() {
-        // Arrange: offer expired yesterday
+        // Arrange: offer expired yesterday, so the conditional update matches nothing
         Offer existing = new Offer();
-        existing.setId("expired-id");
+        existing.setId(EXPIRED_ID);
         existing.setStatus(OfferStatus.SKAPAD);
         existing.setGiltigTill(LocalDateTime.now().minusDays(1));
 
-        when(repo.findById("expired-id")).thenReturn(Optional.of(existing));
+        when(repo.acceptIfOpen(eq(EXPIRED_ID), any(LocalDateTime.class))).thenReturn(0);
+        when(repo.findById(EXPIRED_ID)).thenReturn(Optional.of(existing));
 
         // Act & Assert: exception is thrown
         assertThrows(OfferExpiredException.class,
-                     () -> service.acceptOffer("expired-id"),
+                     () -> service.acceptOffer(EXPIRED_ID),
                      "Expired offers should throw OfferExpiredException");
+        verify(stats, never()).recordAccepted(any());
+        // Assert: the attempt is timed under its failure outcome
+        assertEquals(1, registry.get("offer.operation")
+                .tags("operation", "accept", "outcome", "OfferExpiredException")
+                .timer().count());
+    }
+
+    /**
+     * Ensure that accepting an offer that is no longer open throws
+     * {@link OfferAlreadyAcceptedException}.
+     */
+    @Test
+    void acceptOfferAlreadyAcceptedThrowsException() {
+        // Arrange: offer already TECKNAD, so the conditional update matches nothing
+        Offer existing = new Offer();
+        existing.setId(ACCEPTED_ID);
+        existing.setStatus(OfferStatus.TECKNAD);
+        existing.setGiltigTill(LocalDateTime.now().plusDays(1));
+
+        when(repo.acceptIfOpen(eq(ACCEPTED_ID), any(LocalDateTime.class))).thenReturn(0);
+        when(repo.findById(ACCEPTED_ID)).thenReturn(Optional.of(existing));
+
+        // Act & Assert: expected exception
+        assertThrows(OfferAlreadyAcceptedException.class,
+                     () -> service.acceptOffer(ACCEPTED_ID),
+                     "Accepted offers should throw OfferAlreadyAcceptedException on accept");
     }
 
     /**
@@ -146,11 +266,12 @@ class OfferServiceTest {
     @Test
     void acceptOfferNotFoundThrowsException() {
         // Arrange: no offer found in repo
-        when(repo.findById("unknown")).thenReturn(Optional.empty());
+        when(repo.acceptIfOpen(eq(UNKNOWN_ID), any(LocalDateTime.class))).thenReturn(0);
+        when(repo.findById(UNKNOWN_ID)).thenReturn(Optional.empty());
 
         // Act & Assert: not found exception
         assertThrows(OfferNotFoundException.class,
-                     () -> service.acceptOffer("unknown"),
+                     () -> service.acceptOffer(UNKNOWN_ID),
                      "Non-existent offers should throw OfferNotFoundException");
     }
 
@@ -162,12 +283,12 @@ class OfferServiceTest {
     void updateOfferRecalculatesFields() {
         // Arrange: existing offer still valid
         Offer existing = new Offer();
-        existing.setId("update-id");
+        existing.setId(UPDATE_ID);
         existing.setStatus(OfferStatus.SKAPAD);
         existing.setGiltigTill(LocalDateTime.now().plusDays(1));
         existing.setPersonnummer("old-ssn");
 
-        when(repo.findById("update-id")).thenReturn(Optional.of(existing));
+        when(repo.findById(UPDATE_ID)).thenReturn(Optional.of(existing));
         when(repo.save(any(Offer.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // New DTO with updated loan and personnummer
@@ -179,19 +300,20 @@ class OfferServiceTest {
         ));
 
         // Act: perform update
-        Offer updated = service.updateOffer("update-id", dto);
+        Offer updated = service.updateOffer(UPDATE_ID, dto);
 
         // Assert: verify recalculated fields
         assertEquals("new-ssn", updated.getPersonnummer(),
             "Personnummer should be updated");
         assertEquals(BigDecimal.valueOf(1_000_000), updated.getForsakratBelopp(),
             "Insured amount should match updated loan amount");
-        assertEquals(BigDecimal.valueOf(1_000_000).multiply(BigDecimal.valueOf(0.038)),
+        assertEquals(new BigDecimal("38000.00"),
                      updated.getPremie(),
                      "Premium should be recalculated correctly");
         assertEquals(OfferStatus.SKAPAD, updated.getStatus(),
             "Status should remain SKAPAD after update");
         verify(repo).save(updated);
+        verify(offerCache).invalidate(UPDATE_ID);
     }
 
     /**
@@ -201,15 +323,15 @@ class OfferServiceTest {
     void updateOfferAlreadyAcceptedThrowsException() {
         // Arrange: offer already accepted
         Offer existing = new Offer();
-        existing.setId("accepted-id");
+        existing.setId(ACCEPTED_ID);
         existing.setStatus(OfferStatus.TECKNAD);
         existing.setGiltigTill(LocalDateTime.now().plusDays(1));
 
-        when(repo.findById("accepted-id")).thenReturn(Optional.of(existing));
+        when(repo.findById(ACCEPTED_ID)).thenReturn(Optional.of(existing));
 
         // Act & Assert: expected exception
         assertThrows(OfferAlreadyAcceptedException.class,
-                     () -> service.updateOffer("accepted-id", new UpdateOfferDto()),
+                     () -> service.updateOffer(ACCEPTED_ID, new UpdateOfferDto()),
                      "Accepted offers should throw OfferAlreadyAcceptedException on update");
     }
 
@@ -220,15 +342,63 @@ class OfferServiceTest {
     void updateOfferAfterExpiryThrowsException() {
         // Arrange: offer expired yesterday
         Offer existing = new Offer();
-        existing.setId("expired-update");
+        existing.setId(EXPIRED_UPDATE_ID);
         existing.setStatus(OfferStatus.SKAPAD);
         existing.setGiltigTill(LocalDateTime.now().minusDays(1));
 
-        when(repo.findById("expired-update")).thenReturn(Optional.of(existing));
+        when(repo.findById(EXPIRED_UPDATE_ID)).thenReturn(Optional.of(existing));
 
         // Act & Assert: expected exception
         assertThrows(OfferExpiredException.class,
-                     () -> service.updateOffer("expired-update", new UpdateOfferDto()),
+                     () -> service.updateOffer(EXPIRED_UPDATE_ID, new UpdateOfferDto()),
                      "Expired offers should throw OfferExpiredException on update");
     }
+
+    /**
+     * Test that a batch create persists valid items in chunks and reports
+     * invalid items as failed without aborting the batch.
+     */
+    @Test
+    void createOffersReportsPerItemResults() {
+        // Arrange: run transaction callbacks directly and assign IDs on save
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+        when(repo.saveAll(anyList())).thenAnswer(inv -> {
+            List<Offer> offers = inv.getArgument(0);
+            offers.forEach(o -> o.setId(idFor(o.getPersonnummer())));
+            return offers;
+        });
+
+        CreateOfferDto valid1 = new CreateOfferDto();
+        valid1.setPersonnummer("a");
+        valid1.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        CreateOfferDto noLoans = new CreateOfferDto();
+        noLoans.setPersonnummer("b");
+        CreateOfferDto valid2 = new CreateOfferDto();
+        valid2.setPersonnummer("c");
+        valid2.setLån(List.of(new LoanDto("SBAB", BigDecimal.valueOf(200_000))));
+
+        // Act
+        List<BatchItemResultDto> results =
+            service.createOffers(List.of(valid1, noLoans, valid2).iterator());
+
+        // Assert: one result per item, in input order
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isOk());
+        assertEquals(idFor("a").toString(), results.get(0).getOfferId());
+        assertFalse(results.get(1).isOk(), "Offer without loans should fail");
+        assertNotNull(results.get(1).getFel());
+        assertTrue(results.get(2).isOk());
+        assertEquals(2, results.get(2).getIndex());
+        verify(stats, times(2)).recordCreated(any(Offer.class));
+    }
+
+    /**
+     * Deterministic ID derived from a personnummer, for batch assertions.
+     */
+    private static UUID idFor(String personnummer) {
+        return UUID.nameUUIDFromBytes(personnummer.getBytes());
+    }
 }
@@ -0,0 +1,115 @@
+/**
+ * Integration tests for the transactional outbox and its relay.
+ * <p>
+ * Uses its own H2 database and the in-memory sink to verify that events are
+ * written only when the offer change commits, delivered in order, and kept
+ * in the outbox until a full sink has room again.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.Offer;
+import com.example.gofido.domain.OutboxEvent;
+import com.example.gofido.domain.OutboxEventType;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.exception.OfferExpiredException;
+import com.example.gofido.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:outbox",
+    "offer.outbox.sink=memory",
+    "offer.outbox.memory.capacity=3",
+    "offer.outbox.memory.offer-timeout=PT0.01S",
+    "offer.outbox.batch-size=2",
+    "offer.outbox.poll-interval=PT1H"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private OfferService offers;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private OutboxSink sink;
+
+    @Autowired
+    private OutboxEventRepository events;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        events.deleteAll();
+        ((InMemoryOutboxSink) sink).drainTo(new ArrayList<>());
+    }
+
+    /**
+     * Test that create and accept are delivered in order and removed from the
+     * outbox, and that a rolled-back change leaves no event.
+     */
+    @Test
+    void deliversCommittedChangesInOrder() {
+        Offer o = offers.createOffer(createDto());
+        offers.acceptOffer(o.getId());
+        Offer expired = offers.createOffer(createDto());
+        jdbc.update("update offers set giltig_till = localtimestamp - 1 where id = ?", expired.getId());
+        assertThrows(OfferExpiredException.class, () -> offers.acceptOffer(expired.getId()));
+
+        assertEquals(3, relay.drain());
+
+        List<OutboxEvent> delivered = new ArrayList<>();
+        ((InMemoryOutboxSink) sink).drainTo(delivered);
+        assertEquals(List.of(OutboxEventType.CREATED, OutboxEventType.ACCEPTED, OutboxEventType.CREATED),
+                     delivered.stream().map(OutboxEvent::getType).toList());
+        assertEquals(o.getId(), delivered.get(1).getOfferId());
+        assertTrue(delivered.get(1).getPayload().contains("\"status\":\"TECKNAD\""));
+        assertEquals(0, events.count());
+    }
+
+    /**
+     * Test that a full sink fails the batch, leaving it in the outbox, and that
+     * it is delivered once the consumer has caught up.
+     */
+    @Test
+    void keepsEventsWhileSinkIsFull() {
+        for (int i = 0; i < 5; i++) {
+            offers.createOffer(createDto());
+        }
+
+        // The first batch fits; the second only half, so it stays in the outbox
+        assertThrows(IllegalStateException.class, () -> relay.drain());
+        assertEquals(3, events.count());
+
+        List<OutboxEvent> delivered = new ArrayList<>();
+        ((InMemoryOutboxSink) sink).drainTo(delivered);
+        assertEquals(3, relay.drain());
+        ((InMemoryOutboxSink) sink).drainTo(delivered);
+
+        // At-least-once: the event accepted before the failure is delivered again
+        assertEquals(6, delivered.size());
+        assertEquals(5, delivered.stream().map(OutboxEvent::getId).distinct().count());
+        assertEquals(0, events.count());
+    }
+
+    private CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9500));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        return dto;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.PremiumCalculator}.
+ * <p>
+ * Covers the default rate table, per-bank amount bands, öre rounding and
+ * rejection of invalid rate tables.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.config.PremiumProperties;
+import com.example.gofido.config.PremiumProperties.Band;
+import com.example.gofido.domain.Loan;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PremiumCalculatorTest {
+
+    /**
+     * Test that the default table prices 3.8% at scale 2.
+     */
+    @Test
+    void defaultTableIsThreePointEightPercent() {
+        PremiumCalculator calc = new PremiumCalculator(new PremiumProperties());
+
+        assertEquals(new BigDecimal("76000.00"), calc.premium(List.of(
+                new Loan("Handelsbanken", BigDecimal.valueOf(1_200_000)),
+                new Loan("SEB", BigDecimal.valueOf(800_000)))));
+    }
+
+    /**
+     * Test that a bank's own table is matched ignoring case, that each band
+     * starts at its lower bound, and that other banks use the default table.
+     */
+    @Test
+    void bankTablesAreBandedByAmount() {
+        PremiumProperties props = new PremiumProperties();
+        props.getBanks().put("SEB", List.of(
+                new Band(BigDecimal.valueOf(2_000_000), new BigDecimal("0.035")),
+                new Band(BigDecimal.ZERO, new BigDecimal("0.04"))));
+        PremiumCalculator calc = new PremiumCalculator(props);
+
+        assertEquals(40_000, calc.ratePpm("seb", 199_999_999L));
+        assertEquals(35_000, calc.ratePpm("SEB", 200_000_000L));
+        assertEquals(38_000, calc.ratePpm("Nordea", 200_000_000L));
+        assertEquals(38_000, calc.ratePpm(null, 0L));
+    }
+
+    /**
+     * Test that loan premiums are summed unrounded and rounded half up once.
+     */
+    @Test
+    void roundsTotalHalfUpToOre() {
+        PremiumCalculator calc = new PremiumCalculator(new PremiumProperties());
+
+        // 0.13 SEK at 3.8% is 0.494 öre, 0.50 SEK is 1.9 öre
+        assertEquals(0, calc.premiumOre("SEB", 13));
+        assertEquals(2, calc.premiumOre("SEB", 50));
+        assertEquals(new BigDecimal("0.01"), calc.premium(List.of(
+                new Loan("SEB", new BigDecimal("0.13")),
+                new Loan("SEB", new BigDecimal("0.13")))));
+    }
+
+    /**
+     * Test that tables without a band from 0 or with over-precise rates are rejected.
+     */
+    @Test
+    void rejectsInvalidTables() {
+        PremiumProperties gap = new PremiumProperties();
+        gap.setBands(List.of(new Band(BigDecimal.ONE, new BigDecimal("0.038"))));
+        assertThrows(IllegalArgumentException.class, () -> new PremiumCalculator(gap));
+
+        PremiumProperties precise = new PremiumProperties();
+        precise.setBands(List.of(new Band(BigDecimal.ZERO, new BigDecimal("0.0380001"))));
+        assertThrows(IllegalArgumentException.class, () -> new PremiumCalculator(precise));
+    }
+}
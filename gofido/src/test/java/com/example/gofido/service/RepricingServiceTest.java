@@ -0,0 +1,199 @@
+/**
+ * Integration tests for {@link com.example.gofido.service.RepricingService}.
+ * <p>
+ * Runs the job against its own H2 database with a tiny chunk size, verifying
+ * that only open offers with a stale premium are rewritten, that a failed
+ * run resumes after its checkpoint, and that the {@code repricing} lease
+ * keeps runs on one instance at a time.
+ */
+package com.example.gofido.service;
+
+import com.example.gofido.domain.RepricingCheckpoint;
+import com.example.gofido.domain.RepricingStatus;
+import com.example.gofido.dto.CreateOfferDto;
+import com.example.gofido.dto.LoanDto;
+import com.example.gofido.repository.RepricingCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:repricing",
+    "offer.repricing.chunk-size=2"
+})
+class RepricingServiceTest {
+
+    /**
+     * Premium of the single 100 000 SEK loan every test offer has, at 3.8%.
+     */
+    private static final BigDecimal PREMIE = new BigDecimal("3800.00");
+
+    private static final BigDecimal STALE = new BigDecimal("1.00");
+
+    @Autowired
+    private RepricingService repricing;
+
+    @Autowired
+    private OfferService offers;
+
+    @Autowired
+    private RepricingCheckpointRepository checkpoints;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Real lease service whose renewals a test can make fail.
+     */
+    @MockitoSpyBean
+    private LeaseService leases;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("delete from offers");
+        jdbc.update("delete from scheduler_leases");
+        checkpoints.deleteAll();
+    }
+
+    /**
+     * Test that stale open offers are re-priced across chunks, while accepted
+     * and expired offers and up-to-date offers are left alone.
+     */
+    @Test
+    void repricesStaleOpenOffers() {
+        for (int i = 0; i < 5; i++) {
+            offers.createOffer(createDto());
+        }
+        List<UUID> open = openIds();
+        UUID accepted = offers.createOffer(createDto()).getId();
+        offers.acceptOffer(accepted);
+        UUID expired = offers.createOffer(createDto()).getId();
+        jdbc.update("update offers set giltig_till = localtimestamp - 1 where id = ?", expired);
+        jdbc.update("update offers set premie = ? where id <> ?", STALE, open.get(1));
+
+        RepricingCheckpoint cp = repricing.reprice(false);
+
+        assertEquals(RepricingStatus.COMPLETED, cp.getStatus());
+        assertEquals(5, cp.getScanned());
+        assertEquals(4, cp.getRepriced());
+        assertEquals(3, cp.getChunks());
+        for (UUID id : open) {
+            assertEquals(PREMIE, premie(id));
+        }
+        assertEquals(STALE, premie(accepted));
+        assertEquals(STALE, premie(expired));
+    }
+
+    /**
+     * Test that resuming a failed run continues after its last committed offer.
+     */
+    @Test
+    void resumesAfterCheckpoint() {
+        for (int i = 0; i < 4; i++) {
+            offers.createOffer(createDto());
+        }
+        List<UUID> open = openIds();
+        jdbc.update("update offers set premie = ?", STALE);
+        RepricingCheckpoint failed = new RepricingCheckpoint();
+        failed.setJob(RepricingService.JOB);
+        failed.setStatus(RepricingStatus.FAILED);
+        failed.setLastId(open.get(1));
+        failed.setScanned(2);
+        checkpoints.save(failed);
+
+        RepricingCheckpoint cp = repricing.reprice(true);
+
+        assertEquals(RepricingStatus.COMPLETED, cp.getStatus());
+        assertEquals(4, cp.getScanned());
+        assertEquals(2, cp.getRepriced());
+        assertEquals(List.of(STALE, STALE, PREMIE, PREMIE), open.stream().map(this::premie).toList());
+    }
+
+    /**
+     * Test that no run starts or resumes while another node holds the lease,
+     * and that an interrupted run is resumed once the lease is free.
+     */
+    @Test
+    void resumesOnlyWithLease() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            offers.createOffer(createDto());
+        }
+        jdbc.update("update offers set premie = ?", STALE);
+        RepricingCheckpoint interrupted = new RepricingCheckpoint();
+        interrupted.setJob(RepricingService.JOB);
+        interrupted.setStatus(RepricingStatus.RUNNING);
+        interrupted.setLastId(new UUID(0L, 0L));
+        checkpoints.save(interrupted);
+
+        jdbc.update("insert into scheduler_leases (name, owner, expires_at)"
+                + " values (?, 'other', dateadd(minute, 1, localtimestamp))", RepricingService.JOB);
+        repricing.resumeInterrupted();
+        assertFalse(repricing.isRunning());
+        assertFalse(repricing.start(true));
+        assertThrows(IllegalStateException.class, () -> repricing.reprice(true));
+        assertEquals(RepricingStatus.RUNNING, checkpoints.findById(RepricingService.JOB).orElseThrow().getStatus());
+        assertEquals(List.of(STALE, STALE, STALE), openIds().stream().map(this::premie).toList());
+
+        // The other node's lease lapses
+        jdbc.update("update scheduler_leases set expires_at = localtimestamp - 1");
+        repricing.resumeInterrupted();
+        for (int i = 0; i < 100 && repricing.isRunning(); i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(RepricingStatus.COMPLETED, checkpoints.findById(RepricingService.JOB).orElseThrow().getStatus());
+        assertEquals(List.of(PREMIE, PREMIE, PREMIE), openIds().stream().map(this::premie).toList());
+    }
+
+    /**
+     * Test that a run that lost the lease after its first chunk stops without
+     * writing the next chunk or marking the checkpoint, which belongs to the
+     * new holder's run.
+     */
+    @Test
+    void stopsWhenLeaseIsLost() {
+        for (int i = 0; i < 4; i++) {
+            offers.createOffer(createDto());
+        }
+        jdbc.update("update offers set premie = ?", STALE);
+        doCallRealMethod().doReturn(false).when(leases).renewWithin(eq(RepricingService.JOB), any());
+
+        try {
+            assertThrows(IllegalStateException.class, () -> repricing.reprice(false));
+        } finally {
+            doCallRealMethod().when(leases).renewWithin(any(), any());
+        }
+
+        RepricingCheckpoint cp = checkpoints.findById(RepricingService.JOB).orElseThrow();
+        assertEquals(RepricingStatus.RUNNING, cp.getStatus());
+        assertEquals(2, cp.getScanned());
+        assertEquals(List.of(PREMIE, PREMIE, STALE, STALE), openIds().stream().map(this::premie).toList());
+    }
+
+    private List<UUID> openIds() {
+        return jdbc.queryForList("select id from offers where status = 'SKAPAD' order by id", UUID.class);
+    }
+
+    private BigDecimal premie(UUID id) {
+        return jdbc.queryForObject("select premie from offers where id = ?", BigDecimal.class, id);
+    }
+
+    private CreateOfferDto createDto() {
+        CreateOfferDto dto = new CreateOfferDto();
+        dto.setPersonnummer("19800101-1234");
+        dto.setManadskostnad(BigDecimal.valueOf(9500));
+        dto.setLån(List.of(new LoanDto("SEB", BigDecimal.valueOf(100_000))));
+        return dto;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Unit tests for {@link com.example.gofido.service.TimerWheel}.
+ * <p>
+ * Uses a one-millisecond tick so deadlines on every level, and beyond the top
+ * level, can be reached quickly, and checks that each fires exactly when it
+ * has passed.
+ */
+package com.example.gofido.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    /**
+     * Test that deadlines placed on every level and in the overflow list fire
+     * on their own tick and not one tick earlier.
+     */
+    @Test
+    void firesEachDeadlineOnItsTick() {
+        long start = 1_000_000;
+        TimerWheel wheel = new TimerWheel(Duration.ofMillis(1), start);
+        long[] offsets = {1, 63, 64, 65, 4095, 4096, 4097, 300_000, 16_777_216 + 10};
+        UUID[] ids = new UUID[offsets.length];
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            ids[i] = UUID.randomUUID();
+            wheel.add(ids[i], start + offsets[i]);
+        }
+        assertEquals(offsets.length, wheel.size());
+
+        for (int i = 0; i < offsets.length; i++) {
+            assertEquals(List.of(), wheel.advance(start + offsets[i] - 1), "early at offset " + offsets[i]);
+            assertEquals(List.of(ids[i]), wheel.advance(start + offsets[i]), "offset " + offsets[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test that a deadline that has already passed is returned by the next
+     * advance, and that deadlines are rounded up to whole ticks.
+     */
+    @Test
+    void returnsPassedDeadlinesOnNextAdvance() {
+        TimerWheel wheel = new TimerWheel(Duration.ofSeconds(1), 10_000);
+        UUID overdue = UUID.randomUUID();
+        UUID midTick = UUID.randomUUID();
+        wheel.add(overdue, 5_000);
+        wheel.add(midTick, 11_500);
+
+        assertEquals(List.of(overdue), wheel.advance(10_000));
+        assertEquals(List.of(), wheel.advance(11_999));
+        assertEquals(List.of(midTick), wheel.advance(12_000));
+    }
+}